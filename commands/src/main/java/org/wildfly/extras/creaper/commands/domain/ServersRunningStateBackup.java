@@ -1,14 +1,21 @@
 package org.wildfly.extras.creaper.commands.domain;
 
 import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.online.Constants;
 import org.wildfly.extras.creaper.core.online.OnlineCommand;
 import org.wildfly.extras.creaper.core.online.OnlineCommandContext;
+import org.wildfly.extras.creaper.core.online.operations.Address;
+import org.wildfly.extras.creaper.core.online.operations.Batch;
+import org.wildfly.extras.creaper.core.online.operations.Operations;
+import org.wildfly.extras.creaper.core.online.operations.Values;
 import org.wildfly.extras.creaper.core.online.operations.admin.DomainAdministration;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Provides a pair of online commands to backup and then restore running state of servers in domain. The {@code backup}
@@ -16,8 +23,21 @@ import java.util.Map;
  * is violated, an exception is thrown. For special circumstances, when the backup that was already acquired is
  * no longer needed and is not going to be restored, a {@code destroy} command is provided. If there was no backup
  * acquired, the destroy command does nothing.
+ *
+ * <p>Both the backup and the state of servers before restore are read using a single management operation for the
+ * whole domain. The restore only starts and stops the servers whose state differs from the backup, using a single
+ * composite operation, and then waits until all of them are started or stopped, checking the state of all servers
+ * using a single management operation in each attempt. Servers that are already starting aren't started again,
+ * they are only waited for. Servers that are stopping are waited for until they are stopped before they are started,
+ * or they are just waited for if they should be stopped. All the waiting is limited by the default timeout
+ * of {@link DomainAdministration}.</p>
  */
 public final class ServersRunningStateBackup {
+    // values of the "status" attribute of server-config
+    private static final String STARTED = "STARTED";
+    private static final String STARTING = "STARTING";
+    private static final String STOPPING = "STOPPING";
+
     private Map<String, List<String>> runningServersOnHosts; // null <=> backup wasn't acquired, can't restore
 
     private final OnlineCommand backupPart = new OnlineCommand() {
@@ -31,11 +51,7 @@ public final class ServersRunningStateBackup {
             }
 
             DomainAdministration domainAdministration = new DomainAdministration(ctx.client);
-            Map<String, List<String>> runningServers = new HashMap<String, List<String>>();
-            for (String host : domainAdministration.hosts()) {
-                runningServers.put(host, domainAdministration.allRunningServers());
-            }
-            ServersRunningStateBackup.this.runningServersOnHosts = runningServers;
+            ServersRunningStateBackup.this.runningServersOnHosts = domainAdministration.allRunningServersOnAllHosts();
         }
 
         @Override
@@ -55,16 +71,58 @@ public final class ServersRunningStateBackup {
             }
 
             DomainAdministration domainAdministration = new DomainAdministration(ctx.client);
-            for (String host : domainAdministration.hosts()) {
-                List<String> servers = domainAdministration.allServers(host);
-                for (String server : servers) {
-                    if (runningServersOnHosts.containsKey(host) && runningServersOnHosts.get(host).contains(server)) {
-                        domainAdministration.startServer(host, server);
-                    } else {
-                        domainAdministration.stopServer(host, server);
+            Map<String, Map<String, String>> statuses = domainAdministration.serverStatusesOnAllHosts();
+
+            Map<String, List<String>> serversToStart = new HashMap<String, List<String>>();
+            Map<String, List<String>> serversToStop = new HashMap<String, List<String>>();
+            Map<String, List<String>> serversToBeRunning = new HashMap<String, List<String>>();
+            Map<String, List<String>> serversToBeStopped = new HashMap<String, List<String>>();
+            Map<String, List<String>> stoppingServersToStart = new HashMap<String, List<String>>();
+            for (Map.Entry<String, Map<String, String>> hostStatuses : statuses.entrySet()) {
+                String host = hostStatuses.getKey();
+                List<String> runningServers = runningServersOnHosts.get(host);
+                for (Map.Entry<String, String> serverStatus : hostStatuses.getValue().entrySet()) {
+                    String server = serverStatus.getKey();
+                    String status = serverStatus.getValue();
+                    if (runningServers != null && runningServers.contains(server)) {
+                        if (STOPPING.equals(status)) {
+                            add(stoppingServersToStart, host, server);
+                            add(serversToStart, host, server);
+                        } else if (!STARTED.equals(status) && !STARTING.equals(status)) {
+                            add(serversToStart, host, server);
+                        }
+                        if (!STARTED.equals(status)) {
+                            add(serversToBeRunning, host, server);
+                        }
+                    } else if (!isStopped(status)) {
+                        if (!STOPPING.equals(status)) {
+                            add(serversToStop, host, server);
+                        }
+                        add(serversToBeStopped, host, server);
                     }
                 }
             }
+
+            try {
+                // a server that is stopping can't be started until it's stopped
+                domainAdministration.waitUntilServersStopped(stoppingServersToStart);
+
+                if (!serversToStart.isEmpty() || !serversToStop.isEmpty()) {
+                    Batch batch = new Batch();
+                    invokeOnServers(batch, Constants.START, serversToStart);
+                    invokeOnServers(batch, Constants.STOP, serversToStop);
+                    new Operations(ctx.client).batch(batch).assertSuccess("Failed to start or stop servers");
+                }
+
+                domainAdministration.waitUntilServersStarted(serversToBeRunning);
+                domainAdministration.waitUntilServersStopped(serversToBeStopped);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CommandFailedException(e);
+            } catch (TimeoutException e) {
+                throw new CommandFailedException(e);
+            }
+
             ServersRunningStateBackup.this.runningServersOnHosts = null;
         }
 
@@ -74,6 +132,26 @@ public final class ServersRunningStateBackup {
         }
     };
 
+    private static void add(Map<String, List<String>> serversOnHosts, String host, String server) {
+        if (!serversOnHosts.containsKey(host)) {
+            serversOnHosts.put(host, new ArrayList<String>());
+        }
+        serversOnHosts.get(host).add(server);
+    }
+
+    private static void invokeOnServers(Batch batch, String operation, Map<String, List<String>> serversOnHosts) {
+        for (Map.Entry<String, List<String>> hostServers : serversOnHosts.entrySet()) {
+            for (String server : hostServers.getValue()) {
+                batch.invoke(operation, Address.host(hostServers.getKey()).and(Constants.SERVER_CONFIG, server),
+                        Values.of(Constants.BLOCKING, false));
+            }
+        }
+    }
+
+    private static boolean isStopped(String status) {
+        return !STARTED.equals(status) && !STARTING.equals(status) && !STOPPING.equals(status);
+    }
+
     private final OnlineCommand destroyPart = new OnlineCommand() {
         @Override
         public void apply(OnlineCommandContext ctx) throws CommandFailedException {
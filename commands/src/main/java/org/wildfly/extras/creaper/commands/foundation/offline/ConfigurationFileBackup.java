@@ -29,6 +29,9 @@ public final class ConfigurationFileBackup {
                         + ConfigurationFileBackup.this.backupFile);
             }
 
+            if (ctx.session() != null) {
+                ctx.session().flush();
+            }
             File tempFile = File.createTempFile("creaper-backup", null);
             Files.copy(ctx.configurationFile, tempFile);
             ConfigurationFileBackup.this.backupFile = tempFile;
@@ -48,6 +51,9 @@ public final class ConfigurationFileBackup {
             }
 
             Files.copy(ConfigurationFileBackup.this.backupFile, ctx.configurationFile);
+            if (ctx.session() != null) {
+                ctx.session().refresh();
+            }
             boolean deleted = ConfigurationFileBackup.this.backupFile.delete();
             if (!deleted) {
                 log.errorf("Couldn't delete %s, continuing", ConfigurationFileBackup.this.backupFile);
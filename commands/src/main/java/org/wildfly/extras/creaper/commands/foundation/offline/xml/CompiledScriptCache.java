@@ -0,0 +1,177 @@
+package org.wildfly.extras.creaper.commands.foundation.offline.xml;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import groovy.lang.GroovyCodeSource;
+import groovy.lang.Script;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Process-wide cache of compiled transformation scripts. Compiling a Groovy script is by far the most expensive part
+ * of applying a {@link GroovyXmlTransform}, so each script is only compiled once. Compiled scripts are cached
+ * separately for each class loader that loads them and within that, keyed by the resource name of the script,
+ * so a cache hit doesn't need to load the script at all. Class loaders are only weakly referenced, so the cache
+ * doesn't prevent them from being garbage collected (e.g. when an application is redeployed).
+ */
+final class CompiledScriptCache {
+    private CompiledScriptCache() {} // avoid instantiation
+
+    private static final int MAX_SIZE_PER_CLASS_LOADER = 512;
+
+    private static final String SCRIPTS_PACKAGE = "org/wildfly/extras/creaper/commands/";
+    private static final String SCRIPT_SUFFIX = ".groovy";
+
+    private static final LoadingCache<ClassLoader, Cache<String, Class>> CACHE = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build(new CacheLoader<ClassLoader, Cache<String, Class>>() {
+                @Override
+                public Cache<String, Class> load(ClassLoader classLoader) {
+                    return CacheBuilder.newBuilder()
+                            .maximumSize(MAX_SIZE_PER_CLASS_LOADER)
+                            .build();
+                }
+            });
+
+    /** Returns a compiled class of the {@code script}, loading and compiling it if it isn't cached yet. */
+    static Class get(final TransformationScript script) throws CommandFailedException {
+        ClassLoader classLoader = script.classLoader();
+        if (classLoader == null) {
+            classLoader = ClassLoader.getSystemClassLoader();
+        }
+
+        try {
+            return CACHE.getUnchecked(classLoader).get(script.resourceName(), new Callable<Class>() {
+                @Override
+                public Class call() throws CommandFailedException {
+                    return compile(script);
+                }
+            });
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CommandFailedException) {
+                throw (CommandFailedException) e.getCause();
+            }
+            throw new CommandFailedException("Couldn't compile " + script, e.getCause());
+        } catch (UncheckedExecutionException e) {
+            // compilation errors are unchecked
+            throw new CommandFailedException("Couldn't compile " + script, e.getCause());
+        }
+    }
+
+    private static Class compile(TransformationScript script) throws CommandFailedException {
+        URL url = script.url();
+        if (url == null) {
+            throw new CommandFailedException("Couldn't load " + script);
+        }
+
+        String content;
+        try {
+            InputStream input = url.openStream();
+            try {
+                content = new String(ByteStreams.toByteArray(input), Charsets.UTF_8);
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            throw new CommandFailedException("Couldn't load " + script, e);
+        }
+
+        String fileName = url.getPath().substring(url.getPath().lastIndexOf('/') + 1);
+        GroovyCodeSource codeSource = new GroovyCodeSource(content, fileName, "/groovy/script");
+        // script names aren't unique, so GroovyClassLoader's own cache can't be used
+        codeSource.setCachable(false);
+        return GroovyHolder.GROOVY.parseClass(codeSource, false);
+    }
+
+    /**
+     * Compiles all transformation scripts that are shipped together with the {@code resourceLoader} class (that is,
+     * all {@code .groovy} files in the same JAR or directory under {@code org/wildfly/extras/creaper/commands})
+     * and stores them in the cache.
+     * @return number of scripts that were compiled
+     */
+    static int precompileScriptsShippedWith(Class resourceLoader) throws CommandFailedException {
+        List<String> paths;
+        try {
+            paths = findScripts(resourceLoader);
+        } catch (IOException e) {
+            throw new CommandFailedException("Couldn't list transformation scripts", e);
+        }
+
+        for (String path : paths) {
+            Class clazz = get(new TransformationScript(resourceLoader, path));
+            if (!Script.class.isAssignableFrom(clazz)) {
+                throw new CommandFailedException("Not a valid Groovy script: " + path);
+            }
+        }
+        return paths.size();
+    }
+
+    private static List<String> findScripts(Class resourceLoader) throws IOException {
+        List<String> result = new ArrayList<String>();
+
+        CodeSource codeSource = resourceLoader.getProtectionDomain().getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null) {
+            return result;
+        }
+
+        File location;
+        try {
+            location = new File(codeSource.getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        } catch (IllegalArgumentException e) {
+            // not a file: URL, scripts can't be listed
+            return result;
+        }
+
+        if (location.isDirectory()) {
+            findScripts(new File(location, SCRIPTS_PACKAGE), "/" + SCRIPTS_PACKAGE, result);
+        } else if (location.isFile()) {
+            JarFile jar = new JarFile(location);
+            try {
+                Enumeration<JarEntry> entries = jar.entries();
+                while (entries.hasMoreElements()) {
+                    String name = entries.nextElement().getName();
+                    if (name.startsWith(SCRIPTS_PACKAGE) && name.endsWith(SCRIPT_SUFFIX)) {
+                        result.add("/" + name);
+                    }
+                }
+            } finally {
+                jar.close();
+            }
+        }
+        return result;
+    }
+
+    private static void findScripts(File directory, String path, List<String> result) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                findScripts(file, path + file.getName() + "/", result);
+            } else if (file.getName().endsWith(SCRIPT_SUFFIX)) {
+                result.add(path + file.getName());
+            }
+        }
+    }
+}
@@ -1,25 +1,16 @@
 package org.wildfly.extras.creaper.commands.foundation.offline.xml;
 
-import com.google.common.base.Function;
-import com.google.common.collect.Ordering;
-import groovy.util.Node;
-import groovy.util.XmlParser;
-import groovy.xml.XmlUtil;
+import com.google.common.collect.ImmutableList;
+import groovy.util.slurpersupport.Node;
 
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.ListIterator;
 
 final class FirstLevelXmlElementOrder {
-    private static final Function<Node, String> GET_NODE_NAME = new Function<Node, String>() {
-        @Override
-        public String apply(Node input) {
-            return String.valueOf(input == null ? null : input.name());
-        }
-    };
-
     // see files [jboss-as|wildfly]-config_*.xsd
 
-    private static final Ordering<Node> DOMAIN_ORDERING = Ordering.explicit(
+    private static final List<String> DOMAIN_ELEMENTS = ImmutableList.of(
             "extensions",
             "system-properties",
             "paths",
@@ -32,9 +23,9 @@ final class FirstLevelXmlElementOrder {
             "server-groups",
             "host-excludes",
             "management-client-content"
-    ).onResultOf(GET_NODE_NAME);
+    );
 
-    private static final Ordering<Node> HOST_ORDERING = Ordering.explicit(
+    private static final List<String> HOST_ELEMENTS = ImmutableList.of(
             "extensions",
             "system-properties",
             "paths",
@@ -46,9 +37,9 @@ final class FirstLevelXmlElementOrder {
             "servers",
             "profile",
             "socket-binding-group"
-    ).onResultOf(GET_NODE_NAME);
+    );
 
-    private static final Ordering<Node> SERVER_ORDERING = Ordering.explicit(
+    private static final List<String> SERVER_ELEMENTS = ImmutableList.of(
             "extensions",
             "system-properties",
             "paths",
@@ -59,30 +50,49 @@ final class FirstLevelXmlElementOrder {
             "socket-binding-group",
             "deployments",
             "deployment-overlays"
-    ).onResultOf(GET_NODE_NAME);
+    );
 
-    static String fix(String xml) {
-        try {
-            Node root = new XmlParser(false, false).parseText(xml);
+    private static List<String> elementsFor(String rootName) {
+        if ("domain".equals(rootName)) {
+            return DOMAIN_ELEMENTS;
+        } else if ("host".equals(rootName)) {
+            return HOST_ELEMENTS;
+        } else if ("server".equals(rootName)) {
+            return SERVER_ELEMENTS;
+        } else {
+            throw new IllegalArgumentException("Unknown root element '" + rootName + "'");
+        }
+    }
 
-            Ordering<Node> ordering;
-            if ("domain".equals(root.name())) {
-                ordering = DOMAIN_ORDERING;
-            } else if ("host".equals(root.name())) {
-                ordering = HOST_ORDERING;
-            } else if ("server".equals(root.name())) {
-                ordering = SERVER_ORDERING;
-            } else {
-                throw new IllegalArgumentException("Unknown root element '" + root.name() + "'");
-            }
+    /**
+     * Inserts a new empty first-level element named {@code name} directly into the {@code root} node of a tree
+     * parsed by {@code XmlSlurper}, at the position where it belongs according to the schema. Unlike appending
+     * a closure (which is what {@code root << { ... }} does), this modifies the tree in place, so the new element
+     * is immediately visible to subsequent navigation and there's no need to serialize and reparse the document.
+     * Elements unknown to the ordering are skipped over; if {@code name} itself is unknown, the element is appended.
+     */
+    static void insert(Node root, String name) {
+        List<String> elements = elementsFor(root.name());
+        int order = elements.indexOf(name);
+
+        Node newNode = new Node(root, name, new HashMap(), new HashMap(), root.namespaceURI());
 
-            Collections.sort((List<Node>) root.children(), ordering);
-            return XmlUtil.serialize(root);
-        } catch (RuntimeException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        List children = root.children();
+        if (order >= 0) {
+            ListIterator iterator = children.listIterator();
+            while (iterator.hasNext()) {
+                Object child = iterator.next();
+                if (child instanceof Node) {
+                    int childOrder = elements.indexOf(((Node) child).name());
+                    if (childOrder > order) {
+                        iterator.previous();
+                        iterator.add(newNode);
+                        return;
+                    }
+                }
+            }
         }
+        children.add(newNode);
     }
 
     private FirstLevelXmlElementOrder() {} // avoid instantiation
@@ -1,6 +1,5 @@
 package org.wildfly.extras.creaper.commands.foundation.offline.xml;
 
-import groovy.lang.GroovyCodeSource;
 import groovy.lang.Script;
 import groovy.util.XmlSlurper;
 import groovy.util.slurpersupport.GPathResult;
@@ -14,7 +13,6 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
-import java.net.URL;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -59,6 +57,20 @@ public final class GroovyXmlTransform implements OfflineCommand {
         return new Builder(new TransformationScript(resourceLoader, path));
     }
 
+    /**
+     * Compiles all transformation scripts shipped in {@code creaper-commands} ahead of time. Compiled scripts are
+     * cached for as long as the class loader that loads them is alive (up to a reasonable limit), so that applying
+     * each offline command doesn't have to compile its script from scratch. Calling this method is never required,
+     * it only moves the cost of compilation to a well-defined point in time (e.g. to a separate thread during
+     * application startup).
+     *
+     * @return number of compiled scripts
+     * @throws CommandFailedException if one of the scripts can't be loaded or compiled
+     */
+    public static int precompileScripts() throws CommandFailedException {
+        return CompiledScriptCache.precompileScriptsShippedWith(GroovyXmlTransform.class);
+    }
+
     private GroovyXmlTransform(TransformationScript script, Map<String, Subtree> subtrees,
                                Map<String, Object> parameters, boolean entireFile) {
         if (entireFile && !subtrees.isEmpty()) {
@@ -85,19 +97,7 @@ public final class GroovyXmlTransform implements OfflineCommand {
 
     @Override
     public void apply(OfflineCommandContext ctx) throws CommandFailedException, IOException {
-        URL url = script.url();
-        if (url == null) {
-            throw new CommandFailedException("Couldn't load " + script);
-        }
-
-        GroovyCodeSource codeSource;
-        try {
-            codeSource = new GroovyCodeSource(url);
-        } catch (Exception e) {
-            throw new CommandFailedException(e);
-        }
-
-        Class clazz = GroovyHolder.GROOVY.parseClass(codeSource);
+        Class clazz = CompiledScriptCache.get(script);
         if (!Script.class.isAssignableFrom(clazz)) {
             throw new CommandFailedException("Not a valid Groovy script: " + script);
         }
@@ -116,23 +116,30 @@ public final class GroovyXmlTransform implements OfflineCommand {
         }
 
         if (entireFile) {
+            if (ctx.session() != null) {
+                ctx.session().flush();
+            }
             loadedScript.setProperty("file", ctx.configurationFile);
             loadedScript.run();
-        } else {
+            if (ctx.session() != null) {
+                ctx.session().refresh();
+            }
+        } else if (!applyStreaming(ctx, loadedScript)) {
             try {
-                GPathResult root = new XmlSlurper(false, false).parse(ctx.configurationFile);
+                GPathResult root;
+                if (ctx.session() != null) {
+                    root = ParsedXml.rootFor(ctx.session());
+                } else {
+                    root = new XmlSlurper(false, false).parse(ctx.configurationFile);
+                }
                 if (subtrees.isEmpty()) {
                     loadedScript.setProperty("root", root);
                 } else {
+                    // missing nodes are inserted directly into the tree at the correct place,
+                    // so they are immediately visible and there's no need to serialize and reparse here
                     for (Subtree subtree : subtrees.values()) {
                         subtree.addIfMissing(root, ctx.options);
                     }
-                    // two things happening here:
-                    // 1. nodes might have been added, but to a wrong place (fixing it post facto is easier than adding
-                    //    them to the correct location in the first place)
-                    // 2. XmlSlurper can't see the changes it made, so we need to serialize and reparse here
-                    String fixedXml = FirstLevelXmlElementOrder.fix(XmlUtil.serialize(root));
-                    root = new XmlSlurper(false, false).parseText(fixedXml);
 
                     for (Map.Entry<String, Subtree> subtree : subtrees.entrySet()) {
                         loadedScript.setProperty(subtree.getKey(), subtree.getValue().locate(root, ctx.options));
@@ -141,16 +148,44 @@ public final class GroovyXmlTransform implements OfflineCommand {
 
                 loadedScript.run();
 
-                Writer writer = new BufferedWriter(new OutputStreamWriter(
-                        new FileOutputStream(ctx.configurationFile), "utf-8"));
-                XmlUtil.serialize(root, writer);
-                writer.close();
+                if (ctx.session() != null) {
+                    // the session is only updated when the transformation succeeds
+                    ctx.session().updateConfiguration(new ParsedXml(root));
+                } else {
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(
+                            new FileOutputStream(ctx.configurationFile), "utf-8"));
+                    XmlUtil.serialize(root, writer);
+                    writer.close();
+                }
             } catch (Exception e) {
                 throw new CommandFailedException(e);
             }
         }
     }
 
+    /**
+     * Applies the transformation using {@link StreamingXmlTransform} if it's enabled and possible.
+     * @return whether the transformation was applied; if not, the regular engine must be used
+     */
+    private boolean applyStreaming(OfflineCommandContext ctx, Script loadedScript) throws CommandFailedException {
+        if (!ctx.options.streaming || ctx.session() != null || subtrees.size() != 1) {
+            return false;
+        }
+
+        Map.Entry<String, Subtree> subtree = subtrees.entrySet().iterator().next();
+        StreamingSubtreeMatcher matcher = subtree.getValue().streamingMatcher();
+        if (matcher == null) {
+            return false;
+        }
+
+        try {
+            return StreamingXmlTransform.apply(ctx.configurationFile, ctx.options, matcher, loadedScript,
+                    subtree.getKey());
+        } catch (Exception e) {
+            throw new CommandFailedException(e);
+        }
+    }
+
     @Override
     public String toString() {
         return "GroovyXmlTransform " + script.toString();
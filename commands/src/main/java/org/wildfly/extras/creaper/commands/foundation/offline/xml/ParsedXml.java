@@ -0,0 +1,60 @@
+package org.wildfly.extras.creaper.commands.foundation.offline.xml;
+
+import groovy.lang.Closure;
+import groovy.lang.GroovyObject;
+import groovy.util.XmlSlurper;
+import groovy.util.slurpersupport.GPathResult;
+import groovy.xml.StreamingSAXBuilder;
+import groovy.xml.XmlUtil;
+import org.wildfly.extras.creaper.core.offline.OfflineSession;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.io.Writer;
+import javax.xml.parsers.ParserConfigurationException;
+
+/**
+ * The configuration file parsed by {@code XmlSlurper}, kept in an {@link OfflineSession} between transformations.
+ *
+ * <p>Changes done by a transformation script through {@code replaceNode}, {@code appendNode} etc. aren't visible
+ * in the tree until it's serialized, so before the next transformation, the tree is copied with these changes
+ * applied. The copy is built from SAX events generated directly from the tree, so the configuration isn't serialized
+ * to text and parsed again. Copying also means that the tree kept in the session is never changed, so when
+ * a transformation fails, the session isn't affected. (Groovy's SAX builder doesn't support unescaped content,
+ * so content written by {@code mkp.yieldUnescaped} is copied as text.)</p>
+ */
+final class ParsedXml implements OfflineSession.ParsedConfiguration {
+    private final GPathResult root;
+
+    ParsedXml(GPathResult root) {
+        this.root = root;
+    }
+
+    /** Returns a tree that the transformation can change, either copied from the session or parsed. */
+    static GPathResult rootFor(OfflineSession session) throws IOException, SAXException,
+            ParserConfigurationException {
+        ParsedXml parsed = session.parsedConfiguration(ParsedXml.class);
+        if (parsed != null) {
+            return parsed.copy();
+        }
+        return new XmlSlurper(false, false).parseText(session.configuration());
+    }
+
+    private GPathResult copy() throws SAXException, ParserConfigurationException {
+        XmlSlurper slurper = new XmlSlurper(false, false);
+        Closure document = (Closure) new StreamingSAXBuilder().bind(new Closure<Object>(null) {
+            @SuppressWarnings("unused") // called by Groovy
+            public Object doCall(Object ignored) {
+                GroovyObject mkp = (GroovyObject) ((GroovyObject) getDelegate()).getProperty("mkp");
+                return mkp.invokeMethod("yield", new Object[]{root});
+            }
+        });
+        document.call(slurper);
+        return slurper.getDocument();
+    }
+
+    @Override
+    public void writeTo(Writer writer) throws IOException {
+        XmlUtil.serialize(root, writer);
+    }
+}
@@ -0,0 +1,43 @@
+package org.wildfly.extras.creaper.commands.foundation.offline.xml;
+
+import org.wildfly.extras.creaper.core.offline.OfflineOptions;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import java.util.List;
+
+/**
+ * Identifies the element of a {@link Subtree} in a stream of StAX events, so that the subtree can be transformed
+ * without materializing the rest of the document. See {@link StreamingXmlTransform}.
+ */
+interface StreamingSubtreeMatcher {
+    /**
+     * @param path all currently open elements, starting with the document root and ending with the element
+     * that has just been started
+     * @return whether the last element of the {@code path} is the root of the subtree
+     */
+    boolean matches(List<StartElement> path, OfflineOptions options);
+
+    final class Elements {
+        private Elements() {} // avoid instantiation
+
+        static boolean hasName(StartElement element, String localName) {
+            return localName.equals(element.getName().getLocalPart());
+        }
+
+        static boolean hasAttribute(StartElement element, String attributeName, String value) {
+            Attribute attribute = element.getAttributeByName(new QName(attributeName));
+            return attribute != null && attribute.getValue().equals(value);
+        }
+
+        static boolean isSubsystem(StartElement element, String subsystemName, boolean alsoWildFlyNamespace) {
+            if (!hasName(element, "subsystem")) {
+                return false;
+            }
+            String namespace = element.getName().getNamespaceURI();
+            return namespace.startsWith("urn:jboss:domain:" + subsystemName + ":")
+                    || alsoWildFlyNamespace && namespace.startsWith("urn:wildfly:" + subsystemName + ":");
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package org.wildfly.extras.creaper.commands.foundation.offline.xml;
+
+import com.google.common.io.Files;
+import groovy.lang.Script;
+import groovy.util.XmlSlurper;
+import groovy.util.slurpersupport.GPathResult;
+import groovy.xml.XmlUtil;
+import org.jboss.logging.Logger;
+import org.wildfly.extras.creaper.core.offline.OfflineOptions;
+
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.StartDocument;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>The streaming engine for {@link GroovyXmlTransform}, used when
+ * {@link org.wildfly.extras.creaper.core.offline.OfflineOptions.OptionalOfflineOptions#streaming() enabled}.
+ * The configuration file is processed as a stream of StAX events that are copied to a temporary file untouched,
+ * except of the single subtree that the transformation targets. Only that subtree is materialized, transformed
+ * by the script and written back into the stream. When done, the temporary file replaces the configuration file.
+ * This bounds memory consumption by the size of the subtree and avoids parsing and serializing the entire document.
+ * </p>
+ *
+ * <p>Unlike the regular engine, this preserves formatting and comments outside of the transformed subtree.</p>
+ */
+final class StreamingXmlTransform {
+    private static final Logger log = Logger.getLogger(StreamingXmlTransform.class);
+
+    private static final String ENCODING = "UTF-8";
+
+    private StreamingXmlTransform() {} // avoid instantiation
+
+    /**
+     * Runs the {@code script} on the subtree identified by the {@code matcher}; the subtree will be available
+     * to the script as a variable named {@code subtreeName}.
+     * @return {@code true} if the transformation was performed, {@code false} if the subtree wasn't found
+     * (in which case the configuration file isn't touched and the script isn't run)
+     */
+    static boolean apply(File configurationFile, OfflineOptions options, StreamingSubtreeMatcher matcher,
+                         Script script, String subtreeName) throws Exception {
+        XMLInputFactory inputFactory = createInputFactory();
+        XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+        XMLEventFactory eventFactory = XMLEventFactory.newInstance();
+
+        File tempFile = File.createTempFile("creaper-", ".xml", configurationFile.getAbsoluteFile().getParentFile());
+        boolean found = false;
+        try {
+            InputStream input = new BufferedInputStream(new FileInputStream(configurationFile));
+            OutputStream output = new BufferedOutputStream(new FileOutputStream(tempFile));
+            try {
+                XMLEventReader reader = inputFactory.createXMLEventReader(input);
+                XMLEventWriter writer = outputFactory.createXMLEventWriter(output, ENCODING);
+
+                List<StartElement> path = new ArrayList<StartElement>();
+                StringBuilder precedingText = new StringBuilder(); // text can be split into many events
+                while (reader.hasNext()) {
+                    XMLEvent event = reader.nextEvent();
+                    if (event.isStartDocument()) {
+                        // the output is always written in UTF-8
+                        StartDocument startDocument = (StartDocument) event;
+                        event = eventFactory.createStartDocument(ENCODING, startDocument.getVersion());
+                    } else if (event.isStartElement()) {
+                        path.add(event.asStartElement());
+                        if (!found && matcher.matches(path, options)) {
+                            found = true;
+                            path.remove(path.size() - 1);
+
+                            String subtree = capture(event.asStartElement(), reader, outputFactory);
+                            String transformed = transform(subtree, script, subtreeName);
+                            splice(transformed, indentationOf(precedingText), writer, inputFactory, eventFactory);
+                            precedingText.setLength(0);
+                            continue;
+                        }
+                    } else if (event.isEndElement()) {
+                        path.remove(path.size() - 1);
+                    }
+
+                    if (event.isCharacters()) {
+                        precedingText.append(event.asCharacters().getData());
+                    } else {
+                        precedingText.setLength(0);
+                    }
+                    writer.add(event);
+                }
+
+                writer.flush();
+                writer.close();
+                reader.close();
+            } finally {
+                output.close();
+                input.close();
+            }
+
+            if (found) {
+                Files.move(tempFile, configurationFile);
+            } else {
+                log.debugf("Subtree '%s' not found in %s", subtreeName, configurationFile);
+            }
+            return found;
+        } finally {
+            if (tempFile.exists() && !tempFile.delete()) {
+                log.debugf("Couldn't delete temporary file %s", tempFile);
+            }
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return inputFactory;
+    }
+
+    /** Copies the subtree starting with {@code start} from the {@code reader} to a string. */
+    private static String capture(StartElement start, XMLEventReader reader, XMLOutputFactory outputFactory)
+            throws XMLStreamException {
+        StringWriter result = new StringWriter();
+        XMLEventWriter writer = outputFactory.createXMLEventWriter(result);
+        writer.add(start);
+        int depth = 1;
+        while (depth > 0) {
+            XMLEvent event = reader.nextEvent();
+            if (event.isStartElement()) {
+                depth++;
+            } else if (event.isEndElement()) {
+                depth--;
+            }
+            writer.add(event);
+        }
+        writer.close();
+        return result.toString();
+    }
+
+    private static String transform(String subtree, Script script, String subtreeName) throws Exception {
+        GPathResult root = new XmlSlurper(false, false).parseText(subtree);
+        script.setProperty(subtreeName, root);
+        script.run();
+        return XmlUtil.serialize(root);
+    }
+
+    /** The whitespace after the last line break of the {@code text}, or an empty string if there's none. */
+    private static String indentationOf(CharSequence text) {
+        String string = text.toString();
+        int lastLineBreak = string.lastIndexOf('\n');
+        if (lastLineBreak < 0) {
+            return "";
+        }
+        String lastLine = string.substring(lastLineBreak + 1);
+        return lastLine.trim().isEmpty() ? lastLine : "";
+    }
+
+    /**
+     * Copies the elements of the {@code xml} document (but not the document itself) to the {@code writer}.
+     * The document is serialized at column 0, so each of its lines is indented by {@code indentation}.
+     */
+    private static void splice(String xml, String indentation, XMLEventWriter writer, XMLInputFactory inputFactory,
+                               XMLEventFactory eventFactory) throws XMLStreamException {
+        if (xml.trim().isEmpty()) {
+            return;
+        }
+
+        XMLEventReader reader = inputFactory.createXMLEventReader(new StringReader(xml));
+        int depth = 0;
+        while (reader.hasNext()) {
+            XMLEvent event = reader.nextEvent();
+            if (event.isStartElement()) {
+                depth++;
+            } else if (event.isEndElement()) {
+                depth--;
+            } else if (depth == 0) {
+                // document start and end, whitespace and comments outside of the root element
+                continue;
+            } else if (event.isCharacters() && !indentation.isEmpty()) {
+                String text = event.asCharacters().getData();
+                if (text.trim().isEmpty()) {
+                    event = eventFactory.createCharacters(text.replace("\n", "\n" + indentation));
+                }
+            }
+            writer.add(event);
+        }
+        reader.close();
+    }
+}
@@ -2,8 +2,13 @@ package org.wildfly.extras.creaper.commands.foundation.offline.xml;
 
 import groovy.lang.Script;
 import groovy.util.slurpersupport.GPathResult;
+import groovy.util.slurpersupport.Node;
+import org.wildfly.extras.creaper.commands.foundation.offline.xml.StreamingSubtreeMatcher.Elements;
 import org.wildfly.extras.creaper.core.offline.OfflineOptions;
 
+import javax.xml.stream.events.StartElement;
+import java.util.List;
+
 /**
  * <p>This is the primary mechanism used for unifying access to standalone and domain configuration files. The trick is
  * that the transformation script doesn't work on the file, it doesn't even work on the entire XML document (unless
@@ -36,6 +41,11 @@ public final class Subtree {
         return locator.locate(root, options);
     }
 
+    /** {@code null} if this subtree can't be located in a stream of StAX events */
+    StreamingSubtreeMatcher streamingMatcher() {
+        return locator instanceof StreamingSubtreeMatcher ? (StreamingSubtreeMatcher) locator : null;
+    }
+
     // ---
 
     public static Subtree root() {
@@ -212,7 +222,7 @@ public final class Subtree {
         }
     }
 
-    private static final class SubsystemSubtreeLocator implements SubtreeLocator {
+    private static final class SubsystemSubtreeLocator implements SubtreeLocator, StreamingSubtreeMatcher {
         private static final Class STANDALONE_OR_HOST_SCRIPT_CLASS = GroovyHolder.GROOVY.parseClass("root.profile.subsystem.find { it.@xmlns.toString()"
                 + ".startsWith(\"urn:jboss:domain:${subsystemName}:\") || it.@xmlns.toString().startsWith(\"urn:wildfly:${subsystemName}:\")} ");
         private static final Class DOMAIN_SCRIPT_CLASS = GroovyHolder.GROOVY.parseClass("root.profiles.profile.find { it.@name == defaultProfile }.subsystem"
@@ -238,6 +248,23 @@ public final class Subtree {
             }
             return (GPathResult) script.run();
         }
+
+        @Override
+        public boolean matches(List<StartElement> path, OfflineOptions options) {
+            if (path.size() == 3 && !Elements.hasName(path.get(0), "domain")) {
+                // standalone.xml or host.xml: /profile/subsystem
+                return Elements.hasName(path.get(1), "profile")
+                        && Elements.isSubsystem(path.get(2), subsystemName, true);
+            } else if (path.size() == 4 && Elements.hasName(path.get(0), "domain")) {
+                // domain.xml: /profiles/profile[@name=defaultProfile]/subsystem
+                return options.defaultProfile != null
+                        && Elements.hasName(path.get(1), "profiles")
+                        && Elements.hasName(path.get(2), "profile")
+                        && Elements.hasAttribute(path.get(2), "name", options.defaultProfile)
+                        && Elements.isSubsystem(path.get(3), subsystemName, true);
+            }
+            return false;
+        }
     }
 
     private static final class SocketBindingGroupSubtreeLocator implements SubtreeLocator {
@@ -265,7 +292,7 @@ public final class Subtree {
         }
     }
 
-    private static final class SubsystemInProfileSubtreeLocator implements SubtreeLocator {
+    private static final class SubsystemInProfileSubtreeLocator implements SubtreeLocator, StreamingSubtreeMatcher {
         private static final Class SCRIPT_CLASS = GroovyHolder.GROOVY.parseClass("root.profiles.profile.find { it.@name == profileName }.subsystem.find { it.@xmlns.toString().startsWith(\"urn:jboss:domain:${subsystemName}:\") }");
 
         private final String profileName;
@@ -289,11 +316,20 @@ public final class Subtree {
             script.setProperty("subsystemName", subsystemName);
             return (GPathResult) script.run();
         }
+
+        @Override
+        public boolean matches(List<StartElement> path, OfflineOptions options) {
+            // domain.xml: /profiles/profile[@name=profileName]/subsystem
+            return options.isDomain
+                    && path.size() == 4
+                    && Elements.hasName(path.get(1), "profiles")
+                    && Elements.hasName(path.get(2), "profile")
+                    && Elements.hasAttribute(path.get(2), "name", profileName)
+                    && Elements.isSubsystem(path.get(3), subsystemName, false);
+        }
     }
 
-    // appends a new subtree to the end of the document, which is wrong (but simple)
-    //
-    // the location will be fixed later (which is easier and more efficient than doing it here),
+    // inserts a new empty first-level element directly into the slurper's tree at the correct position,
     // see FirstLevelXmlElementOrder
     private static final class SubtreeCreator {
         static final SubtreeCreator EXTENSIONS = new SubtreeCreator("extensions");
@@ -311,7 +347,7 @@ public final class Subtree {
         static final SubtreeCreator JVMS = new SubtreeCreator("jvms");
         static final SubtreeCreator SERVERS = new SubtreeCreator("servers");
 
-        private final Class scriptClass;
+        private final String tagName;
         private final boolean skipInDomain;
 
         private SubtreeCreator(String tagName) {
@@ -319,8 +355,7 @@ public final class Subtree {
         }
 
         private SubtreeCreator(String tagName, boolean skipInDomain) {
-            String script = "if (root.\"" + tagName + "\".isEmpty()) root << { \"" + tagName + "\"() }";
-            this.scriptClass = GroovyHolder.GROOVY.parseClass(script);
+            this.tagName = tagName;
             this.skipInDomain = skipInDomain;
         }
 
@@ -331,13 +366,13 @@ public final class Subtree {
                 return;
             }
 
-            try {
-                Script script = (Script) scriptClass.newInstance();
-                script.setProperty("root", root);
-                script.run();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+            Node rootNode = (Node) root.getAt(0);
+            for (Object child : rootNode.children()) {
+                if (child instanceof Node && tagName.equals(((Node) child).name())) {
+                    return;
+                }
             }
+            FirstLevelXmlElementOrder.insert(rootNode, tagName);
         }
     }
 }
@@ -12,6 +12,28 @@ final class TransformationScript {
         this.path = path;
     }
 
+    ClassLoader classLoader() {
+        return resourceLoader.getClassLoader();
+    }
+
+    /** Name of the resource as resolved by {@link Class#getResource(String)}, without loading the resource. */
+    String resourceName() {
+        if (path.startsWith("/")) {
+            return path.substring(1);
+        }
+
+        Class clazz = resourceLoader;
+        while (clazz.isArray()) {
+            clazz = clazz.getComponentType();
+        }
+        String className = clazz.getName();
+        int lastDot = className.lastIndexOf('.');
+        if (lastDot == -1) {
+            return path;
+        }
+        return className.substring(0, lastDot).replace('.', '/') + "/" + path;
+    }
+
     URL url() {
         return resourceLoader.getResource(path);
     }
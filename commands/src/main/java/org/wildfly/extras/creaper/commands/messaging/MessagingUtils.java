@@ -25,15 +25,11 @@ final class MessagingUtils {
         Address selectedAddress = null;
 
         try {
-            if (ops.exists(artemisAddress)) {
-                selectedAddress = artemisAddress;
-            }
-        } catch (Exception ignored) {
-            // no resource definition found
-        }
-        try {
-            if (ops.exists(hornetqAddress)) {
+            List<Boolean> exist = ops.existsAll(artemisAddress, hornetqAddress);
+            if (exist.get(1)) {
                 selectedAddress = hornetqAddress;
+            } else if (exist.get(0)) {
+                selectedAddress = artemisAddress;
             }
         } catch (Exception ignored) {
             // no resource definition found
@@ -2,10 +2,13 @@ package org.wildfly.extras.creaper.core;
 
 import org.wildfly.extras.creaper.core.offline.OfflineManagementClient;
 import org.wildfly.extras.creaper.core.offline.OfflineOptions;
+import org.wildfly.extras.creaper.core.online.OnlineClientPool;
+import org.wildfly.extras.creaper.core.online.OnlineFleet;
 import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
 import org.wildfly.extras.creaper.core.online.OnlineOptions;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Entrypoint of the entire Creaper library. Serves as a factory of both
@@ -13,9 +16,17 @@ import java.io.IOException;
  * {@link org.wildfly.extras.creaper.core.offline.OfflineManagementClient offline} management clients.
  * Note that creating a management client is generally fairly heavy-weight, so reusing a client is a good idea.
  * Also note that the <b>entire</b> Creaper library is meant for <b>single-threaded</b> use and <b>no</b> thread-safety
- * guarantees are made!
+ * guarantees are made! The only exceptions are {@link OnlineFleet}, which internally works with multiple servers
+ * concurrently, but is itself meant to be used from a single thread, and {@link OnlineClientPool}, which can be
+ * shared by multiple threads.
  */
 public final class ManagementClient {
+    /** Default maximum number of servers of a {@link OnlineFleet fleet} that are worked with concurrently. */
+    public static final int DEFAULT_FLEET_PARALLELISM = 16;
+
+    /** Default maximum number of idle clients per server kept in an {@link OnlineClientPool}. */
+    public static final int DEFAULT_POOL_MAX_IDLE_CLIENTS = 4;
+
     private ManagementClient() {} // avoid instantiation
 
     /**
@@ -45,6 +56,49 @@ public final class ManagementClient {
         return OnlineClientFactory.instance.createLazy(options);
     }
 
+    /**
+     * Creates an {@link OnlineFleet} of eagerly-initialized {@code OnlineManagementClient}s, one for each of
+     * the {@code options}, with at most {@link #DEFAULT_FLEET_PARALLELISM} servers processed concurrently.
+     * @see #fleet(List, int)
+     */
+    public static OnlineFleet fleet(List<OnlineOptions> options) {
+        return fleet(options, DEFAULT_FLEET_PARALLELISM);
+    }
+
+    /**
+     * Creates an {@link OnlineFleet} of eagerly-initialized {@code OnlineManagementClient}s, one for each of
+     * the {@code options}. The clients are created in parallel; this method never fails because some server is
+     * unavailable, instead such server is reported as failed by each {@link OnlineFleet#apply(Iterable) apply}.
+     * The fleet must be {@code close}d.
+     * @param options connection options of all the servers
+     * @param maxParallelism maximum number of servers that are worked with concurrently
+     */
+    public static OnlineFleet fleet(List<OnlineOptions> options, int maxParallelism) {
+        return OnlineClientFactory.instance.createFleet(options, maxParallelism);
+    }
+
+    /**
+     * Creates an {@link OnlineClientPool} that keeps at most {@link #DEFAULT_POOL_MAX_IDLE_CLIENTS} idle clients
+     * per server.
+     * @see #onlinePool(int)
+     */
+    public static OnlineClientPool onlinePool() {
+        return onlinePool(DEFAULT_POOL_MAX_IDLE_CLIENTS);
+    }
+
+    /**
+     * Creates an {@link OnlineClientPool} of eagerly-initialized {@code OnlineManagementClient}s. This is useful
+     * when many short-lived clients are created for the same servers. The pool must be {@code close}d.
+     * @param maxIdleClientsPerServer maximum number of idle clients kept in the pool for each server; clients
+     * returned to the pool when there's already this many idle clients are closed
+     */
+    public static OnlineClientPool onlinePool(int maxIdleClientsPerServer) {
+        // unlike the other factory methods, there's no OnlineOptions instance at hand, so the factory might not be
+        // registered yet
+        initialize(OnlineOptions.class);
+        return OnlineClientFactory.instance.createPool(maxIdleClientsPerServer);
+    }
+
     /**
      * Creates a {@link org.wildfly.extras.creaper.core.offline.OfflineManagementClient}.
      * @param options connection options (root directory of the application server etc.)
@@ -58,6 +112,14 @@ public final class ManagementClient {
     // ---
     // http://wiki.apidesign.org/wiki/APIDesignPatterns:FriendPackages
 
+    private static void initialize(Class<?> clazz) {
+        try {
+            Class.forName(clazz.getName(), true, clazz.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new AssertionError(e);
+        }
+    }
+
     /** Ignore, this is not a part of public API. */
     public abstract static class OnlineClientFactory {
         private static OnlineClientFactory instance;
@@ -69,6 +131,10 @@ public final class ManagementClient {
         protected abstract OnlineManagementClient create(OnlineOptions options) throws IOException;
 
         protected abstract OnlineManagementClient createLazy(OnlineOptions options);
+
+        protected abstract OnlineFleet createFleet(List<OnlineOptions> options, int maxParallelism);
+
+        protected abstract OnlineClientPool createPool(int maxIdleClientsPerServer);
     }
 
     /** Ignore, this is not a part of public API. */
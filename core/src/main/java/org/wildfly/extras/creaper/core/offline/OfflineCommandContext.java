@@ -10,10 +10,25 @@ public final class OfflineCommandContext {
     public final ServerVersion version;
     public final File configurationFile; // same as client.options().configurationFile
 
+    private final OfflineSession session;
+
     OfflineCommandContext(OfflineManagementClient client, ServerVersion version) {
+        this(client, version, null);
+    }
+
+    OfflineCommandContext(OfflineManagementClient client, ServerVersion version, OfflineSession session) {
         this.client = client;
         this.options = client.options();
         this.version = version;
         this.configurationFile = client.options().configurationFile;
+        this.session = session;
+    }
+
+    /**
+     * The session in which the command is applied, or {@code null} if it isn't applied in a session.
+     * See {@link OfflineSession} for what commands that access the configuration file directly must do.
+     */
+    public OfflineSession session() {
+        return session;
     }
 }
@@ -29,4 +29,11 @@ public interface OfflineManagementClient {
      * details about error handling
      */
     void apply(Iterable<OfflineCommand> commands) throws CommandFailedException;
+
+    /**
+     * Starts an {@link OfflineSession} in which the configuration file is only read once and written once
+     * (when the session is {@code close}d), no matter how many commands are applied. This is much faster when
+     * applying a lot of commands. The session <b>must</b> be closed.
+     */
+    OfflineSession session();
 }
@@ -41,8 +41,12 @@ final class OfflineManagementClientImpl implements OfflineManagementClient {
 
     @Override
     public void apply(Iterable<OfflineCommand> commands) throws CommandFailedException {
+        applyCommands(new OfflineCommandContext(this, version), commands);
+    }
+
+    static void applyCommands(OfflineCommandContext ctx, Iterable<OfflineCommand> commands)
+            throws CommandFailedException {
         try {
-            OfflineCommandContext ctx = new OfflineCommandContext(this, version);
             for (OfflineCommand command : commands) {
                 log.infof("Applying command %s", command);
                 command.apply(ctx);
@@ -54,4 +58,9 @@ final class OfflineManagementClientImpl implements OfflineManagementClient {
             throw new CommandFailedException(e);
         }
     }
+
+    @Override
+    public OfflineSession session() {
+        return new OfflineSession(this);
+    }
 }
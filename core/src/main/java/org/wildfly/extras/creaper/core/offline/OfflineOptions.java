@@ -20,6 +20,9 @@ public final class OfflineOptions {
     private final File configurationDirectory; // can be null if configurationFile is specified directly
     public final File configurationFile;
 
+    /** See {@link OptionalOfflineOptions#streaming()} */
+    public final boolean streaming;
+
     private OfflineOptions(Data data) {
         this.isStandalone = data.isStandalone;
 
@@ -28,6 +31,8 @@ public final class OfflineOptions {
 
         this.configurationDirectory = data.configurationDirectory;
         this.configurationFile = data.configurationFile;
+
+        this.streaming = data.streaming;
     }
 
     /**
@@ -56,6 +61,8 @@ public final class OfflineOptions {
 
         private File configurationDirectory;
         private File configurationFile;
+
+        private boolean streaming;
     }
 
     /** Connect to a standalone server. */
@@ -188,6 +195,21 @@ public final class OfflineOptions {
             this.data = data;
         }
 
+        /**
+         * <p>Use a streaming engine for XML transformations when possible. Optional. This is useful for very large
+         * configuration files. By default, the entire configuration file is loaded into memory.</p>
+         *
+         * <p>When enabled, transformations that only work with a single subsystem (e.g.
+         * {@code Subtree.subsystem} or {@code Subtree.subsystemInProfile}) process the configuration file as
+         * a stream of XML events and only load the subsystem into memory. The rest of the file is copied through
+         * untouched, including formatting and comments. Other transformations, and transformations applied
+         * in an {@link OfflineSession}, use the regular engine.</p>
+         */
+        public OptionalOfflineOptions streaming() {
+            data.streaming = true;
+            return this;
+        }
+
         /** Build the final {@code OfflineOptions}. */
         public OfflineOptions build() {
             return new OfflineOptions(data);
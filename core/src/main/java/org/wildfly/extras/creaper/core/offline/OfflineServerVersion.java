@@ -1,29 +1,69 @@
 package org.wildfly.extras.creaper.core.offline;
 
-import com.google.common.base.Charsets;
-import com.google.common.io.Files;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.wildfly.extras.creaper.core.ServerVersion;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 final class OfflineServerVersion {
-    private static final Pattern ROOT_XMLNS = Pattern.compile("[\"']urn:jboss:domain:(\\d+)\\.(\\d+)[\"']");
+    private static final Pattern ROOT_XMLNS = Pattern.compile("urn:jboss:domain:(\\d+)\\.(\\d+)");
+
+    /**
+     * Discovered versions, keyed by canonical path of the configuration file. An entry is only valid if the file
+     * still has the same size and last modification time as when the version was discovered.
+     */
+    private static final Cache<String, CachedVersion> CACHE = CacheBuilder.newBuilder()
+            .maximumSize(256)
+            .build();
 
     private OfflineServerVersion() {} // avoid instantiation
 
     /**
-     * Returns the management version of the server with given {@code configurationFile}.
+     * Returns the management version of the server with given {@code configurationFile}. Only the root element
+     * start tag is read; the result is cached for as long as the file isn't modified.
      *
      * @throws IOException if an I/O error occurs during file operations
      */
     static ServerVersion discover(File configurationFile) throws IOException {
-        // this is not entirely cheap, but it only occurs once, during an operation that is supposed to be costly anyway
-        String content = Files.toString(configurationFile, Charsets.UTF_8);
-        Matcher matcher = ROOT_XMLNS.matcher(content);
-        if (matcher.find()) {
+        String path = configurationFile.getCanonicalPath();
+        long lastModified = configurationFile.lastModified();
+        long length = configurationFile.length();
+
+        CachedVersion cached = CACHE.getIfPresent(path);
+        if (cached != null && cached.lastModified == lastModified && cached.length == length) {
+            return cached.version;
+        }
+
+        ServerVersion version = sniff(configurationFile);
+        CACHE.put(path, new CachedVersion(lastModified, length, version));
+        return version;
+    }
+
+    private static ServerVersion sniff(File configurationFile) throws IOException {
+        String rootNamespace;
+        InputStream input = new BufferedInputStream(new FileInputStream(configurationFile));
+        try {
+            rootNamespace = readRootNamespace(input);
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Missing or bad schema version in configuration file "
+                    + configurationFile, e);
+        } finally {
+            input.close();
+        }
+
+        Matcher matcher = rootNamespace != null ? ROOT_XMLNS.matcher(rootNamespace) : null;
+        if (matcher != null && matcher.matches()) {
             String majorStr = matcher.group(1);
             String minorStr = matcher.group(2);
 
@@ -58,4 +98,50 @@ final class OfflineServerVersion {
 
         throw new IllegalArgumentException("Missing or bad schema version in configuration file " + configurationFile);
     }
+
+    /**
+     * Returns the {@code urn:jboss:domain:*} namespace declared on the root element, or {@code null} if there's
+     * no such namespace. The rest of the document after the root element start tag is never read.
+     */
+    private static String readRootNamespace(InputStream input) throws XMLStreamException {
+        XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(input);
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    if (isRootNamespace(reader.getNamespaceURI())) {
+                        return reader.getNamespaceURI();
+                    }
+                    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                        if (isRootNamespace(reader.getNamespaceURI(i))) {
+                            return reader.getNamespaceURI(i);
+                        }
+                    }
+                    return null;
+                }
+            }
+            return null;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static boolean isRootNamespace(String namespace) {
+        return namespace != null && ROOT_XMLNS.matcher(namespace).matches();
+    }
+
+    private static final class CachedVersion {
+        final long lastModified;
+        final long length;
+        final ServerVersion version;
+
+        CachedVersion(long lastModified, long length, ServerVersion version) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.version = version;
+        }
+    }
 }
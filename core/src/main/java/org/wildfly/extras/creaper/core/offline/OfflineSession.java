@@ -0,0 +1,183 @@
+package org.wildfly.extras.creaper.core.offline;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.jboss.logging.Logger;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.ServerVersion;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * <p>An {@link OfflineManagementClient} that keeps the configuration file in memory, so that many commands can be
+ * applied without reading and writing the file over and over again. The file is read when some command first
+ * needs it and is only written on {@link #flush()} or {@link #close()}. Created by
+ * {@link OfflineManagementClient#session()}; <b>must</b> be {@code close}d, otherwise the changes are lost.</p>
+ *
+ * <p>Commands that transform the configuration file (such as those based on {@code GroovyXmlTransform}) work with
+ * the in-memory configuration. It is kept either as a {@link #configuration() string} or in a
+ * {@link ParsedConfiguration parsed form}, so that commands that understand the parsed form don't have to parse
+ * and serialize the configuration each time; it's only serialized when it's written to the file or when some
+ * command asks for the string. Commands that access {@link OfflineCommandContext#configurationFile the configuration
+ * file} directly must {@link #flush()} the session before reading the file and {@link #refresh()} it after changing
+ * the file; the session is available as {@link OfflineCommandContext#session()}.</p>
+ *
+ * <p>If a command fails, the changes done by previously applied commands are kept in memory and will be written
+ * when the session is flushed or closed, just like they would already be written to the file if no session was
+ * used.</p>
+ */
+public final class OfflineSession implements OfflineManagementClient, Closeable {
+    private static final Logger log = Logger.getLogger(OfflineManagementClient.class);
+
+    private final OfflineManagementClient client;
+
+    // at most one of these is set; both are null <=> not read yet
+    private String configuration;
+    private ParsedConfiguration parsedConfiguration;
+    private boolean dirty;
+    private boolean closed;
+
+    OfflineSession(OfflineManagementClient client) {
+        this.client = client;
+    }
+
+    private void checkClosed() {
+        if (closed) {
+            throw new IllegalStateException("The session is already closed");
+        }
+    }
+
+    @Override
+    public OfflineOptions options() {
+        return client.options();
+    }
+
+    @Override
+    public ServerVersion version() {
+        return client.version();
+    }
+
+    @Override
+    public void apply(OfflineCommand... commands) throws CommandFailedException {
+        apply(Arrays.asList(commands));
+    }
+
+    @Override
+    public void apply(Iterable<OfflineCommand> commands) throws CommandFailedException {
+        checkClosed();
+        OfflineManagementClientImpl.applyCommands(new OfflineCommandContext(this, version(), this), commands);
+    }
+
+    /** Returns this session; nested sessions aren't supported. */
+    @Override
+    public OfflineSession session() {
+        checkClosed();
+        return this;
+    }
+
+    /** The current content of the configuration file, including all changes that weren't flushed yet. */
+    public String configuration() throws IOException {
+        checkClosed();
+        if (parsedConfiguration != null) {
+            StringWriter writer = new StringWriter();
+            parsedConfiguration.writeTo(writer);
+            configuration = writer.toString();
+            parsedConfiguration = null;
+        } else if (configuration == null) {
+            configuration = Files.toString(options().configurationFile, Charsets.UTF_8);
+        }
+        return configuration;
+    }
+
+    /**
+     * The current configuration in the parsed form, if it's of given {@code type}; otherwise {@code null} and
+     * the caller is expected to parse the {@link #configuration() string} itself.
+     */
+    public <T extends ParsedConfiguration> T parsedConfiguration(Class<T> type) {
+        checkClosed();
+        return type.isInstance(parsedConfiguration) ? type.cast(parsedConfiguration) : null;
+    }
+
+    /** Replaces the content of the configuration file in memory. The file itself is only written on flush. */
+    public void updateConfiguration(String configuration) {
+        checkClosed();
+        if (configuration == null) {
+            throw new IllegalArgumentException("Configuration must be set");
+        }
+        this.configuration = configuration;
+        this.parsedConfiguration = null;
+        this.dirty = true;
+    }
+
+    /**
+     * Replaces the content of the configuration file in memory with a parsed form. It is only serialized when
+     * the session is flushed or when some command asks for the {@link #configuration() string}.
+     */
+    public void updateConfiguration(ParsedConfiguration configuration) {
+        checkClosed();
+        if (configuration == null) {
+            throw new IllegalArgumentException("Configuration must be set");
+        }
+        this.configuration = null;
+        this.parsedConfiguration = configuration;
+        this.dirty = true;
+    }
+
+    /** Writes the in-memory configuration to the configuration file, if there are any unwritten changes. */
+    public void flush() throws IOException {
+        checkClosed();
+        if (!dirty) {
+            return;
+        }
+
+        log.debugf("Writing configuration file %s", options().configurationFile);
+        if (parsedConfiguration != null) {
+            Writer writer = Files.newWriter(options().configurationFile, Charsets.UTF_8);
+            try {
+                parsedConfiguration.writeTo(writer);
+            } finally {
+                writer.close();
+            }
+        } else {
+            Files.write(configuration, options().configurationFile, Charsets.UTF_8);
+        }
+        dirty = false;
+    }
+
+    /**
+     * Forgets the in-memory configuration, so that it's read from the configuration file again when needed.
+     * Changes that weren't flushed are lost. This must be called after the configuration file is changed directly.
+     */
+    public void refresh() {
+        checkClosed();
+        configuration = null;
+        parsedConfiguration = null;
+        dirty = false;
+    }
+
+    /** Flushes the session and ends it. Closing an already closed session has no effect. */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        configuration = null;
+        parsedConfiguration = null;
+    }
+
+    /**
+     * The configuration parsed to a form that commands work with directly. Commands must treat an instance
+     * that was passed to {@link #updateConfiguration(ParsedConfiguration)} as immutable, because it can be written
+     * at any time later; a command that changes the configuration works with a copy.
+     */
+    public interface ParsedConfiguration {
+        /** Serializes the configuration. Doesn't close the {@code writer}. */
+        void writeTo(Writer writer) throws IOException;
+    }
+}
@@ -0,0 +1,196 @@
+package org.wildfly.extras.creaper.core.online;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.jboss.as.controller.client.Operation;
+import org.jboss.dmr.ModelNode;
+import org.jboss.logging.Logger;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.ServerVersion;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>Wraps the client passed to commands when {@link OnlineOptions.OptionalOnlineOptions#autoBatch() auto-batching}
+ * is enabled. Simple write operations ({@code add}, {@code remove}, {@code write-attribute}
+ * and {@code undefine-attribute} with no operation headers) are not executed immediately; they are buffered
+ * and a successful result is returned right away. Buffered operations are executed as a single {@code composite}
+ * operation when any other operation is about to be executed (so that reads always see previous writes), when
+ * a {@link #allowFailures() failures-allowed block} starts and after each command.</p>
+ *
+ * <p>The delegate is expected to be {@link AutomaticErrorHandlingForCommands}, so a failure of the composite
+ * operation fails the command. Operations executed while failures are allowed are never buffered, because their
+ * result is presumably inspected.</p>
+ */
+final class AutoBatchingClient implements OnlineManagementClient {
+    private static final Logger log = Logger.getLogger(OnlineManagementClient.class);
+
+    private static final Set<String> BUFFERED_OPERATIONS = ImmutableSet.of(
+            Constants.ADD,
+            Constants.REMOVE_OPERATION,
+            Constants.WRITE_ATTRIBUTE_OPERATION,
+            Constants.UNDEFINE_ATTRIBUTE_OPERATION
+    );
+
+    private final OnlineManagementClient delegate;
+    private final List<ModelNode> buffer = new ArrayList<ModelNode>();
+    private int failuresAllowedDepth = 0;
+
+    AutoBatchingClient(OnlineManagementClient delegate) {
+        this.delegate = delegate;
+    }
+
+    private boolean isBufferable(ModelNode operation) {
+        return failuresAllowedDepth == 0
+                && operation.hasDefined(Constants.OP)
+                && BUFFERED_OPERATIONS.contains(operation.get(Constants.OP).asString())
+                && !operation.hasDefined(Constants.OPERATION_HEADERS);
+    }
+
+    /** Executes all buffered operations. Called at command boundaries and before any non-bufferable operation. */
+    void flush() throws IOException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+
+        List<ModelNode> operations = new ArrayList<ModelNode>(buffer);
+        buffer.clear();
+
+        if (operations.size() == 1) {
+            delegate.execute(operations.get(0));
+            return;
+        }
+
+        log.debugf("Flushing %d buffered operations as a single composite operation", operations.size());
+        ModelNode composite = new ModelNode();
+        composite.get(Constants.OP).set(Constants.COMPOSITE);
+        composite.get(Constants.OP_ADDR).setEmptyList();
+        ModelNode steps = composite.get(Constants.STEPS);
+        steps.setEmptyList();
+        for (ModelNode operation : operations) {
+            steps.add(operation);
+        }
+        delegate.execute(composite);
+    }
+
+    @Override
+    public OnlineOptions options() {
+        return delegate.options();
+    }
+
+    @Override
+    public ServerVersion version() throws IOException {
+        return delegate.version();
+    }
+
+    @Override
+    public void apply(OnlineCommand... commands) throws CommandFailedException {
+        flushBeforeApply();
+        delegate.apply(commands);
+    }
+
+    @Override
+    public void apply(Iterable<OnlineCommand> commands) throws CommandFailedException {
+        flushBeforeApply();
+        delegate.apply(commands);
+    }
+
+    private void flushBeforeApply() throws CommandFailedException {
+        try {
+            flush();
+        } catch (RuntimeCommandFailedException e) {
+            throw e.original;
+        } catch (IOException e) {
+            throw new CommandFailedException(e);
+        }
+    }
+
+    @Override
+    public ModelNodeResult execute(ModelNode operation) throws IOException {
+        if (isBufferable(operation)) {
+            if (log.isDebugEnabled()) {
+                log.debugf("Buffering operation %s", ModelNodeOperationToCliString.convert(operation));
+            }
+            buffer.add(operation.clone());
+
+            ModelNode result = new ModelNode();
+            result.get(Constants.OUTCOME).set(Constants.SUCCESS);
+            return new ModelNodeResult(result);
+        }
+
+        flush();
+        return delegate.execute(operation);
+    }
+
+    @Override
+    public ModelNodeResult execute(Operation operation) throws IOException {
+        flush();
+        return delegate.execute(operation);
+    }
+
+    @Override
+    public ModelNodeResult execute(String operation) throws CliException, IOException {
+        flush();
+        return delegate.execute(operation);
+    }
+
+    @Override
+    public ListenableFuture<ModelNodeResult> executeAsync(ModelNode operation) throws IOException {
+        flush();
+        return delegate.executeAsync(operation);
+    }
+
+    @Override
+    public ListenableFuture<ModelNodeResult> executeAsync(Operation operation) throws IOException {
+        flush();
+        return delegate.executeAsync(operation);
+    }
+
+    @Override
+    public ListenableFuture<ModelNodeResult> executeAsync(String operation) throws CliException, IOException {
+        flush();
+        return delegate.executeAsync(operation);
+    }
+
+    @Override
+    public void executeCli(String cliOperation) throws CliException, IOException {
+        flush();
+        delegate.executeCli(cliOperation);
+    }
+
+    @Override
+    public void reconnect(int timeoutInSeconds) throws TimeoutException, InterruptedException {
+        try {
+            flush();
+        } catch (IOException e) {
+            throw new RuntimeCommandFailedException(new CommandFailedException(e));
+        }
+        delegate.reconnect(timeoutInSeconds);
+    }
+
+    @Override
+    public FailuresAllowedBlock allowFailures() throws IOException {
+        flush();
+
+        final FailuresAllowedBlock delegateBlock = delegate.allowFailures();
+        failuresAllowedDepth++;
+
+        return new FailuresAllowedBlock() {
+            @Override
+            public void close() throws IOException {
+                AutoBatchingClient.this.failuresAllowedDepth--;
+                delegateBlock.close();
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        delegate.close();
+    }
+}
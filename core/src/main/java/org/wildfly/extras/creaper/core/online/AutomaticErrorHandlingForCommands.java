@@ -1,5 +1,9 @@
 package org.wildfly.extras.creaper.core.online;
 
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.jboss.as.controller.client.Operation;
 import org.jboss.dmr.ModelNode;
 import org.wildfly.extras.creaper.core.CommandFailedException;
@@ -101,6 +105,57 @@ final class AutomaticErrorHandlingForCommands implements OnlineManagementClient
         }
     }
 
+    @Override
+    public ListenableFuture<ModelNodeResult> executeAsync(ModelNode operation) {
+        try {
+            return failOnOperationFailure(delegate.executeAsync(operation), operation.asString());
+        } catch (Exception e) {
+            commandFailedWithCause(e);
+            return null; // dead code
+        }
+    }
+
+    @Override
+    public ListenableFuture<ModelNodeResult> executeAsync(Operation operation) {
+        try {
+            return failOnOperationFailure(delegate.executeAsync(operation), operation.getOperation().asString());
+        } catch (Exception e) {
+            commandFailedWithCause(e);
+            return null; // dead code
+        }
+    }
+
+    @Override
+    public ListenableFuture<ModelNodeResult> executeAsync(String operation) {
+        try {
+            return failOnOperationFailure(delegate.executeAsync(operation), operation);
+        } catch (Exception e) {
+            commandFailedWithCause(e);
+            return null; // dead code
+        }
+    }
+
+    /**
+     * The asynchronous counterpart of the checks in {@code execute}. The future can complete on another thread,
+     * so instead of throwing {@code RuntimeCommandFailedException}, the returned future fails
+     * with {@code CommandFailedException}. Whether failures are allowed is decided when the operation is submitted.
+     */
+    private ListenableFuture<ModelNodeResult> failOnOperationFailure(ListenableFuture<ModelNodeResult> future,
+                                                                     final String operation) {
+        final boolean throwExceptionsOnOperationFailures = this.throwExceptionsOnOperationFailures;
+
+        return Futures.transformAsync(future, new AsyncFunction<ModelNodeResult, ModelNodeResult>() {
+            @Override
+            public ListenableFuture<ModelNodeResult> apply(ModelNodeResult result) {
+                if (result.isFailed() && throwExceptionsOnOperationFailures) {
+                    return Futures.immediateFailedFuture(new CommandFailedException(
+                            "Operation " + operation + " failed: " + result.asString()));
+                }
+                return Futures.immediateFuture(result);
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
     @Override
     public void executeCli(String cliOperation) {
         try {
@@ -25,9 +25,11 @@ public final class Constants extends ClientConstants {
     public static final String HOST_STATE = "host-state";
     public static final String INCLUDE_DEFAULTS = "include-defaults";
     public static final String INTERFACE = "interface";
+    public static final String LOCAL_HOST_NAME = "local-host-name";
     public static final String PLATFORM_MBEAN = "platform-mbean";
     public static final String PROCESS_STATE = "process-state";
     public static final String PROFILE = "profile";
+    public static final String READ_CHILDREN_RESOURCES = "read-children-resources";
     public static final String READ_CHILDREN_TYPES = "read-children-types";
     public static final String RECURSIVE_DEPTH = "recursive-depth";
     public static final String RELOAD = "reload";
@@ -0,0 +1,35 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+
+/**
+ * <p>Notified about every management operation executed and every command applied by an
+ * {@link OnlineManagementClient}. Registered by {@link OnlineOptions.OptionalOnlineOptions#listener(ExecutionListener)
+ * OnlineOptions.listener}. See {@link ExecutionMetrics} for a built-in implementation.</p>
+ *
+ * <p>Listeners are called synchronously in the thread that executed the operation (or, for asynchronous execution,
+ * in the thread that completed it), so they must be fast and thread safe. An exception thrown from a listener
+ * is logged and otherwise ignored.</p>
+ */
+public interface ExecutionListener {
+    /**
+     * Called after a management operation was executed. Operations given as CLI strings are parsed first.
+     * Operations that are buffered by {@link OnlineOptions.OptionalOnlineOptions#autoBatch() auto-batching}
+     * are only reported as a part of the {@code composite} operation. Results returned from the
+     * {@link OnlineOptions.OptionalOnlineOptions#readCache(int, long, java.util.concurrent.TimeUnit) read cache}
+     * aren't reported, because no operation is executed.
+     *
+     * @param result the result of the operation or {@code null} if the execution failed with an exception
+     * (e.g. an {@code IOException}); a result with the {@code failed} outcome is not {@code null}
+     * @param durationInNanos how long the execution took
+     */
+    void operationExecuted(ModelNode operation, ModelNodeResult result, long durationInNanos);
+
+    /**
+     * Called after a command was applied, including commands that were applied from other commands.
+     *
+     * @param succeeded whether the command succeeded or failed with an exception
+     * @param durationInNanos how long applying the command took
+     */
+    void commandApplied(OnlineCommand command, boolean succeeded, long durationInNanos);
+}
@@ -0,0 +1,268 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.dmr.Property;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>An {@link ExecutionListener} that records the number of executions, the number of failures and a latency
+ * histogram for each kind of management operation and for each command class. Register it using
+ * {@link OnlineOptions.OptionalOnlineOptions#listener(ExecutionListener) OnlineOptions.listener} and read
+ * the recorded values using {@link #snapshot()}. The same instance can be shared by many clients.</p>
+ *
+ * <p>Operations are grouped by the operation name and an address pattern, in which all values except of subsystem
+ * names are replaced by {@code *}; for example {@code /subsystem=datasources/data-source=*:add}. An operation
+ * is considered failed when it failed with an exception or when its outcome is {@code failed}.</p>
+ *
+ * <p>Latencies are recorded in a histogram with 4 buckets per power of two, so percentiles are approximate:
+ * the reported value is the upper bound of the bucket, which is at most 25 % higher than the actual value.</p>
+ */
+public final class ExecutionMetrics implements ExecutionListener {
+    private final ConcurrentMap<String, Recorder> operations = new ConcurrentHashMap<String, Recorder>();
+    private final ConcurrentMap<String, Recorder> commands = new ConcurrentHashMap<String, Recorder>();
+
+    @Override
+    public void operationExecuted(ModelNode operation, ModelNodeResult result, long durationInNanos) {
+        recorder(operations, operationKey(operation)).record(durationInNanos, result == null || result.isFailed());
+    }
+
+    @Override
+    public void commandApplied(OnlineCommand command, boolean succeeded, long durationInNanos) {
+        recorder(commands, command.getClass().getName()).record(durationInNanos, !succeeded);
+    }
+
+    /** Returns the values recorded so far. Recording continues. */
+    public Snapshot snapshot() {
+        return new Snapshot(snapshot(operations), snapshot(commands));
+    }
+
+    /** Forgets all the values recorded so far. */
+    public void reset() {
+        operations.clear();
+        commands.clear();
+    }
+
+    private static Recorder recorder(ConcurrentMap<String, Recorder> recorders, String key) {
+        Recorder recorder = recorders.get(key);
+        if (recorder == null) {
+            Recorder newRecorder = new Recorder();
+            recorder = recorders.putIfAbsent(key, newRecorder);
+            if (recorder == null) {
+                recorder = newRecorder;
+            }
+        }
+        return recorder;
+    }
+
+    private static SortedMap<String, Stats> snapshot(ConcurrentMap<String, Recorder> recorders) {
+        SortedMap<String, Stats> result = new TreeMap<String, Stats>();
+        for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return Collections.unmodifiableSortedMap(result);
+    }
+
+    static String operationKey(ModelNode operation) {
+        try {
+            StringBuilder result = new StringBuilder();
+            ModelNode address = operation.require(Constants.OP_ADDR);
+            if (address.getType() == ModelType.OBJECT) {
+                for (String key : address.keys()) {
+                    appendAddressElement(result, key, address.require(key).asString());
+                }
+            } else {
+                for (int i = 0, size = address.asInt(); i < size; i++) { // "asInt" of a LIST is its size
+                    Property element = address.require(i).asProperty();
+                    appendAddressElement(result, element.getName(), element.getValue().asString());
+                }
+            }
+            if (result.length() == 0) {
+                result.append('/');
+            }
+            return result.append(':').append(operation.require(Constants.OP).asString()).toString();
+        } catch (RuntimeException e) {
+            return "<unknown>";
+        }
+    }
+
+    private static void appendAddressElement(StringBuilder result, String type, String value) {
+        result.append('/').append(type).append('=').append(Constants.SUBSYSTEM.equals(type) ? value : "*");
+    }
+
+    // ---
+
+    /** Point-in-time copy of all the recorded values. */
+    public static final class Snapshot {
+        private final SortedMap<String, Stats> operations;
+        private final SortedMap<String, Stats> commands;
+
+        private Snapshot(SortedMap<String, Stats> operations, SortedMap<String, Stats> commands) {
+            this.operations = operations;
+            this.commands = commands;
+        }
+
+        /** Keyed by the address pattern and operation name, e.g. {@code /subsystem=logging/logger=*:add}. */
+        public SortedMap<String, Stats> operations() {
+            return operations;
+        }
+
+        /** Keyed by the fully qualified class name of the command. */
+        public SortedMap<String, Stats> commands() {
+            return commands;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder result = new StringBuilder("Operations:\n");
+            for (Map.Entry<String, Stats> entry : operations.entrySet()) {
+                result.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+            }
+            result.append("Commands:\n");
+            for (Map.Entry<String, Stats> entry : commands.entrySet()) {
+                result.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+            }
+            return result.toString();
+        }
+    }
+
+    /** Recorded values for a single kind of operation or command. */
+    public static final class Stats {
+        private final long count;
+        private final long errorCount;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final long[] buckets;
+
+        private Stats(long count, long errorCount, long totalNanos, long maxNanos, long[] buckets) {
+            this.count = count;
+            this.errorCount = errorCount;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.buckets = buckets;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long errorCount() {
+            return errorCount;
+        }
+
+        public long totalNanos() {
+            return totalNanos;
+        }
+
+        public long meanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        public long maxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * Returns the approximate latency percentile, e.g. {@code percentileNanos(99)} returns a value that 99 %
+         * of executions didn't exceed. The value is never higher than {@link #maxNanos()}.
+         */
+        public long percentileNanos(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100, was " + percentile);
+            }
+
+            long total = 0;
+            for (long bucket : buckets) {
+                total += bucket;
+            }
+            if (total == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return Math.min(Recorder.bucketUpperBound(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", errors=" + errorCount
+                    + ", mean=" + millis(meanNanos()) + " ms"
+                    + ", p50=" + millis(percentileNanos(50)) + " ms"
+                    + ", p90=" + millis(percentileNanos(90)) + " ms"
+                    + ", p99=" + millis(percentileNanos(99)) + " ms"
+                    + ", max=" + millis(maxNanos) + " ms";
+        }
+
+        private static String millis(long nanos) {
+            return String.format("%.3f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    private static final class Recorder {
+        // values 0 .. 3 have their own buckets, then there are 4 buckets for each power of two up to 2^62
+        private static final int BUCKETS = 4 + 61 * 4;
+
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong errorCount = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        void record(long nanos, boolean failed) {
+            nanos = Math.max(nanos, 0);
+
+            count.incrementAndGet();
+            if (failed) {
+                errorCount.incrementAndGet();
+            }
+            totalNanos.addAndGet(nanos);
+            buckets.incrementAndGet(bucketIndex(nanos));
+
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        Stats snapshot() {
+            long[] bucketsCopy = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                bucketsCopy[i] = buckets.get(i);
+            }
+            return new Stats(count.get(), errorCount.get(), totalNanos.get(), maxNanos.get(), bucketsCopy);
+        }
+
+        static int bucketIndex(long value) {
+            if (value < 4) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value) - 2; // value >>> exponent is 4 .. 7
+            return 4 + exponent * 4 + (int) (value >>> exponent) - 4;
+        }
+
+        static long bucketUpperBound(int index) {
+            if (index < 4) {
+                return index;
+            }
+            int exponent = (index - 4) / 4;
+            long mantissa = (index - 4) % 4 + 4;
+            return ((mantissa + 1) << exponent) - 1;
+        }
+    }
+}
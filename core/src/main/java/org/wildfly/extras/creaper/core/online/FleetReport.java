@@ -0,0 +1,107 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.wildfly.extras.creaper.core.CommandFailedException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-server outcome of applying commands to an {@link OnlineFleet}. Results are in the same order as
+ * the {@code OnlineOptions} the fleet was created with.
+ */
+public final class FleetReport {
+    private final List<ServerResult> results;
+
+    FleetReport(List<ServerResult> results) {
+        this.results = Collections.unmodifiableList(new ArrayList<ServerResult>(results));
+    }
+
+    /** Results for all servers of the fleet. */
+    public List<ServerResult> results() {
+        return results;
+    }
+
+    /** Results for servers where applying the commands failed (or that couldn't be connected to). */
+    public List<ServerResult> failures() {
+        List<ServerResult> failures = new ArrayList<ServerResult>();
+        for (ServerResult result : results) {
+            if (!result.isSuccess()) {
+                failures.add(result);
+            }
+        }
+        return Collections.unmodifiableList(failures);
+    }
+
+    /** Whether the commands were applied successfully to all servers. */
+    public boolean isSuccess() {
+        for (ServerResult result : results) {
+            if (!result.isSuccess()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Throws a {@link CommandFailedException} summarizing all failures if applying the commands failed on any server.
+     * The failure of the first failed server is attached as a cause.
+     */
+    public void assertSuccess() throws CommandFailedException {
+        List<ServerResult> failures = failures();
+        if (failures.isEmpty()) {
+            return;
+        }
+
+        StringBuilder message = new StringBuilder();
+        message.append("Applying commands failed on ").append(failures.size()).append(" of ").append(results.size())
+                .append(" servers:");
+        for (ServerResult failure : failures) {
+            message.append(String.format("%n- %s: %s", failure.options().endpoint(),
+                    failure.failure().getMessage()));
+        }
+        throw new CommandFailedException(message.toString(), failures.get(0).failure());
+    }
+
+    @Override
+    public String toString() {
+        return "FleetReport" + results;
+    }
+
+    /** Outcome of applying commands to a single server of the fleet. */
+    public static final class ServerResult {
+        private final OnlineOptions options;
+        private final CommandFailedException failure;
+        private final long durationMillis;
+
+        ServerResult(OnlineOptions options, CommandFailedException failure, long durationMillis) {
+            this.options = options;
+            this.failure = failure;
+            this.durationMillis = durationMillis;
+        }
+
+        /** Options of the server this result belongs to. */
+        public OnlineOptions options() {
+            return options;
+        }
+
+        public boolean isSuccess() {
+            return failure == null;
+        }
+
+        /** The failure, or {@code null} if the commands were applied successfully. */
+        public CommandFailedException failure() {
+            return failure;
+        }
+
+        /** How long it took to apply the commands to this server. */
+        public long durationMillis() {
+            return durationMillis;
+        }
+
+        @Override
+        public String toString() {
+            return options.endpoint() + (isSuccess() ? " OK" : " FAILED");
+        }
+    }
+}
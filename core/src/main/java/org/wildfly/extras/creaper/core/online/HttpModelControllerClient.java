@@ -1,26 +1,41 @@
 package org.wildfly.extras.creaper.core.online;
 
+import com.google.common.base.Function;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.http.Header;
 import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
+import org.apache.http.auth.AuthScheme;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.AuthCache;
 import org.apache.http.client.config.AuthSchemes;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.AbstractHttpEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
 import org.jboss.as.controller.client.ModelControllerClient;
 import org.jboss.as.controller.client.Operation;
@@ -28,28 +43,84 @@ import org.jboss.as.controller.client.OperationMessageHandler;
 import org.jboss.as.controller.client.OperationResponse;
 import org.jboss.dmr.ModelNode;
 import org.jboss.threads.AsyncFuture;
+import org.jboss.threads.AsyncFutureTask;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controller provides execution of {@link ModelNode} or {@link Operation} over HTTP.
- * Asynchronous execution is not provided. Controller does not inform about any progress, therefore, there is no point
- * in using {@link OperationMessageHandler}.
+ * Asynchronous execution is provided by performing the blocking HTTP requests on a dedicated pool of daemon threads
+ * that is created on first use; the size of the underlying connection pool is configurable
+ * (see {@link OnlineOptions.OptionalOnlineOptions#httpConnectionPool(int, int) OnlineOptions.httpConnectionPool}).
+ * Connections are kept alive and once the digest authentication succeeds, the negotiated nonce is reused
+ * for subsequent requests, so that they don't need to be challenged again. The name of the management realm,
+ * which must be known in advance, is only obtained once for each endpoint and shared by all controllers.
+ * If the server refuses the credentials (e.g. because the realm was reconfigured), the realm name is obtained again,
+ * the shared entry is updated and the request is retried once, unless it has attachments, which can't be sent
+ * again.
+ * Controller does not inform about any progress, therefore, there is no point in using
+ * {@link OperationMessageHandler}.
  * If an error occurs (server does not respond 401 or header does not contain WWW-Authenticate field after
  * first request) {@code IllegalStateException is thrown} (if username and password is provided)
- * Execution on {@link Operation} is allowed with <b>no attachments</b>.
+ * Operations with attachments (input streams) are sent to the {@code /management-upload} endpoint as a multipart
+ * request, which is only supported since WildFly 9; the attachments are streamed directly from the input streams.
+ * Requests are written directly to the connection and responses are parsed directly from it, without building
+ * the entire JSON string in memory. Responses are requested in the more compact DMR binary encoding
+ * ({@code application/dmr-encoded}); servers that don't support it respond with JSON, which is supported as well.
  */
 final class HttpModelControllerClient implements ModelControllerClient {
     private static final int NO_TIMEOUT = 0;
+    private static final String DMR_ENCODED = "application/dmr-encoded";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
 
+    private static final Function<ModelNode, ModelNode> IDENTITY = new Function<ModelNode, ModelNode>() {
+        @Override
+        public ModelNode apply(ModelNode input) {
+            return input;
+        }
+    };
+
+    private static final Function<ModelNode, OperationResponse> TO_OPERATION_RESPONSE =
+            new Function<ModelNode, OperationResponse>() {
+                @Override
+                public OperationResponse apply(ModelNode input) {
+                    return OperationResponse.Factory.createSimple(input);
+                }
+            };
+
+    /** Management realm names, keyed by management endpoint URL. Updated when the server refuses credentials. */
+    static final ConcurrentMap<String, String> KNOWN_REALMS = new ConcurrentHashMap<String, String>();
+
+    private final String host;
+    private final int port;
+    private final UsernamePasswordCredentials credentials; // null if authentication isn't used
     private final String url;
+    private final String uploadUrl;
     private final RequestConfig requestConfig;
     private final Registry<ConnectionSocketFactory> registry;
     private final CloseableHttpClient client;
+    private final BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+    private final AuthCache authCache = new SharedAuthCache();
+
+    private String managementRealm; // guarded by credentialsProvider
+
+    private ExecutorService asyncExecutor; // created lazily, only when asynchronous execution is used
 
     HttpModelControllerClient(String host, int port, String username, String password, int timeoutMillis,
-                              SslOptions ssl) throws IOException {
+                              SslOptions ssl, int maxConnections, final int keepAliveMillis) throws IOException {
         // timeout configuration
         RequestConfig.Builder requestConfigBuilder = RequestConfig.custom();
         if (timeoutMillis != NO_TIMEOUT) {
@@ -62,6 +133,7 @@ final class HttpModelControllerClient implements ModelControllerClient {
         RegistryBuilder<ConnectionSocketFactory> registryBuilder = RegistryBuilder.<ConnectionSocketFactory>create();
         if (ssl != null) {
             url = "https://" + host + ":" + port + "/management";
+            uploadUrl = "https://" + host + ":" + port + "/management-upload";
             SSLConnectionSocketFactory sslConnectionSocketFactory;
             if (ssl.hostnameVerification) {
                 sslConnectionSocketFactory = new SSLConnectionSocketFactory(ssl.createSslContext());
@@ -72,41 +144,53 @@ final class HttpModelControllerClient implements ModelControllerClient {
             registryBuilder.register("https", sslConnectionSocketFactory);
         } else {
             url = "http://" + host + ":" + port + "/management";
+            uploadUrl = "http://" + host + ":" + port + "/management-upload";
             registryBuilder.register("http", PlainConnectionSocketFactory.getSocketFactory());
         }
         registry = registryBuilder.build();
 
-        BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+        this.host = host;
+        this.port = port;
         if (username != null && password != null) {
-            credentialsProvider.setCredentials(
-                    new AuthScope(host, port, getManagementRealm(url), AuthSchemes.DIGEST),
-                    new UsernamePasswordCredentials(username, password));
+            credentials = new UsernamePasswordCredentials(username, password);
+            String realm = KNOWN_REALMS.get(url);
+            if (realm == null) {
+                realm = getManagementRealm(url);
+                KNOWN_REALMS.put(url, realm);
+            }
+            useManagementRealm(realm);
+        } else {
+            credentials = null;
         }
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(registry);
+        // the default is 2 connections per route, which would serialize asynchronous requests
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
         client = HttpClients.custom()
-                .setConnectionManager(new PoolingHttpClientConnectionManager(registry))
+                .setConnectionManager(connectionManager)
                 .setDefaultCredentialsProvider(credentialsProvider)
                 .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(new ConnectionKeepAliveStrategy() {
+                    @Override
+                    public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                        long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE
+                                .getKeepAliveDuration(response, context);
+                        // the server didn't say, so it's up to us
+                        return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAliveMillis) : keepAliveMillis;
+                    }
+                })
+                .evictIdleConnections(keepAliveMillis, TimeUnit.MILLISECONDS)
                 .build();
     }
 
     @Override
     public ModelNode execute(ModelNode modelNode) throws IOException {
-        ModelNode result;
-        CloseableHttpResponse response = client.execute(buildRequest(modelNode));
-        try {
-            result = parseResponse(response);
-        } finally {
-            response.close();
-        }
-        return result;
+        return execute(buildRequest(modelNode));
     }
 
     @Override
     public ModelNode execute(Operation operation) throws IOException {
-        if (!operation.getInputStreams().isEmpty()) {
-            throw new IllegalStateException("Operation has one or more attachments which is not allowed.");
-        }
-        return execute(operation.getOperation());
+        return execute(buildRequest(operation));
     }
 
     @Override
@@ -119,59 +203,335 @@ final class HttpModelControllerClient implements ModelControllerClient {
         return execute(operation);
     }
 
+    private ModelNode execute(HttpPost request) throws IOException {
+        ModelNode result;
+        CloseableHttpResponse response = send(request);
+        try {
+            if (credentials != null && response.getStatusLine().getStatusCode() == HttpStatus.SC_UNAUTHORIZED) {
+                boolean realmChanged = refreshManagementRealm();
+                if (realmChanged && request.getEntity().isRepeatable()) {
+                    response.close();
+                    response = send(request);
+                }
+            }
+            result = parseResponse(response);
+        } finally {
+            response.close();
+        }
+        return result;
+    }
+
+    private CloseableHttpResponse send(HttpPost request) throws IOException {
+        HttpClientContext context = HttpClientContext.create();
+        context.setAuthCache(authCache);
+        return client.execute(request, context);
+    }
+
+    /**
+     * Obtains the management realm name from the server, updates the {@link #KNOWN_REALMS shared entry} and sets up
+     * the credentials for it. The cached authentication is dropped, because it was refused by the server
+     * or it belongs to a different realm.
+     *
+     * @return whether the realm name changed
+     */
+    private boolean refreshManagementRealm() throws IOException {
+        String realm = getManagementRealm(url);
+        KNOWN_REALMS.put(url, realm);
+        authCache.clear();
+        return useManagementRealm(realm);
+    }
+
+    /** @return whether the realm name changed */
+    private boolean useManagementRealm(String realm) {
+        synchronized (credentialsProvider) {
+            if (realm.equals(managementRealm)) {
+                return false;
+            }
+            managementRealm = realm;
+            // credentials for the previous realm are kept, so that concurrent requests aren't left without any
+            credentialsProvider.setCredentials(new AuthScope(host, port, realm, AuthSchemes.DIGEST), credentials);
+            return true;
+        }
+    }
+
     @Override
     public OperationResponse executeOperation(Operation operation, OperationMessageHandler handler) throws IOException {
         return OperationResponse.Factory.createSimple(execute(operation));
     }
 
-    /**
-     * <b>Not supported!</b>
-     */
     @Override
     public AsyncFuture<ModelNode> executeAsync(ModelNode modelNode, OperationMessageHandler handler) {
-        throw new UnsupportedOperationException("Asynchronous execution is not supported by " + getClass().getName());
+        return submit(buildRequest(modelNode), IDENTITY);
     }
 
-    /**
-     * <b>Not supported!</b>
-     */
     @Override
     public AsyncFuture<ModelNode> executeAsync(Operation operation, OperationMessageHandler handler) {
-        throw new UnsupportedOperationException("Asynchronous execution is not supported by " + getClass().getName());
+        return submit(buildRequest(operation), IDENTITY);
     }
 
-    /**
-     * <b>Not supported!</b>
-     */
     @Override
     public AsyncFuture<OperationResponse> executeOperationAsync(Operation operation, OperationMessageHandler handler) {
-        throw new UnsupportedOperationException("Asynchronous execution is not supported by " + getClass().getName());
+        return submit(buildRequest(operation), TO_OPERATION_RESPONSE);
+    }
+
+    private <T> AsyncFuture<T> submit(HttpPost request, Function<ModelNode, T> resultTransformer) {
+        AsyncRequest<T> task = new AsyncRequest<T>(request, resultTransformer);
+        asyncExecutor().execute(task);
+        return task;
+    }
+
+    private synchronized ExecutorService asyncExecutor() {
+        if (asyncExecutor == null) {
+            asyncExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                    .setNameFormat("creaper-http-async-%d")
+                    .setDaemon(true)
+                    .build());
+        }
+        return asyncExecutor;
+    }
+
+    /** A single HTTP request performed on the async executor. Cancelling it aborts the request. */
+    private final class AsyncRequest<T> extends AsyncFutureTask<T> implements Runnable {
+        private final HttpPost request;
+        private final Function<ModelNode, T> resultTransformer;
+
+        AsyncRequest(HttpPost request, Function<ModelNode, T> resultTransformer) {
+            super(null);
+            this.request = request;
+            this.resultTransformer = resultTransformer;
+        }
+
+        @Override
+        public void run() {
+            if (getStatus() != Status.WAITING) {
+                return;
+            }
+            try {
+                setResult(resultTransformer.apply(execute(request)));
+            } catch (Throwable e) {
+                if (request.isAborted()) {
+                    setCancelled();
+                } else {
+                    setFailed(e);
+                }
+            }
+        }
+
+        @Override
+        public void asyncCancel(boolean interruptionDesired) {
+            request.abort();
+            setCancelled();
+        }
     }
 
     @Override
     public void close() throws IOException {
+        synchronized (this) {
+            if (asyncExecutor != null) {
+                asyncExecutor.shutdownNow();
+            }
+        }
         client.close();
     }
 
-    private ModelNode parseResponse(CloseableHttpResponse response) throws IOException {
-        ModelNode result;
-        String content = EntityUtils.toString(response.getEntity());
+    private static ModelNode parseResponse(CloseableHttpResponse response) throws IOException {
+        HttpEntity entity = response.getEntity();
         int status = response.getStatusLine().getStatusCode();
-        if (status == HttpStatus.SC_OK || status == HttpStatus.SC_INTERNAL_SERVER_ERROR) {
-            result = ModelNode.fromJSONString(content);
-        } else {
+        if (status != HttpStatus.SC_OK && status != HttpStatus.SC_INTERNAL_SERVER_ERROR) {
+            String content = EntityUtils.toString(entity);
             throw new RuntimeException(String.format("Server responded %s%nMessage:%n%s", status, content));
         }
-        return result;
+
+        InputStream content = entity.getContent();
+        try {
+            if (isDmrEncoded(entity)) {
+                return ModelNode.fromBase64(content);
+            }
+            return ModelNode.fromJSONStream(content);
+        } finally {
+            content.close();
+        }
     }
 
-    private HttpPost buildRequest(ModelNode model) throws UnsupportedEncodingException {
+    private static boolean isDmrEncoded(HttpEntity entity) {
+        Header contentType = entity.getContentType();
+        return contentType != null && contentType.getValue().startsWith(DMR_ENCODED);
+    }
+
+    private HttpPost buildRequest(ModelNode model) {
         HttpPost request = new HttpPost(url);
         request.addHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.getMimeType());
-        request.setEntity(new StringEntity(model.toJSONString(true)));
+        request.addHeader(HttpHeaders.ACCEPT, DMR_ENCODED);
+        request.setEntity(new ModelNodeEntity(model));
+        return request;
+    }
+
+    private HttpPost buildRequest(Operation operation) {
+        if (operation.getInputStreams().isEmpty()) {
+            return buildRequest(operation.getOperation());
+        }
+
+        HttpPost request = new HttpPost(uploadUrl);
+        request.addHeader(HttpHeaders.ACCEPT, DMR_ENCODED);
+        request.setEntity(new MultipartEntity(operation));
+        // the attachments can't be sent again, so if the server asks for authentication, it must do so
+        // before the request body is sent
+        request.setConfig(RequestConfig.copy(requestConfig).setExpectContinueEnabled(true).build());
         return request;
     }
 
+    /**
+     * Unlike {@code BasicAuthCache}, which stores serialized copies, this keeps the actual {@code AuthScheme}
+     * instances. That is required for the digest scheme to keep counting the uses of a nonce, so that it can be
+     * used preemptively. When concurrent requests happen to use the same nonce count, the server challenges one
+     * of them again, which is handled transparently.
+     */
+    private static final class SharedAuthCache implements AuthCache {
+        private final ConcurrentMap<HttpHost, AuthScheme> schemes = new ConcurrentHashMap<HttpHost, AuthScheme>();
+
+        @Override
+        public void put(HttpHost host, AuthScheme authScheme) {
+            schemes.put(host, authScheme);
+        }
+
+        @Override
+        public AuthScheme get(HttpHost host) {
+            return schemes.get(host);
+        }
+
+        @Override
+        public void remove(HttpHost host) {
+            schemes.remove(host);
+        }
+
+        @Override
+        public void clear() {
+            schemes.clear();
+        }
+    }
+
+    /**
+     * Writes the {@code ModelNode} as JSON directly to the connection. It is repeatable, because the request might
+     * need to be sent again when the server asks for authentication.
+     */
+    private static final class ModelNodeEntity extends AbstractHttpEntity {
+        private final ModelNode model;
+
+        ModelNodeEntity(ModelNode model) {
+            this.model = model;
+            setChunked(true);
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public InputStream getContent() {
+            return new ByteArrayInputStream(model.toJSONString(true).getBytes(UTF_8));
+        }
+
+        @Override
+        public void writeTo(OutputStream output) throws IOException {
+            PrintWriter writer = new PrintWriter(new OutputStreamWriter(output, UTF_8));
+            model.writeJSONString(writer, true);
+            writer.flush();
+            if (writer.checkError()) {
+                throw new IOException("Failed to write the request");
+            }
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+    }
+
+    /**
+     * Writes the operation and all its attachments as a {@code multipart/form-data} request, as expected by
+     * the {@code /management-upload} endpoint. The operation is sent as a form field called {@code operation},
+     * the attachments follow as file parts, in the order of their {@code input-stream-index}. The attachments
+     * are copied directly from the input streams, so this entity isn't repeatable.
+     */
+    private static final class MultipartEntity extends AbstractHttpEntity {
+        private static final byte[] CRLF = {'\r', '\n'};
+
+        private final Operation operation;
+        private final String boundary;
+
+        MultipartEntity(Operation operation) {
+            this.operation = operation;
+            this.boundary = "creaper-" + UUID.randomUUID();
+            setChunked(true);
+            setContentType("multipart/form-data; boundary=" + boundary);
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return false;
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public InputStream getContent() {
+            throw new UnsupportedOperationException("Multipart entity can only be written");
+        }
+
+        @Override
+        public void writeTo(OutputStream output) throws IOException {
+            try {
+                writePartHeader(output, "Content-Disposition: form-data; name=\"operation\"",
+                        "Content-Type: " + ContentType.APPLICATION_JSON.getMimeType());
+                new ModelNodeEntity(operation.getOperation()).writeTo(output);
+                output.write(CRLF);
+
+                List<InputStream> attachments = operation.getInputStreams();
+                for (int i = 0; i < attachments.size(); i++) {
+                    writePartHeader(output,
+                            "Content-Disposition: form-data; name=\"file" + i + "\"; filename=\"file" + i + "\"",
+                            "Content-Type: " + ContentType.APPLICATION_OCTET_STREAM.getMimeType());
+                    ByteStreams.copy(attachments.get(i), output);
+                    output.write(CRLF);
+                }
+
+                output.write(("--" + boundary + "--").getBytes(UTF_8));
+                output.write(CRLF);
+                output.flush();
+            } finally {
+                if (operation.isAutoCloseStreams()) {
+                    for (InputStream attachment : operation.getInputStreams()) {
+                        Closeables.closeQuietly(attachment);
+                    }
+                }
+            }
+        }
+
+        private void writePartHeader(OutputStream output, String... headers) throws IOException {
+            output.write(("--" + boundary).getBytes(UTF_8));
+            output.write(CRLF);
+            for (String header : headers) {
+                output.write(header.getBytes(UTF_8));
+                output.write(CRLF);
+            }
+            output.write(CRLF);
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return true;
+        }
+    }
+
     private String getManagementRealm(String url) throws IOException {
         // we need client without credentials
         CloseableHttpClient defaultHttpClient = HttpClients.custom()
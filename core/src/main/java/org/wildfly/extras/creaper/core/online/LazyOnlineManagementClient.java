@@ -1,5 +1,6 @@
 package org.wildfly.extras.creaper.core.online;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import org.jboss.as.controller.client.Operation;
 import org.jboss.dmr.ModelNode;
 import org.wildfly.extras.creaper.core.CommandFailedException;
@@ -79,6 +80,24 @@ final class LazyOnlineManagementClient implements OnlineManagementClient {
         return delegate.execute(operation);
     }
 
+    @Override
+    public ListenableFuture<ModelNodeResult> executeAsync(ModelNode operation) throws IOException {
+        ensureInitialized();
+        return delegate.executeAsync(operation);
+    }
+
+    @Override
+    public ListenableFuture<ModelNodeResult> executeAsync(Operation operation) throws IOException {
+        ensureInitialized();
+        return delegate.executeAsync(operation);
+    }
+
+    @Override
+    public ListenableFuture<ModelNodeResult> executeAsync(String operation) throws CliException, IOException {
+        ensureInitialized();
+        return delegate.executeAsync(operation);
+    }
+
     @Override
     public void executeCli(String cliOperation) throws CliException, IOException {
         ensureInitialized();
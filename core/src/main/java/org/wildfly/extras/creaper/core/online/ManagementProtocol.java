@@ -10,8 +10,8 @@ public enum ManagementProtocol {
     /**
      * With {@code HTTP}, the management client will not use the native management protocol,
      * but will instead use the HTTP management endpoint. The {@code ModelNode}s will be serialized to JSON. Operation
-     * attachments are not supported (yet), so deploying will not work. If username and password is not provided,
-     * no authentication method will be used.
+     * attachments (e.g. when deploying) are uploaded using the {@code /management-upload} endpoint, which is only
+     * available since WildFly 9. If username and password is not provided, no authentication method will be used.
      * Default port 9990.
      */
     HTTP("http"),
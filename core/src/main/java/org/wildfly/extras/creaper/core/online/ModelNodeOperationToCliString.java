@@ -1,35 +1,33 @@
 package org.wildfly.extras.creaper.core.online;
 
 import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
 import org.jboss.dmr.Property;
 
-import java.util.List;
-
 /** Note that this does <b>not</b> always produce a valid CLI string, it's just an approximation for logging! */
 final class ModelNodeOperationToCliString {
     private ModelNodeOperationToCliString() {} // avoid instantiation
 
-    // the implementation here is not very efficient with string handling, but it shouldn't pose a problem
+    // everything is appended to a single StringBuilder and the operation is only read using "require", "keys"
+    // and indexed access, so that no intermediate lists are created and the operation is never modified;
+    // note that "asInt" on a LIST node returns its size
 
     static String convert(ModelNode op) {
         try {
-            String operation = op.get(Constants.OP).asString();
-
-            if (!Constants.COMPOSITE.equals(operation)) {
-                return convertSingleOperation(op);
+            StringBuilder result = new StringBuilder(64);
+            if (!Constants.COMPOSITE.equals(op.require(Constants.OP).asString())) {
+                appendSingleOperation(result, op);
             } else {
-                StringBuilder result = new StringBuilder("composite: ");
-                boolean first = true;
-                for (ModelNode singleOp : op.get(Constants.STEPS).asList()) {
-                    if (!first) {
+                result.append("composite: ");
+                ModelNode steps = op.require(Constants.STEPS);
+                for (int i = 0, size = steps.asInt(); i < size; i++) {
+                    if (i > 0) {
                         result.append(", ");
                     }
-                    first = false;
-
-                    result.append(convertSingleOperation(singleOp));
+                    appendSingleOperation(result, steps.require(i));
                 }
-                return result.toString();
             }
+            return result.toString();
         } catch (Exception e) {
             // just a safety measure if something goes wrong (either bad operation,
             // which will be rejected by the server later on, or an error in this class)
@@ -37,85 +35,88 @@ final class ModelNodeOperationToCliString {
         }
     }
 
-    private static String convertSingleOperation(ModelNode op) {
+    private static void appendSingleOperation(StringBuilder result, ModelNode op) {
+        int start = result.length();
         try {
-            String operation = op.get(Constants.OP).asString();
-            List<Property> address = op.get(Constants.OP_ADDR).asPropertyList();
-            return convertAddress(address) + ":" + operation + convertParameters(op);
+            appendAddress(result, op.require(Constants.OP_ADDR));
+            result.append(':').append(op.require(Constants.OP).asString());
+            appendParameters(result, op);
         } catch (Exception e) {
-            return op.asString();
+            result.setLength(start);
+            result.append(op.asString());
         }
     }
 
-    private static String convertAddress(List<Property> address) {
-        if (address.isEmpty()) {
-            return "/";
+    private static void appendAddress(StringBuilder result, ModelNode address) {
+        int start = result.length();
+        if (address.getType() == ModelType.OBJECT) {
+            for (String key : address.keys()) {
+                result.append('/').append(key).append('=').append(address.require(key).asString());
+            }
+        } else {
+            for (int i = 0, size = address.asInt(); i < size; i++) {
+                Property element = address.require(i).asProperty();
+                result.append('/').append(element.getName()).append('=').append(element.getValue().asString());
+            }
         }
 
-        StringBuilder result = new StringBuilder();
-        for (Property element : address) {
-            result.append("/").append(element.getName()).append("=").append(element.getValue().asString());
+        if (result.length() == start) {
+            result.append('/');
         }
-        return result.toString();
     }
 
-    private static String convertParameters(ModelNode op) {
-        StringBuilder result = new StringBuilder();
+    private static void appendParameters(StringBuilder result, ModelNode op) {
         boolean first = true;
-        for (Property parameter : op.asPropertyList()) {
-            String name = parameter.getName();
+        for (String name : op.keys()) {
             if (Constants.OP.equals(name)
                     || Constants.OP_ADDR.equals(name)
                     || Constants.OPERATION_HEADERS.equals(name)) {
                 continue;
             }
 
-            if (!first) {
-                result.append(", ");
-            }
+            result.append(first ? "(" : ", ");
             first = false;
 
-            result.append(name).append("=").append(convertValue(parameter.getValue()));
+            result.append(name).append('=');
+            appendValue(result, op.require(name));
         }
 
-        if (result.length() > 0) {
-            return "(" + result.toString() + ")";
+        if (!first) {
+            result.append(')');
         }
-        return "";
     }
 
-    private static String convertValue(ModelNode value) {
+    private static void appendValue(StringBuilder result, ModelNode value) {
         switch (value.getType()) {
             case LIST:
-                StringBuilder result = new StringBuilder("[");
-                boolean first = true;
-                for (ModelNode element : value.asList()) {
-                    if (!first) {
+                result.append('[');
+                for (int i = 0, size = value.asInt(); i < size; i++) {
+                    if (i > 0) {
                         result.append(", ");
                     }
-                    first = false;
-
-                    result.append(convertValue(element));
+                    appendValue(result, value.require(i));
                 }
-                result.append("]");
-                return result.toString();
+                result.append(']');
+                break;
             case OBJECT:
-                result = new StringBuilder("{");
-                first = true;
-                for (Property element : value.asPropertyList()) {
+                result.append('{');
+                boolean first = true;
+                for (String key : value.keys()) {
                     if (!first) {
                         result.append(", ");
                     }
                     first = false;
 
-                    result.append(element.getName()).append(" => ").append(convertValue(element.getValue()));
+                    result.append(key).append(" => ");
+                    appendValue(result, value.require(key));
                 }
-                result.append("}");
-                return result.toString();
+                result.append('}');
+                break;
             case BYTES:
-                return "<bytes>";
+                result.append("<bytes>");
+                break;
             default:
-                return value.asString();
+                result.append(value.asString());
         }
     }
 }
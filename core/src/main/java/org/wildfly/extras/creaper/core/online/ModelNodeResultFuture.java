@@ -0,0 +1,53 @@
+package org.wildfly.extras.creaper.core.online;
+
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.jboss.dmr.ModelNode;
+import org.jboss.threads.AsyncFuture;
+
+/**
+ * Adapts an {@link AsyncFuture} returned by {@code ModelControllerClient.executeAsync} to a {@link ListenableFuture}
+ * of {@link ModelNodeResult}. Cancelling this future cancels the underlying operation.
+ */
+final class ModelNodeResultFuture extends AbstractFuture<ModelNodeResult> {
+    private final AsyncFuture<ModelNode> delegate;
+
+    static ListenableFuture<ModelNodeResult> of(AsyncFuture<ModelNode> delegate) {
+        ModelNodeResultFuture result = new ModelNodeResultFuture(delegate);
+        delegate.addListener(new AsyncFuture.Listener<ModelNode, ModelNodeResultFuture>() {
+            @Override
+            public void handleComplete(AsyncFuture<? extends ModelNode> future, ModelNodeResultFuture attachment) {
+                try {
+                    attachment.set(new ModelNodeResult(future.getUninterruptibly()));
+                } catch (Throwable e) {
+                    attachment.setException(e);
+                }
+            }
+
+            @Override
+            public void handleFailed(AsyncFuture<? extends ModelNode> future, Throwable cause,
+                                     ModelNodeResultFuture attachment) {
+                attachment.setException(cause);
+            }
+
+            @Override
+            public void handleCancelled(AsyncFuture<? extends ModelNode> future, ModelNodeResultFuture attachment) {
+                attachment.cancel(false);
+            }
+        }, result);
+        return result;
+    }
+
+    private ModelNodeResultFuture(AsyncFuture<ModelNode> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            delegate.asyncCancel(mayInterruptIfRunning);
+        }
+        return cancelled;
+    }
+}
@@ -0,0 +1,204 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.logging.Logger;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.ServerVersion;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>A pool of {@link OnlineManagementClient}s that avoids the cost of connecting to the same server over and over
+ * again. Created by {@link ManagementClient#onlinePool(int) ManagementClient.onlinePool}.</p>
+ *
+ * <p>Clients are {@link #lease(OnlineOptions) leased} from the pool and returned to it when the leased client
+ * is {@code close}d. Clients created from {@code OnlineOptions} with the same settings (host, port, protocol,
+ * credentials etc.) are interchangeable. An idle client that wasn't used for a while is validated by a cheap
+ * {@code whoami} operation before it's leased again; clients that fail the validation are discarded.</p>
+ *
+ * <p>The server version and mode (standalone server vs. domain controller) discovered when the first client
+ * for given settings is created are remembered, so that subsequently created clients skip the discovery.
+ * Hence, a pool shouldn't outlive a server upgrade.</p>
+ *
+ * <p>The pool itself is thread-safe, but each leased client is meant to be used from a single thread, just like
+ * any other {@code OnlineManagementClient}. The pool must be {@code close}d; idle clients are closed immediately,
+ * leased clients are closed when they are returned.</p>
+ */
+public final class OnlineClientPool implements Closeable {
+    private static final Logger log = Logger.getLogger(OnlineManagementClient.class);
+
+    private static final long VALIDATE_AFTER_IDLE_MILLIS = 5000;
+
+    /** Creates new clients; exists so that tests don't need a real server. */
+    interface Connector {
+        OnlineManagementClient connect(OnlineOptions options, ServerVersion knownVersion) throws IOException;
+    }
+
+    private static final Connector DEFAULT_CONNECTOR = new Connector() {
+        @Override
+        public OnlineManagementClient connect(OnlineOptions options, ServerVersion knownVersion) throws IOException {
+            return new OnlineManagementClientImpl(options, knownVersion);
+        }
+    };
+
+    private final int maxIdleClientsPerServer;
+    private final Connector connector;
+
+    private final Map<List<Object>, Deque<IdleClient>> idleClients = new HashMap<List<Object>, Deque<IdleClient>>();
+    private final Map<List<Object>, ServerVersion> knownVersions = new HashMap<List<Object>, ServerVersion>();
+    private boolean closed;
+
+    static OnlineClientPool create(int maxIdleClientsPerServer) {
+        return new OnlineClientPool(maxIdleClientsPerServer, DEFAULT_CONNECTOR);
+    }
+
+    /** For tests. */
+    static OnlineClientPool of(int maxIdleClientsPerServer, Connector connector) {
+        return new OnlineClientPool(maxIdleClientsPerServer, connector);
+    }
+
+    private OnlineClientPool(int maxIdleClientsPerServer, Connector connector) {
+        if (maxIdleClientsPerServer < 1) {
+            throw new IllegalArgumentException("Max idle clients per server must be positive, was "
+                    + maxIdleClientsPerServer);
+        }
+
+        this.maxIdleClientsPerServer = maxIdleClientsPerServer;
+        this.connector = connector;
+    }
+
+    /**
+     * Returns an idle client connected to the server described by the {@code options}, or creates a new one
+     * if there's none. The returned client <b>must</b> be {@code close}d, which returns it to the pool.
+     * Its {@link OnlineManagementClient#options() options} are the {@code options}.
+     * @throws IOException if a new client needs to be created and it fails (see
+     * {@link ManagementClient#online(OnlineOptions) ManagementClient.online})
+     * @throws IllegalArgumentException if the {@code options} {@link OnlineOptions.ConnectionOnlineOptions#wrap wrap}
+     * an existing {@code ModelControllerClient}
+     */
+    public OnlineManagementClient lease(OnlineOptions options) throws IOException {
+        List<Object> key = options.poolKey();
+
+        while (true) {
+            IdleClient candidate = pollIdle(key);
+            if (candidate == null) {
+                break;
+            }
+            if (isValid(candidate)) {
+                return new PooledOnlineManagementClient(this, key, options, candidate.client);
+            }
+            log.debugf("Discarding pooled client of %s:%d, it failed validation", options.host, options.port);
+            closeQuietly(candidate.client);
+        }
+
+        ServerVersion knownVersion;
+        synchronized (this) {
+            checkClosed();
+            knownVersion = knownVersions.get(key);
+        }
+
+        OnlineManagementClient client = connector.connect(options, knownVersion);
+        synchronized (this) {
+            knownVersions.put(key, client.version());
+        }
+        return new PooledOnlineManagementClient(this, key, options, client);
+    }
+
+    private synchronized IdleClient pollIdle(List<Object> key) {
+        checkClosed();
+        Deque<IdleClient> idle = idleClients.get(key);
+        return idle != null ? idle.pollFirst() : null;
+    }
+
+    private static boolean isValid(IdleClient candidate) {
+        if (System.currentTimeMillis() - candidate.idleSince < VALIDATE_AFTER_IDLE_MILLIS) {
+            return true;
+        }
+
+        ModelNode op = new ModelNode();
+        op.get(Constants.OP).set(Constants.WHOAMI);
+        op.get(Constants.OP_ADDR).setEmptyList();
+        try {
+            return candidate.client.execute(op).isSuccess();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /** Called when a leased client is closed. */
+    void release(List<Object> key, OnlineManagementClient client) {
+        synchronized (this) {
+            if (!closed) {
+                Deque<IdleClient> idle = idleClients.get(key);
+                if (idle == null) {
+                    idle = new ArrayDeque<IdleClient>();
+                    idleClients.put(key, idle);
+                }
+                if (idle.size() < maxIdleClientsPerServer) {
+                    // most recently used clients are leased first, so that the rest can be validated or discarded
+                    idle.addFirst(new IdleClient(client));
+                    return;
+                }
+            }
+        }
+
+        closeQuietly(client);
+    }
+
+    /** Number of idle clients in the pool, for all servers together. */
+    public synchronized int idleCount() {
+        int result = 0;
+        for (Deque<IdleClient> idle : idleClients.values()) {
+            result += idle.size();
+        }
+        return result;
+    }
+
+    private void checkClosed() {
+        if (closed) {
+            throw new IllegalStateException("The pool is already closed");
+        }
+    }
+
+    /** Closes all idle clients. Clients that are currently leased will be closed when they are returned. */
+    @Override
+    public void close() throws IOException {
+        List<IdleClient> toClose = new ArrayList<IdleClient>();
+        synchronized (this) {
+            closed = true;
+            for (Deque<IdleClient> idle : idleClients.values()) {
+                toClose.addAll(idle);
+            }
+            idleClients.clear();
+        }
+
+        for (IdleClient idleClient : toClose) {
+            closeQuietly(idleClient.client);
+        }
+    }
+
+    private static void closeQuietly(OnlineManagementClient client) {
+        try {
+            client.close();
+        } catch (Exception e) {
+            log.debugf("Failed to close pooled client: %s", e.getMessage());
+        }
+    }
+
+    private static final class IdleClient {
+        final OnlineManagementClient client;
+        final long idleSince;
+
+        IdleClient(OnlineManagementClient client) {
+            this.client = client;
+            this.idleSince = System.currentTimeMillis();
+        }
+    }
+}
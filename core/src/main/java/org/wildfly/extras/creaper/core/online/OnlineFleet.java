@@ -0,0 +1,199 @@
+package org.wildfly.extras.creaper.core.online;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.jboss.logging.Logger;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.ManagementClient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>A group of {@link OnlineManagementClient}s, one for each server of a fleet, that allows applying the same
+ * commands to all the servers concurrently. Created by
+ * {@link ManagementClient#fleet(List, int) ManagementClient.fleet}.</p>
+ *
+ * <p>Clients are opened in parallel when the fleet is created. Servers that couldn't be connected to are kept
+ * in the fleet, so that they are reported as failed by each {@link #apply(Iterable) apply}. Commands are applied
+ * to each server sequentially, just like with {@link OnlineManagementClient#apply(Iterable)}, but different servers
+ * are processed concurrently by a bounded pool of worker threads. Failure on one server doesn't affect
+ * the others.</p>
+ *
+ * <p>The fleet itself is meant to be used from a single thread; each client is only ever used by one worker thread
+ * at a time. The fleet must be {@code close}d to close all the clients and stop the worker threads.</p>
+ */
+public final class OnlineFleet implements Closeable {
+    private static final Logger log = Logger.getLogger(OnlineManagementClient.class);
+
+    private final List<OnlineOptions> options;
+    private final List<OnlineManagementClient> clients; // null element <=> failed to connect
+    private final List<IOException> connectFailures; // null element <=> connected successfully
+    private final ExecutorService executor;
+
+    static OnlineFleet connect(List<OnlineOptions> options, int maxParallelism) {
+        if (options.isEmpty()) {
+            throw new IllegalArgumentException("Fleet must contain at least one server");
+        }
+        if (maxParallelism < 1) {
+            throw new IllegalArgumentException("Max parallelism must be positive, was " + maxParallelism);
+        }
+
+        ExecutorService executor = createExecutor(Math.min(options.size(), maxParallelism));
+
+        List<Future<OnlineManagementClient>> connecting = new ArrayList<Future<OnlineManagementClient>>();
+        for (final OnlineOptions serverOptions : options) {
+            connecting.add(executor.submit(new Callable<OnlineManagementClient>() {
+                @Override
+                public OnlineManagementClient call() throws IOException {
+                    return ManagementClient.online(serverOptions);
+                }
+            }));
+        }
+
+        List<OnlineManagementClient> clients = new ArrayList<OnlineManagementClient>();
+        List<IOException> connectFailures = new ArrayList<IOException>();
+        for (int i = 0; i < connecting.size(); i++) {
+            try {
+                clients.add(connecting.get(i).get());
+                connectFailures.add(null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                clients.add(null);
+                connectFailures.add(new IOException("Interrupted while connecting", e));
+            } catch (ExecutionException e) {
+                log.infof("Failed to connect to %s: %s", options.get(i).endpoint(), e.getCause().getMessage());
+                clients.add(null);
+                connectFailures.add(e.getCause() instanceof IOException
+                        ? (IOException) e.getCause() : new IOException(e.getCause()));
+            }
+        }
+
+        return new OnlineFleet(options, clients, connectFailures, executor);
+    }
+
+    /** For tests. */
+    static OnlineFleet of(List<OnlineOptions> options, List<OnlineManagementClient> clients, int maxParallelism) {
+        return new OnlineFleet(options, clients, Collections.<IOException>nCopies(clients.size(), null),
+                createExecutor(Math.min(clients.size(), maxParallelism)));
+    }
+
+    private static ExecutorService createExecutor(int threads) {
+        return Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+                .setNameFormat("creaper-fleet-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+    private OnlineFleet(List<OnlineOptions> options, List<OnlineManagementClient> clients,
+                        List<IOException> connectFailures, ExecutorService executor) {
+        this.options = Collections.unmodifiableList(new ArrayList<OnlineOptions>(options));
+        this.clients = clients;
+        this.connectFailures = connectFailures;
+        this.executor = executor;
+    }
+
+    /** Number of servers in the fleet, including those that couldn't be connected to. */
+    public int size() {
+        return options.size();
+    }
+
+    /** Clients of all servers that were connected to successfully, in the order of the {@code OnlineOptions}. */
+    public List<OnlineManagementClient> clients() {
+        List<OnlineManagementClient> result = new ArrayList<OnlineManagementClient>();
+        for (OnlineManagementClient client : clients) {
+            if (client != null) {
+                result.add(client);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Applies a set of {@code commands} to all servers of the fleet concurrently. On each server, the commands are
+     * applied sequentially; if one of them fails, the rest of the commands is skipped for that server only.
+     * This method waits until all servers are done and never throws {@link CommandFailedException}; failures
+     * are reported in the resulting {@link FleetReport}.
+     */
+    public FleetReport apply(OnlineCommand... commands) {
+        return apply(Arrays.asList(commands));
+    }
+
+    /**
+     * Applies a set of {@code commands} to all servers of the fleet concurrently. On each server, the commands are
+     * applied sequentially; if one of them fails, the rest of the commands is skipped for that server only.
+     * This method waits until all servers are done and never throws {@link CommandFailedException}; failures
+     * are reported in the resulting {@link FleetReport}.
+     */
+    public FleetReport apply(final Iterable<OnlineCommand> commands) {
+        List<Future<FleetReport.ServerResult>> running = new ArrayList<Future<FleetReport.ServerResult>>();
+        for (int i = 0; i < options.size(); i++) {
+            final OnlineOptions serverOptions = options.get(i);
+            final OnlineManagementClient client = clients.get(i);
+            final IOException connectFailure = connectFailures.get(i);
+            running.add(executor.submit(new Callable<FleetReport.ServerResult>() {
+                @Override
+                public FleetReport.ServerResult call() {
+                    if (client == null) {
+                        return new FleetReport.ServerResult(serverOptions, new CommandFailedException(
+                                "Failed to connect to " + serverOptions.endpoint(), connectFailure), 0);
+                    }
+
+                    long start = System.currentTimeMillis();
+                    try {
+                        client.apply(commands);
+                        return new FleetReport.ServerResult(serverOptions, null, System.currentTimeMillis() - start);
+                    } catch (CommandFailedException e) {
+                        log.infof("Applying commands to %s failed: %s", serverOptions.endpoint(), e.getMessage());
+                        return new FleetReport.ServerResult(serverOptions, e, System.currentTimeMillis() - start);
+                    }
+                }
+            }));
+        }
+
+        List<FleetReport.ServerResult> results = new ArrayList<FleetReport.ServerResult>();
+        for (int i = 0; i < running.size(); i++) {
+            try {
+                results.add(running.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running.get(i).cancel(true);
+                results.add(new FleetReport.ServerResult(options.get(i), new CommandFailedException(e), 0));
+            } catch (ExecutionException e) {
+                results.add(new FleetReport.ServerResult(options.get(i), new CommandFailedException(e.getCause()), 0));
+            }
+        }
+        return new FleetReport(results);
+    }
+
+    /** Closes all the clients and stops the worker threads. */
+    @Override
+    public void close() throws IOException {
+        executor.shutdownNow();
+
+        IOException failure = null;
+        for (OnlineManagementClient client : clients) {
+            if (client == null) {
+                continue;
+            }
+            try {
+                client.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
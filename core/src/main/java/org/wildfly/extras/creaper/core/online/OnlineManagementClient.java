@@ -1,5 +1,6 @@
 package org.wildfly.extras.creaper.core.online;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import org.jboss.as.controller.client.Operation;
 import org.jboss.dmr.ModelNode;
 import org.wildfly.extras.creaper.core.CommandFailedException;
@@ -61,6 +62,31 @@ public interface OnlineManagementClient extends Closeable {
      */
     ModelNodeResult execute(String operation) throws CliException, IOException;
 
+    /**
+     * Performs the management {@code operation} asynchronously and returns a {@link ListenableFuture} that will
+     * eventually provide its result as a {@link ModelNodeResult}. This method doesn't block waiting for the result,
+     * so that many independent operations can be in flight at once. If an I/O error occurs during the management
+     * operation, the future fails with an {@link IOException}. The client must not be closed while there are
+     * outstanding operations.
+     */
+    ListenableFuture<ModelNodeResult> executeAsync(ModelNode operation) throws IOException;
+
+    /**
+     * Performs the management {@code operation} asynchronously and returns a {@link ListenableFuture} that will
+     * eventually provide its result as a {@link ModelNodeResult}. See {@link #executeAsync(ModelNode)} for details.
+     */
+    ListenableFuture<ModelNodeResult> executeAsync(Operation operation) throws IOException;
+
+    /**
+     * Performs the management {@code operation} (given in the CLI syntax) asynchronously and returns
+     * a {@link ListenableFuture} that will eventually provide its result as a {@link ModelNodeResult}.
+     * The operation must be a server-side management operation; it is parsed synchronously.
+     * See {@link #executeAsync(ModelNode)} for details.
+     * @throws CliException if the {@code operation} doesn't correspond to a server-side management operation
+     * or if there is a syntax error
+     */
+    ListenableFuture<ModelNodeResult> executeAsync(String operation) throws CliException, IOException;
+
     /**
      * Performs the management operation (given in the CLI syntax) synchronously. The {@code cliOperation} can be
      * either a server-side management operation or a local CLI operation such as {@code cd} or {@code ls}. All local
@@ -6,6 +6,10 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.jboss.as.cli.CliInitializationException;
 import org.jboss.as.cli.CommandContext;
 import org.jboss.as.cli.CommandFormatException;
@@ -25,6 +29,7 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
 
     private final OnlineOptions options;
     private final AdjustOperationForDomain adjustOperationForDomain;
+    private final ReadCache readCache; // null if disabled
 
     private ModelControllerClient client;
     private CommandContext cliContext;
@@ -33,12 +38,23 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
     private ThisIsWhereTheClientWasClosed closedAt; // != null <=> already closed
 
     OnlineManagementClientImpl(OnlineOptions options) throws IOException {
+        this(options, null);
+    }
+
+    /**
+     * @param knownVersion if not {@code null}, the server version and mode (standalone vs. domain) are already known
+     * (see {@link OnlineClientPool}), so they aren't discovered again
+     */
+    OnlineManagementClientImpl(OnlineOptions options, ServerVersion knownVersion) throws IOException {
         this.options = options;
         this.adjustOperationForDomain = new AdjustOperationForDomain(options);
-        connect();
+        this.readCache = options.readCacheMaxEntries > 0
+                ? new ReadCache(options.readCacheMaxEntries, options.readCacheTimeToLiveInNanos)
+                : null;
+        connect(knownVersion);
     }
 
-    private void connect() throws IOException {
+    private void connect(ServerVersion knownVersion) throws IOException {
         this.client = options.createModelControllerClient();
 
         try {
@@ -56,8 +72,13 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
             throw new IOException(e);
         }
 
+        if (knownVersion != null) {
+            this.version = knownVersion;
+            return;
+        }
+
         try {
-            this.version = OnlineServerVersion.discover(client);
+            this.version = OnlineServerVersion.discover(client, options.isWrappedClient ? null : options.endpoint());
             checkStandaloneVsDomain();
         } catch (Exception e) {
             try {
@@ -130,10 +151,25 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
         checkClosed();
         try {
             OnlineManagementClient client = AutomaticErrorHandlingForCommands.wrap(this);
+            AutoBatchingClient autoBatchingClient = null;
+            if (options.autoBatch) {
+                autoBatchingClient = new AutoBatchingClient(client);
+                client = autoBatchingClient;
+            }
             OnlineCommandContext ctx = new OnlineCommandContext(client, version);
             for (OnlineCommand command : commands) {
                 log.infof("Applying command %s", command);
-                command.apply(ctx);
+                long start = System.nanoTime();
+                boolean succeeded = false;
+                try {
+                    command.apply(ctx);
+                    if (autoBatchingClient != null) {
+                        autoBatchingClient.flush();
+                    }
+                    succeeded = true;
+                } finally {
+                    commandApplied(command, succeeded, start);
+                }
             }
         } catch (RuntimeCommandFailedException e) {
             throw e.original;
@@ -149,20 +185,37 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
     public ModelNodeResult execute(ModelNode operation) throws IOException {
         checkClosed();
         operation = adjustOperationForDomain.adjust(operation);
-        log.debugf("Executing operation %s", ModelNodeOperationToCliString.convert(operation));
-        log.tracef("JSON format:%n%s", operation.toJSONString(false));
-        ModelNode result = client.execute(operation);
-        return new ModelNodeResult(result);
+        ModelNodeResult cachedResult = cachedResult(operation);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+
+        logOperation(operation, false);
+        long cacheGeneration = cacheGeneration();
+        long start = System.nanoTime();
+        ModelNodeResult result = null;
+        try {
+            result = new ModelNodeResult(client.execute(operation));
+            return result;
+        } finally {
+            operationExecuted(operation, result, start, cacheGeneration);
+        }
     }
 
     @Override
     public ModelNodeResult execute(Operation operation) throws IOException {
         checkClosed();
         operation = adjustOperationForDomain.adjust(operation);
-        log.debugf("Executing operation %s", ModelNodeOperationToCliString.convert(operation.getOperation()));
-        log.tracef("JSON format:%n%s", operation.getOperation().toJSONString(false));
-        ModelNode result = client.execute(operation);
-        return new ModelNodeResult(result);
+        logOperation(operation.getOperation(), false);
+        long cacheGeneration = cacheGeneration();
+        long start = System.nanoTime();
+        ModelNodeResult result = null;
+        try {
+            result = new ModelNodeResult(client.execute(operation));
+            return result;
+        } finally {
+            operationExecuted(operation.getOperation(), result, start, cacheGeneration);
+        }
     }
 
     @Override
@@ -177,8 +230,150 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
             throw new CliException(e);
         }
 
-        ModelNode result = client.execute(parsedOperation);
-        return new ModelNodeResult(result);
+        ModelNodeResult cachedResult = cachedResult(parsedOperation);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+
+        long cacheGeneration = cacheGeneration();
+        long start = System.nanoTime();
+        ModelNodeResult result = null;
+        try {
+            result = new ModelNodeResult(client.execute(parsedOperation));
+            return result;
+        } finally {
+            operationExecuted(parsedOperation, result, start, cacheGeneration);
+        }
+    }
+
+    @Override
+    public ListenableFuture<ModelNodeResult> executeAsync(ModelNode operation) throws IOException {
+        checkClosed();
+        operation = adjustOperationForDomain.adjust(operation);
+        logOperation(operation, true);
+        long cacheGeneration = cacheGeneration();
+        long start = System.nanoTime();
+        return operationExecutedWhenDone(operation, start, cacheGeneration,
+                ModelNodeResultFuture.of(client.executeAsync(operation, null)));
+    }
+
+    @Override
+    public ListenableFuture<ModelNodeResult> executeAsync(Operation operation) throws IOException {
+        checkClosed();
+        operation = adjustOperationForDomain.adjust(operation);
+        logOperation(operation.getOperation(), true);
+        long cacheGeneration = cacheGeneration();
+        long start = System.nanoTime();
+        return operationExecutedWhenDone(operation.getOperation(), start, cacheGeneration,
+                ModelNodeResultFuture.of(client.executeAsync(operation, null)));
+    }
+
+    @Override
+    public ListenableFuture<ModelNodeResult> executeAsync(String operation) throws CliException, IOException {
+        checkClosed();
+        operation = adjustOperationForDomain.adjust(operation);
+        log.debugf("Executing operation %s asynchronously", operation);
+        ModelNode parsedOperation;
+        try {
+            parsedOperation = cliContext.buildRequest(operation);
+        } catch (CommandFormatException e) {
+            throw new CliException(e);
+        }
+
+        long cacheGeneration = cacheGeneration();
+        long start = System.nanoTime();
+        return operationExecutedWhenDone(parsedOperation, start, cacheGeneration,
+                ModelNodeResultFuture.of(client.executeAsync(parsedOperation, null)));
+    }
+
+    /** Converting the operation to a string is expensive, so it's only done if the log level is enabled. */
+    private static void logOperation(ModelNode operation, boolean async) {
+        if (log.isDebugEnabled()) {
+            log.debugf("Executing operation %s%s", ModelNodeOperationToCliString.convert(operation),
+                    async ? " asynchronously" : "");
+        }
+        if (log.isTraceEnabled()) {
+            log.tracef("JSON format:%n%s", operation.toJSONString(false));
+        }
+    }
+
+    /** Must be obtained before executing an operation, see {@link ReadCache#generation()}. */
+    private long cacheGeneration() {
+        return readCache != null ? readCache.generation() : 0;
+    }
+
+    /**
+     * Updates the {@link #readCache read cache} and notifies the {@link OnlineOptions#listeners listeners};
+     * {@code result} is {@code null} if execution failed.
+     */
+    private void operationExecuted(ModelNode operation, ModelNodeResult result, long startNanos,
+                                   long cacheGeneration) {
+        if (readCache != null) {
+            readCache.executed(operation, result, cacheGeneration);
+        }
+
+        if (options.listeners.isEmpty()) {
+            return;
+        }
+
+        long duration = System.nanoTime() - startNanos;
+        for (ExecutionListener listener : options.listeners) {
+            try {
+                listener.operationExecuted(operation, result, duration);
+            } catch (RuntimeException e) {
+                log.warn("Execution listener failed", e);
+            }
+        }
+    }
+
+    private ListenableFuture<ModelNodeResult> operationExecutedWhenDone(final ModelNode operation,
+                                                                        final long startNanos,
+                                                                        final long cacheGeneration,
+                                                                        ListenableFuture<ModelNodeResult> future) {
+        if (options.listeners.isEmpty() && readCache == null) {
+            return future;
+        }
+
+        Futures.addCallback(future, new FutureCallback<ModelNodeResult>() {
+            @Override
+            public void onSuccess(ModelNodeResult result) {
+                operationExecuted(operation, result, startNanos, cacheGeneration);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                operationExecuted(operation, null, startNanos, cacheGeneration);
+            }
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
+
+    /** Returns the cached result of the {@code operation}, or {@code null} if there's none. */
+    private ModelNodeResult cachedResult(ModelNode operation) {
+        if (readCache == null) {
+            return null;
+        }
+
+        ModelNodeResult result = readCache.get(operation);
+        if (result != null && log.isDebugEnabled()) {
+            log.debugf("Returning cached result of operation %s", ModelNodeOperationToCliString.convert(operation));
+        }
+        return result;
+    }
+
+    private void commandApplied(OnlineCommand command, boolean succeeded, long startNanos) {
+        if (options.listeners.isEmpty()) {
+            return;
+        }
+
+        long duration = System.nanoTime() - startNanos;
+        for (ExecutionListener listener : options.listeners) {
+            try {
+                listener.commandApplied(command, succeeded, duration);
+            } catch (RuntimeException e) {
+                log.warn("Execution listener failed", e);
+            }
+        }
     }
 
     @Override
@@ -208,6 +403,10 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
             }
 
             throw new CliException(e);
+        } finally {
+            if (readCache != null) {
+                readCache.invalidateAll(); // CLI operations can do anything
+            }
         }
 
         if (cliContext.getExitCode() != 0 || cliContext.isTerminated()) {
@@ -222,6 +421,9 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
         }
 
         log.info("Reconnecting the client");
+        if (readCache != null) {
+            readCache.invalidateAll();
+        }
 
         try {
             client.close();
@@ -229,20 +431,18 @@ final class OnlineManagementClientImpl implements OnlineManagementClient {
         } catch (Throwable ignored) {
         }
 
-        long endTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeoutInSeconds);
-        while (System.currentTimeMillis() < endTime) {
+        RetryPolicy.Attempts attempts = options.retryPolicy.start(TimeUnit.SECONDS.toMillis(timeoutInSeconds));
+        while (attempts.next()) {
             try {
-                connect();
+                connect(null);
                 return;
             } catch (Throwable e) {
                 log.info(e.getMessage());
                 // server is probably down, will retry
             }
-
-            Thread.sleep(500);
         }
 
-        throw new TimeoutException("Timeout reconnecting to server");
+        throw attempts.timeout("Timeout reconnecting to server");
     }
 
     @Override
@@ -3,8 +3,12 @@ package org.wildfly.extras.creaper.core.online;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import javax.net.ssl.SSLContext;
 import javax.security.auth.callback.Callback;
@@ -25,6 +29,8 @@ import org.wildfly.extras.creaper.core.ManagementClient;
  */
 public final class OnlineOptions {
     private static final String CREAPER_WILDFLY = "creaper.wildfly";
+    private static final int DEFAULT_HTTP_MAX_CONNECTIONS = 20;
+    private static final int DEFAULT_HTTP_KEEP_ALIVE = 60000;
 
     public final boolean isStandalone;
 
@@ -45,9 +51,22 @@ public final class OnlineOptions {
 
     private final SslOptions sslOptions;
 
+    private final int httpMaxConnections;
+    private final int httpKeepAlive;
+
     private final ModelControllerClient wrappedModelControllerClient;
     final boolean isWrappedClient; // see OnlineManagementClientImpl.reconnect
 
+    final boolean autoBatch; // see AutoBatchingClient
+
+    /** How to wait for the server when connecting, reconnecting, reloading etc. Never {@code null}. */
+    public final RetryPolicy retryPolicy;
+
+    final List<ExecutionListener> listeners; // immutable, see OnlineManagementClientImpl
+
+    final int readCacheMaxEntries; // 0 if the read cache is disabled, see ReadCache
+    final long readCacheTimeToLiveInNanos;
+
     private OnlineOptions(Data data) {
         if (data.protocol == null && System.getProperty(CREAPER_WILDFLY) != null) {
             if (data.sslOptions == null) {
@@ -85,8 +104,15 @@ public final class OnlineOptions {
         this.password = data.password;
         this.localAuthDisabled = data.localAuthDisabled;
         this.sslOptions = data.sslOptions;
+        this.httpMaxConnections = data.httpMaxConnections;
+        this.httpKeepAlive = data.httpKeepAlive;
         this.wrappedModelControllerClient = data.wrappedModelControllerClient;
         this.isWrappedClient = data.wrappedModelControllerClient != null;
+        this.autoBatch = data.autoBatch;
+        this.retryPolicy = data.retryPolicy;
+        this.listeners = Collections.unmodifiableList(new ArrayList<ExecutionListener>(data.listeners));
+        this.readCacheMaxEntries = data.readCacheMaxEntries;
+        this.readCacheTimeToLiveInNanos = data.readCacheTimeToLiveInNanos;
 
         if ((protocol == ManagementProtocol.HTTPS || protocol == ManagementProtocol.HTTPS_REMOTING)
                 && sslOptions == null) {
@@ -120,7 +146,19 @@ public final class OnlineOptions {
 
         private SslOptions sslOptions;
 
+        private int httpMaxConnections = DEFAULT_HTTP_MAX_CONNECTIONS;
+        private int httpKeepAlive = DEFAULT_HTTP_KEEP_ALIVE;
+
         private ModelControllerClient wrappedModelControllerClient;
+
+        private boolean autoBatch;
+
+        private RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+
+        private final List<ExecutionListener> listeners = new ArrayList<ExecutionListener>();
+
+        private int readCacheMaxEntries;
+        private long readCacheTimeToLiveInNanos;
     }
 
     /** Connect to a standalone server. */
@@ -351,6 +389,104 @@ public final class OnlineOptions {
             return this;
         }
 
+        /**
+         * <p>Connection pool settings of the {@link ManagementProtocol#HTTP HTTP(S)} management client. Optional,
+         * ignored for other protocols. By default, at most {@code 20} connections are opened and idle connections
+         * are kept alive for {@code 60000} milliseconds (1 minute), unless the server says otherwise.</p>
+         *
+         * <p>Concurrent requests (see {@link OnlineManagementClient#executeAsync(ModelNode) executeAsync}) beyond
+         * {@code maxConnections} wait for a connection to become available. Reusing a kept-alive connection avoids
+         * the connection setup, including the TLS handshake.</p>
+         */
+        public OptionalOnlineOptions httpConnectionPool(int maxConnections, int keepAliveInMillis) {
+            if (maxConnections <= 0) {
+                throw new IllegalArgumentException("Max connections must be positive, was " + maxConnections);
+            }
+            if (keepAliveInMillis <= 0) {
+                throw new IllegalArgumentException("Keep-alive must be positive, was " + keepAliveInMillis);
+            }
+
+            data.httpMaxConnections = maxConnections;
+            data.httpKeepAlive = keepAliveInMillis;
+            return this;
+        }
+
+        /**
+         * <p>Coalesce simple write operations performed by commands into {@code composite} operations. Optional.
+         * By default, each operation is executed immediately.</p>
+         *
+         * <p>When enabled, {@code add}, {@code remove}, {@code write-attribute} and {@code undefine-attribute}
+         * operations (given as a {@code ModelNode}, which is what {@code Operations} does) that are performed
+         * from inside {@link OnlineManagementClient#apply(Iterable) apply} are buffered and a successful result
+         * is returned immediately. Buffered operations are executed as a single {@code composite} operation before
+         * any other operation is executed, when a {@link OnlineManagementClient#allowFailures() failures-allowed
+         * block} starts and at the end of each command. This saves a lot of management round trips, but it has
+         * two consequences: a failure of a buffered operation is only reported at the end of the command (or before
+         * the next read), and the command fails just like if the operation was executed immediately, except that
+         * all buffered operations are rolled back. Operations executed while failures are allowed are never
+         * buffered.</p>
+         */
+        public OptionalOnlineOptions autoBatch() {
+            data.autoBatch = true;
+            return this;
+        }
+
+        /**
+         * How to wait between repeated attempts when waiting for the server: when connecting to a server that is
+         * starting, when waiting for the server to boot, when {@link OnlineManagementClient#reconnect(int)
+         * reconnecting} and when waiting for the server to come back after reload or restart. Optional.
+         * By default, {@link RetryPolicy#DEFAULT} is used. The timeouts stay the same, the policy only determines
+         * the delays between attempts and can limit the number of attempts.
+         */
+        public OptionalOnlineOptions retryPolicy(RetryPolicy retryPolicy) {
+            if (retryPolicy == null) {
+                throw new IllegalArgumentException("Retry policy must be set");
+            }
+
+            data.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Notify the {@code listener} about every management operation executed and every command applied
+         * by the client, e.g. to collect {@link ExecutionMetrics metrics}. Optional. Can be called multiple times
+         * to register multiple listeners; they are called in the order of registration.
+         */
+        public OptionalOnlineOptions listener(ExecutionListener listener) {
+            if (listener == null) {
+                throw new IllegalArgumentException("Listener must be set");
+            }
+
+            data.listeners.add(listener);
+            return this;
+        }
+
+        /**
+         * <p>Cache results of read operations on the client side. Optional. By default, nothing is cached.</p>
+         *
+         * <p>When enabled, successful results of {@code read-attribute}, {@code read-children-names}
+         * and {@code read-resource} operations (without operation headers and without {@code include-runtime})
+         * are cached for at most {@code timeToLive}; at most {@code maxEntries} results are kept, the least recently
+         * used are evicted first. Each operation that isn't read-only invalidates cached results of operations whose
+         * address overlaps with its address (one of the addresses is a prefix of the other). Changes made by other
+         * clients, changes that propagate to other parts of the management model and changes of runtime attributes
+         * are only visible after the cached result expires, so this is only useful for reading configuration
+         * that is read repeatedly, e.g. by many commands. Results returned from the cache aren't reported
+         * to {@link #listener(ExecutionListener) listeners}.</p>
+         */
+        public OptionalOnlineOptions readCache(int maxEntries, long timeToLive, TimeUnit unit) {
+            if (maxEntries <= 0) {
+                throw new IllegalArgumentException("Max entries must be positive, was " + maxEntries);
+            }
+            if (timeToLive <= 0) {
+                throw new IllegalArgumentException("Time to live must be positive, was " + timeToLive);
+            }
+
+            data.readCacheMaxEntries = maxEntries;
+            data.readCacheTimeToLiveInNanos = unit.toNanos(timeToLive);
+            return this;
+        }
+
         /** Build the final {@code OnlineOptions}. */
         public OnlineOptions build() {
             return new OnlineOptions(data);
@@ -359,6 +495,29 @@ public final class OnlineOptions {
 
     // ---
 
+    /**
+     * The management endpoint as {@code host:port}. Identifies the server in messages and in caches that are shared
+     * by all clients connected to the same server.
+     */
+    String endpoint() {
+        return host + ":" + port;
+    }
+
+    /**
+     * Clients created from options with equal pool keys are interchangeable, see {@link OnlineClientPool}.
+     * Options of a wrapped client don't have a pool key, because such client can't be created again.
+     */
+    List<Object> poolKey() {
+        if (isWrappedClient) {
+            throw new IllegalArgumentException("Wrapped clients can't be pooled");
+        }
+
+        return Arrays.<Object>asList(isStandalone, isDomain, defaultProfile, defaultHost, host, port, protocol,
+                connectionTimeout, bootTimeout, username, password, localAuthDisabled, sslOptions, httpMaxConnections,
+                httpKeepAlive, autoBatch, retryPolicy, listeners, readCacheMaxEntries,
+                readCacheTimeToLiveInNanos);
+    }
+
     ModelControllerClient createModelControllerClient() throws IOException {
         if (wrappedModelControllerClient != null) {
             return wrappedModelControllerClient;
@@ -402,9 +561,9 @@ public final class OnlineOptions {
 
         if (protocol == ManagementProtocol.HTTP || protocol == ManagementProtocol.HTTPS) {
             modelControllerClient = new HttpModelControllerClient(host, port, username, password, connectionTimeout,
-                    sslOptions);
+                    sslOptions, httpMaxConnections, httpKeepAlive);
             try {
-                connectAndWaitUntilServerBoots(modelControllerClient, connectionTimeout, bootTimeout);
+                connectAndWaitUntilServerBoots(modelControllerClient, connectionTimeout, bootTimeout, retryPolicy);
             } catch (Exception e) {
                 modelControllerClient.close();
 
@@ -461,7 +620,7 @@ public final class OnlineOptions {
         }
 
         try {
-            connectAndWaitUntilServerBoots(modelControllerClient, connectionTimeout, bootTimeout);
+            connectAndWaitUntilServerBoots(modelControllerClient, connectionTimeout, bootTimeout, retryPolicy);
         } catch (Exception e) {
             modelControllerClient.close();
 
@@ -478,25 +637,24 @@ public final class OnlineOptions {
     }
 
     private static void connectAndWaitUntilServerBoots(ModelControllerClient client, int connectionTimeoutInMillis,
-                                                       int bootTimeoutInMillis)
+                                                       int bootTimeoutInMillis, RetryPolicy retryPolicy)
             throws IOException, InterruptedException, TimeoutException {
         ModelNode op = new ModelNode();
         op.get(Constants.OP).set(Constants.WHOAMI);
         op.get(Constants.OP_ADDR).setEmptyList();
 
-        long endTime = System.currentTimeMillis() + connectionTimeoutInMillis;
-        while (System.currentTimeMillis() < endTime) {
+        RetryPolicy.Attempts connectAttempts = retryPolicy.start(connectionTimeoutInMillis);
+        while (connectAttempts.next()) {
             try {
                 client.execute(op);
                 break;
             } catch (IOException e) {
                 // server is probably not up yet, keep waiting
-                Thread.sleep(100);
             }
         }
 
-        endTime = System.currentTimeMillis() + bootTimeoutInMillis;
-        while (System.currentTimeMillis() < endTime) {
+        RetryPolicy.Attempts bootAttempts = retryPolicy.start(bootTimeoutInMillis);
+        while (bootAttempts.next()) {
             ModelNodeResult result = new ModelNodeResult(client.execute(op));
 
             if (result.isSuccess()) {
@@ -513,18 +671,13 @@ public final class OnlineOptions {
                 }
             }
 
-            if (stillBooting) {
-                Thread.sleep(100);
-            } else {
+            if (!stillBooting) {
                 // shouldn't happen
                 throw new IllegalStateException("Unknown server state: " + failureDescription);
             }
         }
 
-        ModelNodeResult result = new ModelNodeResult(client.execute(op));
-        if (!result.isSuccess()) {
-            throw new TimeoutException("Waiting for server to boot timed out");
-        }
+        throw bootAttempts.timeout("Waiting for server to boot timed out");
     }
 
     static {
@@ -538,6 +691,16 @@ public final class OnlineOptions {
             protected OnlineManagementClient createLazy(OnlineOptions options) {
                 return new LazyOnlineManagementClient(options);
             }
+
+            @Override
+            protected OnlineFleet createFleet(List<OnlineOptions> options, int maxParallelism) {
+                return OnlineFleet.connect(options, maxParallelism);
+            }
+
+            @Override
+            protected OnlineClientPool createPool(int maxIdleClientsPerServer) {
+                return OnlineClientPool.create(maxIdleClientsPerServer);
+            }
         });
     }
 }
@@ -2,12 +2,20 @@ package org.wildfly.extras.creaper.core.online;
 
 import org.jboss.as.controller.client.ModelControllerClient;
 import org.jboss.dmr.ModelNode;
+import org.jboss.logging.Logger;
 import org.wildfly.extras.creaper.core.ManagementVersionPart;
 import org.wildfly.extras.creaper.core.ServerVersion;
 
 import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 final class OnlineServerVersion {
+    private static final Logger log = Logger.getLogger(OnlineManagementClient.class);
+
+    /** The first strategy that worked for given endpoint (host:port), so that the others aren't tried again. */
+    private static final ConcurrentMap<String, Strategy> KNOWN_STRATEGIES = new ConcurrentHashMap<String, Strategy>();
+
     private OnlineServerVersion() {} // avoid instantiation
 
     /**
@@ -15,21 +23,41 @@ final class OnlineServerVersion {
      * @throws IOException if an I/O error occurs during any management operation
      */
     static ServerVersion discover(ModelControllerClient client) throws IOException {
-        ModelNode op = new ModelNode();
-        op.get(Constants.OP).set(Constants.READ_RESOURCE_OPERATION);
-        op.get(Constants.OP_ADDR).setEmptyList();
-        // this would be preferrable, as it means transferring less data, but it is not supported on older versions
-        //op.get(Constants.ATTRIBUTES_ONLY).set(true);
-
-        ModelNodeResult result = new ModelNodeResult(client.execute(op));
-        result.assertSuccess();
-
-        ModelNode resultValue = result.get(Constants.RESULT);
-        return ServerVersion.from(
-                readPart(resultValue, ManagementVersionPart.MAJOR),
-                readPart(resultValue, ManagementVersionPart.MINOR),
-                readPart(resultValue, ManagementVersionPart.MICRO)
-        );
+        return discover(client, null);
+    }
+
+    /**
+     * Returns the management version of the server which the {@code client} is connected to. The strategy that
+     * works for the server is remembered for the {@code endpoint} (if not {@code null}), so that reconnecting
+     * and creating other clients for the same server doesn't need to try the strategies that don't work.
+     * @throws IOException if an I/O error occurs during any management operation
+     */
+    static ServerVersion discover(ModelControllerClient client, String endpoint) throws IOException {
+        Strategy firstStrategy = endpoint != null ? KNOWN_STRATEGIES.get(endpoint) : null;
+        if (firstStrategy == null) {
+            firstStrategy = Strategy.values()[0];
+        }
+
+        for (Strategy strategy : Strategy.values()) {
+            if (strategy.ordinal() < firstStrategy.ordinal()) {
+                continue;
+            }
+
+            ModelNode versionAttributes = strategy.readVersionAttributes(client);
+            if (versionAttributes != null) {
+                if (endpoint != null && strategy != firstStrategy) {
+                    KNOWN_STRATEGIES.put(endpoint, strategy);
+                }
+                return ServerVersion.from(
+                        readPart(versionAttributes, ManagementVersionPart.MAJOR),
+                        readPart(versionAttributes, ManagementVersionPart.MINOR),
+                        readPart(versionAttributes, ManagementVersionPart.MICRO)
+                );
+            }
+            log.debugf("Server version discovery strategy %s doesn't work, trying another one", strategy);
+        }
+
+        throw new AssertionError("The last strategy always either succeeds or fails with an exception");
     }
 
     /** Returns the value of the {@code part} from the management model or 0 if it doesn't exist. */
@@ -40,4 +68,73 @@ final class OnlineServerVersion {
             return 0;
         }
     }
+
+    /** Ordered from the cheapest to the most widely supported. */
+    private enum Strategy {
+        /**
+         * A {@code composite} of {@code read-attribute} operations, transferring just the 3 numbers. Doesn't work
+         * with servers that lack some of the attributes (AS 7.1 and older).
+         */
+        READ_ATTRIBUTES {
+            @Override
+            ModelNode readVersionAttributes(ModelControllerClient client) throws IOException {
+                ModelNode op = new ModelNode();
+                op.get(Constants.OP).set(Constants.COMPOSITE);
+                op.get(Constants.OP_ADDR).setEmptyList();
+                for (ManagementVersionPart part : ManagementVersionPart.values()) {
+                    ModelNode step = new ModelNode();
+                    step.get(Constants.OP).set(Constants.READ_ATTRIBUTE_OPERATION);
+                    step.get(Constants.OP_ADDR).setEmptyList();
+                    step.get(Constants.NAME).set(part.attributeName());
+                    op.get(Constants.STEPS).add(step);
+                }
+
+                ModelNodeResult result = new ModelNodeResult(client.execute(op));
+                if (!result.isSuccess() || !result.hasDefined(Constants.RESULT)) {
+                    return null;
+                }
+
+                ModelNode steps = result.get(Constants.RESULT);
+                ModelNode versionAttributes = new ModelNode();
+                int stepNumber = 1;
+                for (ManagementVersionPart part : ManagementVersionPart.values()) {
+                    String stepName = "step-" + stepNumber++;
+                    if (!steps.hasDefined(stepName) || !steps.get(stepName).hasDefined(Constants.RESULT)) {
+                        return null;
+                    }
+                    versionAttributes.get(part.attributeName()).set(steps.get(stepName).get(Constants.RESULT));
+                }
+                return versionAttributes;
+            }
+        },
+        /** {@code read-resource} of the root resource with {@code attributes-only}; not supported on AS 7.0. */
+        ATTRIBUTES_ONLY {
+            @Override
+            ModelNode readVersionAttributes(ModelControllerClient client) throws IOException {
+                ModelNode op = new ModelNode();
+                op.get(Constants.OP).set(Constants.READ_RESOURCE_OPERATION);
+                op.get(Constants.OP_ADDR).setEmptyList();
+                op.get(Constants.ATTRIBUTES_ONLY).set(true);
+
+                ModelNodeResult result = new ModelNodeResult(client.execute(op));
+                return result.isSuccess() ? result.get(Constants.RESULT) : null;
+            }
+        },
+        /** Full {@code read-resource} of the root resource; this always works, but transfers a lot of data. */
+        READ_RESOURCE {
+            @Override
+            ModelNode readVersionAttributes(ModelControllerClient client) throws IOException {
+                ModelNode op = new ModelNode();
+                op.get(Constants.OP).set(Constants.READ_RESOURCE_OPERATION);
+                op.get(Constants.OP_ADDR).setEmptyList();
+
+                ModelNodeResult result = new ModelNodeResult(client.execute(op));
+                result.assertSuccess();
+                return result.get(Constants.RESULT);
+            }
+        };
+
+        /** Returns a node with the management version attributes, or {@code null} if this strategy doesn't work. */
+        abstract ModelNode readVersionAttributes(ModelControllerClient client) throws IOException;
+    }
 }
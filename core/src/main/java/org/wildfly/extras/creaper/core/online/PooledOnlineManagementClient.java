@@ -0,0 +1,123 @@
+package org.wildfly.extras.creaper.core.online;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.jboss.as.controller.client.Operation;
+import org.jboss.dmr.ModelNode;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.ServerVersion;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A client leased from an {@link OnlineClientPool}. Delegates to a pooled client; closing it returns the pooled
+ * client to the pool instead of closing it.
+ */
+final class PooledOnlineManagementClient implements OnlineManagementClient {
+    private final OnlineClientPool pool;
+    private final List<Object> key;
+    private final OnlineOptions options;
+    private final OnlineManagementClient delegate;
+
+    private ThisIsWhereTheClientWasClosed closedAt; // != null <=> already returned to the pool
+
+    PooledOnlineManagementClient(OnlineClientPool pool, List<Object> key, OnlineOptions options,
+                                 OnlineManagementClient delegate) {
+        this.pool = pool;
+        this.key = key;
+        this.options = options;
+        this.delegate = delegate;
+    }
+
+    private void checkClosed() {
+        if (closedAt != null) {
+            throw new ClientAlreadyClosedException(closedAt);
+        }
+    }
+
+    @Override
+    public OnlineOptions options() {
+        return options;
+    }
+
+    @Override
+    public ServerVersion version() throws IOException {
+        return delegate.version();
+    }
+
+    @Override
+    public void apply(OnlineCommand... commands) throws CommandFailedException {
+        checkClosed();
+        delegate.apply(commands);
+    }
+
+    @Override
+    public void apply(Iterable<OnlineCommand> commands) throws CommandFailedException {
+        checkClosed();
+        delegate.apply(commands);
+    }
+
+    @Override
+    public ModelNodeResult execute(ModelNode operation) throws IOException {
+        checkClosed();
+        return delegate.execute(operation);
+    }
+
+    @Override
+    public ModelNodeResult execute(Operation operation) throws IOException {
+        checkClosed();
+        return delegate.execute(operation);
+    }
+
+    @Override
+    public ModelNodeResult execute(String operation) throws CliException, IOException {
+        checkClosed();
+        return delegate.execute(operation);
+    }
+
+    @Override
+    public ListenableFuture<ModelNodeResult> executeAsync(ModelNode operation) throws IOException {
+        checkClosed();
+        return delegate.executeAsync(operation);
+    }
+
+    @Override
+    public ListenableFuture<ModelNodeResult> executeAsync(Operation operation) throws IOException {
+        checkClosed();
+        return delegate.executeAsync(operation);
+    }
+
+    @Override
+    public ListenableFuture<ModelNodeResult> executeAsync(String operation) throws CliException, IOException {
+        checkClosed();
+        return delegate.executeAsync(operation);
+    }
+
+    @Override
+    public void executeCli(String cliOperation) throws CliException, IOException {
+        checkClosed();
+        delegate.executeCli(cliOperation);
+    }
+
+    @Override
+    public void reconnect(int timeoutInSeconds) throws TimeoutException, InterruptedException {
+        checkClosed();
+        delegate.reconnect(timeoutInSeconds);
+    }
+
+    @Override
+    public FailuresAllowedBlock allowFailures() throws IOException {
+        checkClosed();
+        return delegate.allowFailures();
+    }
+
+    /** Returns the client to the pool. Closing an already closed client has no effect. */
+    @Override
+    public void close() throws IOException {
+        if (closedAt == null) {
+            closedAt = new ThisIsWhereTheClientWasClosed();
+            pool.release(key, delegate);
+        }
+    }
+}
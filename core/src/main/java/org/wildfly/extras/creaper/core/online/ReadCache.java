@@ -0,0 +1,239 @@
+package org.wildfly.extras.creaper.core.online;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableSet;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.dmr.Property;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Results of successful read operations executed by {@link OnlineManagementClientImpl} when
+ * {@link OnlineOptions.OptionalOnlineOptions#readCache(int, long, java.util.concurrent.TimeUnit) read cache}
+ * is enabled. Only {@code read-attribute}, {@code read-children-names} and {@code read-resource} operations
+ * without operation headers and without {@code include-runtime} are cached, and only if they don't read
+ * an attribute that is known to reflect the server state. The cache key is the entire operation.</p>
+ *
+ * <p>Each operation that isn't read-only invalidates all cached results of operations whose address
+ * <i>overlaps</i> with the operation's address; that is, one of the addresses is a prefix of the other
+ * (a wildcard matches any value). This covers reading a resource or its children after writing to it, adding
+ * or removing it, and reading a child resource after removing its parent. Changes that propagate elsewhere
+ * in the management model (e.g. from a profile to the servers in a managed domain) or that were done by other
+ * clients are only reflected when the cached result expires.</p>
+ *
+ * <p>A read operation that runs concurrently with an operation that invalidates the cache might return a result
+ * from before the change. To avoid caching such stale result, the cache keeps a counter of invalidations
+ * (a {@link #generation() generation}) that is obtained before the read operation is executed; if any invalidation
+ * happened in the meantime, the result isn't cached.</p>
+ *
+ * <p>Results returned from the cache aren't reported to {@link ExecutionListener}s, because no operation
+ * is executed.</p>
+ *
+ * <p>This class is thread safe.</p>
+ */
+final class ReadCache {
+    private static final Set<String> CACHED_OPERATIONS = ImmutableSet.of(
+            Constants.READ_ATTRIBUTE_OPERATION,
+            Constants.READ_CHILDREN_NAMES_OPERATION,
+            Constants.READ_RESOURCE_OPERATION
+    );
+
+    /** These are polled when waiting for the server, so they must never be cached. */
+    private static final Set<String> SERVER_STATE_ATTRIBUTES = ImmutableSet.of(
+            Constants.HOST_STATE,
+            Constants.PROCESS_STATE,
+            Constants.SERVER_STATE,
+            Constants.STATUS,
+            "runtime-configuration-state",
+            "suspend-state"
+    );
+
+    /** In addition to all operations whose name starts with {@code read-}. */
+    private static final Set<String> READ_ONLY_OPERATIONS = ImmutableSet.of(
+            Constants.WHOAMI,
+            "query",
+            "resolve-expression",
+            "validate-address",
+            "validate-operation"
+    );
+
+    private static final String WILDCARD = "*";
+
+    private final long timeToLiveInNanos;
+    private final Ticker ticker;
+    private final Map<String, Entry> entries; // access order, the eldest entry is evicted when full
+    private long generation; // incremented by each invalidation
+
+    ReadCache(int maxEntries, long timeToLiveInNanos) {
+        this(maxEntries, timeToLiveInNanos, Ticker.systemTicker());
+    }
+
+    ReadCache(final int maxEntries, long timeToLiveInNanos, Ticker ticker) {
+        this.timeToLiveInNanos = timeToLiveInNanos;
+        this.ticker = ticker;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /** Returns a copy of the cached result of the {@code operation}, or {@code null} if there's none. */
+    synchronized ModelNodeResult get(ModelNode operation) {
+        if (!isCacheable(operation)) {
+            return null;
+        }
+
+        String key = operation.toString();
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (ticker.read() - entry.createdAtNanos >= timeToLiveInNanos) {
+            entries.remove(key);
+            return null;
+        }
+        return new ModelNodeResult(entry.result.clone());
+    }
+
+    /** Must be obtained before an operation is executed and then passed to {@link #executed}. */
+    synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Called after the {@code operation} was executed. Caches the result of a cacheable operation or invalidates
+     * the cached results affected by an operation that isn't read-only.
+     *
+     * @param result {@code null} if the operation failed with an exception
+     * @param generation the {@link #generation() generation} obtained before the operation was executed;
+     * if the cache was invalidated since then, the result might be stale and isn't cached
+     */
+    synchronized void executed(ModelNode operation, ModelNodeResult result, long generation) {
+        if (isCacheable(operation)) {
+            if (result != null && result.isSuccess() && generation == this.generation) {
+                entries.put(operation.toString(), new Entry(address(operation), result.clone(), ticker.read()));
+            }
+        } else {
+            invalidate(operation);
+        }
+    }
+
+    synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private void invalidate(ModelNode operation) {
+        String operationName = operation.hasDefined(Constants.OP) ? operation.get(Constants.OP).asString() : null;
+        if (operationName != null && isReadOnly(operationName)) {
+            return;
+        }
+
+        if (Constants.COMPOSITE.equals(operationName) && operation.hasDefined(Constants.STEPS)) {
+            for (ModelNode step : operation.get(Constants.STEPS).asList()) {
+                invalidate(step);
+            }
+            return;
+        }
+
+        generation++;
+        List<String> address = address(operation);
+        if (address == null || address.isEmpty()) {
+            entries.clear();
+            return;
+        }
+
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (overlap(address, iterator.next().address)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static boolean isCacheable(ModelNode operation) {
+        if (!operation.hasDefined(Constants.OP)
+                || !CACHED_OPERATIONS.contains(operation.get(Constants.OP).asString())
+                || operation.hasDefined(Constants.OPERATION_HEADERS)
+                || operation.hasDefined(Constants.INCLUDE_RUNTIME)
+                        && operation.get(Constants.INCLUDE_RUNTIME).asBoolean()
+                || address(operation) == null) {
+            return false;
+        }
+
+        // "get" would add the key if it didn't exist, so "hasDefined" must come first
+        return !Constants.READ_ATTRIBUTE_OPERATION.equals(operation.get(Constants.OP).asString())
+                || !operation.hasDefined(Constants.NAME)
+                || !SERVER_STATE_ATTRIBUTES.contains(operation.get(Constants.NAME).asString());
+    }
+
+    private static boolean isReadOnly(String operationName) {
+        return operationName.startsWith("read-") || READ_ONLY_OPERATIONS.contains(operationName);
+    }
+
+    /** Keys and values of the address, alternating; {@code null} if the address can't be understood. */
+    private static List<String> address(ModelNode operation) {
+        List<String> result = new ArrayList<String>();
+        if (!operation.hasDefined(Constants.OP_ADDR)) {
+            return result;
+        }
+
+        try {
+            ModelNode address = operation.get(Constants.OP_ADDR);
+            if (address.getType() == ModelType.OBJECT) {
+                for (String key : address.keys()) {
+                    result.add(key);
+                    result.add(address.get(key).asString());
+                }
+            } else {
+                for (Property element : address.asPropertyList()) {
+                    result.add(element.getName());
+                    result.add(element.getValue().asString());
+                }
+            }
+            return result;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /** Whether one of the addresses is a prefix of the other. */
+    static boolean overlap(List<String> address1, List<String> address2) {
+        int length = Math.min(address1.size(), address2.size());
+        for (int i = 0; i < length; i += 2) {
+            if (!address1.get(i).equals(address2.get(i))) {
+                return false;
+            }
+            String value1 = address1.get(i + 1);
+            String value2 = address2.get(i + 1);
+            if (!value1.equals(value2) && !WILDCARD.equals(value1) && !WILDCARD.equals(value2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Entry {
+        private final List<String> address;
+        private final ModelNode result;
+        private final long createdAtNanos;
+
+        private Entry(List<String> address, ModelNode result, long createdAtNanos) {
+            this.address = address;
+            this.result = result;
+            this.createdAtNanos = createdAtNanos;
+        }
+    }
+}
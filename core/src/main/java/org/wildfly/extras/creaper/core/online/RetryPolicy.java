@@ -0,0 +1,213 @@
+package org.wildfly.extras.creaper.core.online;
+
+import com.google.common.base.Objects;
+
+import java.util.Random;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>Determines how long to wait between repeated attempts when waiting for a server (connecting to a server that
+ * is starting, waiting for a server to boot, reconnecting after reload etc.). Configured by
+ * {@link OnlineOptions.OptionalOnlineOptions#retryPolicy(RetryPolicy) OnlineOptions.retryPolicy}.</p>
+ *
+ * <p>The delay starts at {@code initialDelay} and is multiplied by {@code multiplier} after each attempt, up to
+ * {@code maxDelay}. Each delay is randomly adjusted by up to {@code jitter} (a fraction of the delay), so that
+ * many clients waiting for the same server don't all retry at the same moment. The total time is limited by
+ * a deadline that is given by the caller (e.g. the boot timeout); the number of attempts can optionally be limited
+ * too.</p>
+ *
+ * <p>Instances are immutable and can be shared.</p>
+ */
+public final class RetryPolicy {
+    private static final Random RANDOM = new Random();
+
+    /** Starts at 100 ms, doubles the delay after each attempt up to 1 second, jitter 10 %, unlimited attempts. */
+    public static final RetryPolicy DEFAULT = new Builder().build();
+
+    private final long initialDelay;
+    private final long maxDelay;
+    private final double multiplier;
+    private final double jitter;
+    private final int maxAttempts; // 0 <=> unlimited
+
+    private RetryPolicy(Builder builder) {
+        this.initialDelay = builder.initialDelay;
+        this.maxDelay = builder.maxDelay;
+        this.multiplier = builder.multiplier;
+        this.jitter = builder.jitter;
+        this.maxAttempts = builder.maxAttempts;
+    }
+
+    /** Retries with the same {@code delayInMillis} between all attempts, unlimited attempts. */
+    public static RetryPolicy fixedDelay(long delayInMillis) {
+        return new Builder().initialDelay(delayInMillis).maxDelay(delayInMillis).multiplier(1).jitter(0).build();
+    }
+
+    /**
+     * Starts a new sequence of attempts that must finish in {@code timeoutInMillis}.
+     * A timeout {@code <= 0} means that only a single attempt is made.
+     */
+    public Attempts start(long timeoutInMillis) {
+        return new Attempts(this, System.currentTimeMillis() + Math.max(timeoutInMillis, 0));
+    }
+
+    /** The delay before given attempt (the first attempt is 1, it has no delay), without jitter. */
+    long baseDelayBefore(int attempt) {
+        if (attempt <= 1) {
+            return 0;
+        }
+        double delay = initialDelay * Math.pow(multiplier, attempt - 2);
+        return (long) Math.min(delay, maxDelay);
+    }
+
+    long delayBefore(int attempt) {
+        long delay = baseDelayBefore(attempt);
+        if (jitter > 0 && delay > 0) {
+            double adjustment = (RANDOM.nextDouble() * 2 - 1) * jitter * delay;
+            delay = Math.max(0, Math.round(delay + adjustment));
+        }
+        return delay;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        RetryPolicy that = (RetryPolicy) o;
+
+        return initialDelay == that.initialDelay
+                && maxDelay == that.maxDelay
+                && Double.compare(multiplier, that.multiplier) == 0
+                && Double.compare(jitter, that.jitter) == 0
+                && maxAttempts == that.maxAttempts;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(initialDelay, maxDelay, multiplier, jitter, maxAttempts);
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{initialDelay=" + initialDelay + " ms, maxDelay=" + maxDelay + " ms, multiplier="
+                + multiplier + ", jitter=" + jitter + ", maxAttempts=" + (maxAttempts > 0 ? maxAttempts : "unlimited")
+                + "}";
+    }
+
+    /**
+     * A single sequence of attempts. Meant to be used like this:
+     *
+     * <pre>
+     * RetryPolicy.Attempts attempts = retryPolicy.start(timeout);
+     * boolean done = false;
+     * while (!done &amp;&amp; attempts.next()) {
+     *     done = tryIt();
+     * }
+     * if (!done) {
+     *     throw attempts.timeout("Waiting for it timed out");
+     * }
+     * </pre>
+     */
+    public static final class Attempts {
+        private final RetryPolicy policy;
+        private final long startTime;
+        private final long deadline;
+        private int attempts;
+
+        private Attempts(RetryPolicy policy, long deadline) {
+            this.policy = policy;
+            this.startTime = System.currentTimeMillis();
+            this.deadline = deadline;
+        }
+
+        /**
+         * Waits before the next attempt (except of the first one) and returns {@code true} if the next attempt
+         * should be made, or returns {@code false} immediately if the deadline has passed or the maximum number
+         * of attempts was reached. The last delay is shortened so that the last attempt happens at the deadline.
+         */
+        public boolean next() throws InterruptedException {
+            if (attempts == 0) {
+                attempts++;
+                return true;
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0 || (policy.maxAttempts > 0 && attempts >= policy.maxAttempts)) {
+                return false;
+            }
+
+            Thread.sleep(Math.min(policy.delayBefore(attempts + 1), remaining));
+            attempts++;
+            return true;
+        }
+
+        /** Number of attempts made so far. */
+        public int count() {
+            return attempts;
+        }
+
+        /** Returns a {@code TimeoutException} with the {@code message} and the number of attempts and time spent. */
+        public TimeoutException timeout(String message) {
+            return new TimeoutException(message + " (" + attempts + " attempt" + (attempts == 1 ? "" : "s")
+                    + " in " + (System.currentTimeMillis() - startTime) + " ms)");
+        }
+    }
+
+    public static final class Builder {
+        private long initialDelay = 100;
+        private long maxDelay = 1000;
+        private double multiplier = 2;
+        private double jitter = 0.1;
+        private int maxAttempts;
+
+        /** Delay before the second attempt. In milliseconds. Default: {@code 100}. */
+        public Builder initialDelay(long delayInMillis) {
+            if (delayInMillis < 0) {
+                throw new IllegalArgumentException("Initial delay must not be negative, was " + delayInMillis);
+            }
+            this.initialDelay = delayInMillis;
+            return this;
+        }
+
+        /** Maximum delay between attempts. In milliseconds. Default: {@code 1000}. */
+        public Builder maxDelay(long delayInMillis) {
+            if (delayInMillis < 0) {
+                throw new IllegalArgumentException("Max delay must not be negative, was " + delayInMillis);
+            }
+            this.maxDelay = delayInMillis;
+            return this;
+        }
+
+        /** The delay is multiplied by this after each attempt. Must be at least 1. Default: {@code 2}. */
+        public Builder multiplier(double multiplier) {
+            if (multiplier < 1) {
+                throw new IllegalArgumentException("Multiplier must be at least 1, was " + multiplier);
+            }
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /** Random adjustment of each delay, as a fraction of the delay (from 0 to 1). Default: {@code 0.1}. */
+        public Builder jitter(double jitter) {
+            if (jitter < 0 || jitter > 1) {
+                throw new IllegalArgumentException("Jitter must be between 0 and 1, was " + jitter);
+            }
+            this.jitter = jitter;
+            return this;
+        }
+
+        /** Maximum number of attempts, regardless of the deadline. A value {@code <= 0} means "unlimited". */
+        public Builder maxAttempts(int maxAttempts) {
+            this.maxAttempts = Math.max(maxAttempts, 0);
+            return this;
+        }
+
+        public RetryPolicy build() {
+            if (maxDelay < initialDelay) {
+                throw new IllegalArgumentException("Max delay must not be lower than initial delay");
+            }
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.wildfly.extras.creaper.core.online;
 
+import com.google.common.base.Objects;
 import com.google.common.io.ByteSource;
 import com.google.common.io.Closeables;
 import com.google.common.io.Files;
@@ -31,12 +32,14 @@ public final class SslOptions {
     final SslProtocol protocol;
 
     final ByteSource keyStoreSource;
+    private final String keyStoreLocation; // for equals/hashCode, ByteSource doesn't implement them
     final String keyStorePassword;
     final KeyStoreType keyStoreType;
     final String keyAlias;
     final String keyPassword;
 
     final ByteSource trustStoreSource;
+    private final String trustStoreLocation;
     final String trustStorePassword;
     final KeyStoreType trustStoreType;
     final boolean hostnameVerification;
@@ -46,28 +49,58 @@ public final class SslOptions {
         this.protocol = builder.protocol != null ? builder.protocol : DEFAULT_PROTOCOL;
 
         this.keyStoreSource = builder.keyStoreSource;
+        this.keyStoreLocation = builder.keyStoreLocation;
         this.keyStorePassword = builder.keyStorePassword;
         this.keyStoreType = builder.keyStoreType != null ? builder.keyStoreType : KeyStoreType.DEFAULT_TYPE;
         this.keyAlias = builder.keyAlias;
         this.keyPassword = builder.keyPassword;
 
         this.trustStoreSource = builder.trustStoreSource;
+        this.trustStoreLocation = builder.trustStoreLocation;
         this.trustStorePassword = builder.trustStorePassword;
         this.trustStoreType = builder.trustStoreType != null ? builder.trustStoreType : KeyStoreType.DEFAULT_TYPE;
         this.hostnameVerification = builder.hostnameVerification;
     }
 
+    /** Two {@code SslOptions} are equal if they use the same settings and the same keystore and truststore files. */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        SslOptions that = (SslOptions) o;
+
+        return protocol == that.protocol
+                && Objects.equal(keyStoreLocation, that.keyStoreLocation)
+                && Objects.equal(keyStorePassword, that.keyStorePassword)
+                && keyStoreType == that.keyStoreType
+                && Objects.equal(keyAlias, that.keyAlias)
+                && Objects.equal(keyPassword, that.keyPassword)
+                && Objects.equal(trustStoreLocation, that.trustStoreLocation)
+                && Objects.equal(trustStorePassword, that.trustStorePassword)
+                && trustStoreType == that.trustStoreType
+                && hostnameVerification == that.hostnameVerification;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(protocol, keyStoreLocation, keyStorePassword, keyStoreType, keyAlias, keyPassword,
+                trustStoreLocation, trustStorePassword, trustStoreType, hostnameVerification);
+    }
+
 
     public static final class Builder {
         private SslProtocol protocol;
 
         private ByteSource keyStoreSource;
+        private String keyStoreLocation;
         private String keyStorePassword;
         private KeyStoreType keyStoreType;
         private String keyAlias;
         private String keyPassword;
 
         private ByteSource trustStoreSource;
+        private String trustStoreLocation;
         private String trustStorePassword;
         private KeyStoreType trustStoreType;
         private boolean hostnameVerification = true;
@@ -85,6 +118,7 @@ public final class SslOptions {
             }
 
             this.keyStoreSource = Files.asByteSource(file);
+            this.keyStoreLocation = file.getAbsolutePath();
             return this;
         }
 
@@ -106,6 +140,7 @@ public final class SslOptions {
 
             URL url = Resources.getResource(resourceLoader, path);
             this.keyStoreSource = Resources.asByteSource(url);
+            this.keyStoreLocation = url.toExternalForm();
             return this;
         }
 
@@ -138,6 +173,7 @@ public final class SslOptions {
             }
 
             this.trustStoreSource = Files.asByteSource(file);
+            this.trustStoreLocation = file.getAbsolutePath();
             return this;
         }
 
@@ -159,6 +195,7 @@ public final class SslOptions {
 
             URL url = Resources.getResource(resourceLoader, path);
             this.trustStoreSource = Resources.asByteSource(url);
+            this.trustStoreLocation = url.toExternalForm();
             return this;
         }
 
@@ -3,10 +3,6 @@ package org.wildfly.extras.creaper.core.online.operations;
 import org.jboss.dmr.ModelNode;
 import org.wildfly.extras.creaper.core.online.Constants;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
 /**
  * <p>An address in the management tree. It is a sequence of string pairs ({@code key=value}), possibly empty. This
  * class is immutable and its only public API consists of various ways of <i>creating</i> an address and method for
@@ -34,10 +30,13 @@ import java.util.List;
  * {@code Address.of("foo", "bar").and("baz", "quux")}</p>
  */
 public final class Address {
-    private final List<StringPair> address;
+    private static final Address ROOT = new Address(AppendOnlyList.<StringPair>empty());
+
+    private final AppendOnlyList<StringPair> address; // appending is cheap, see AppendOnlyList
+    private volatile ModelNode modelNode; // lazily created, protected against modification
 
     public static Address root() {
-        return new Address(Collections.<StringPair>emptyList());
+        return ROOT;
     }
 
     public static Address extension(String extension) {
@@ -65,24 +64,31 @@ public final class Address {
     }
 
     public static Address of(String key, String value) {
-        return new Address(Collections.singletonList(new StringPair(key, value)));
+        return ROOT.and(key, value);
     }
 
-    private Address(List<StringPair> address) {
-        this.address = Collections.unmodifiableList(address);
+    private Address(AppendOnlyList<StringPair> address) {
+        this.address = address;
     }
 
     public Address and(String key, String value) {
-        List<StringPair> newAddress = new ArrayList<StringPair>(this.address);
-        newAddress.add(new StringPair(key, value));
-        return new Address(newAddress);
+        return new Address(address.append(new StringPair(key, value)));
     }
 
+    /**
+     * The result is created only once and is protected against modification; {@code ModelNode.set} copies it,
+     * so it can be directly used to set the address of an operation.
+     */
     ModelNode toModelNode() {
-        ModelNode result = new ModelNode();
-        result.setEmptyList();
-        for (StringPair pair : address) {
-            result.add(pair.key, pair.value);
+        ModelNode result = modelNode;
+        if (result == null) {
+            result = new ModelNode();
+            result.setEmptyList();
+            for (StringPair pair : address) {
+                result.add(pair.key, pair.value);
+            }
+            result.protect();
+            modelNode = result;
         }
         return result;
     }
@@ -99,6 +105,46 @@ public final class Address {
         }
     }
 
+    boolean isRoot() {
+        return address.isEmpty();
+    }
+
+    /** Number of {@code key=value} pairs. */
+    int length() {
+        return address.size();
+    }
+
+    String keyAt(int index) {
+        return address.get(index).key;
+    }
+
+    String valueAt(int index) {
+        return address.get(index).value;
+    }
+
+    /** Must not be called on the root address. */
+    Address parent() {
+        AppendOnlyList<StringPair> parent = AppendOnlyList.empty();
+        for (int i = 0; i < address.size() - 1; i++) {
+            parent = parent.append(address.get(i));
+        }
+        return new Address(parent);
+    }
+
+    /** Must not be called on the root address. */
+    String getLastPairKey() {
+        return address.get(address.size() - 1).key;
+    }
+
+    boolean containsWildcard() {
+        for (StringPair pair : address) {
+            if ("*".equals(pair.value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public String toString() {
         if (address.isEmpty()) {
@@ -0,0 +1,96 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import com.google.common.collect.UnmodifiableIterator;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>An immutable list that can be appended to in amortized constant time. Appending creates a new list that shares
+ * the backing array with the original list, if the original list is the last one that was appended to; this is
+ * what happens when building {@link Values} or {@link Address} using a chain of {@code and} calls. If the original
+ * list was already appended to (that is, one list is used as a common prefix of several other lists), the elements
+ * are copied to a new backing array.</p>
+ *
+ * <p>Lists never see elements appended by other lists that share the backing array, because each list only reads
+ * elements up to its own size. This class is thread safe.</p>
+ */
+final class AppendOnlyList<E> implements Iterable<E> {
+    private static final AppendOnlyList<Object> EMPTY = new AppendOnlyList<Object>(new Object[0], new Tip(0), 0);
+
+    private final Object[] elements;
+    private final Tip tip; // shared by all lists that have the same backing array
+    private final int size;
+
+    @SuppressWarnings("unchecked")
+    static <E> AppendOnlyList<E> empty() {
+        return (AppendOnlyList<E>) EMPTY;
+    }
+
+    private AppendOnlyList(Object[] elements, Tip tip, int size) {
+        this.elements = elements;
+        this.tip = tip;
+        this.size = size;
+    }
+
+    AppendOnlyList<E> append(E element) {
+        synchronized (tip) {
+            if (tip.size == size && size < elements.length) {
+                elements[size] = element;
+                tip.size++;
+                return new AppendOnlyList<E>(elements, tip, size + 1);
+            }
+        }
+
+        Object[] newElements = new Object[Math.max(4, size * 2)];
+        System.arraycopy(elements, 0, newElements, 0, size);
+        newElements[size] = element;
+        return new AppendOnlyList<E>(newElements, new Tip(size + 1), size + 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    E get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        return (E) elements[index];
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new UnmodifiableIterator<E>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return (E) elements[next++];
+            }
+        };
+    }
+
+    /** Number of elements used in the backing array. */
+    private static final class Tip {
+        private int size;
+
+        private Tip(int size) {
+            this.size = size;
+        }
+    }
+}
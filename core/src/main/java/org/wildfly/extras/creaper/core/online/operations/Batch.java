@@ -5,11 +5,13 @@ import org.wildfly.extras.creaper.core.online.Constants;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * <p>Builds a list of management operations that will be executed as a batch (composite). Doesn't actually provide
- * a way to execute the batch, this is handled by {@link Operations#batch(Batch)}.</p>
+ * a way to execute the batch, this is handled by {@link Operations#batch(Batch)}, or by {@link BatchExecutor}
+ * for very large batches.</p>
  *
  * <p>The builder is fluent. That is, all methods return {@code this}, which allows creating a batch in a single
  * statement:</p>
@@ -148,9 +150,22 @@ public final class Batch implements SharedCommonOperations<Batch> {
         return this;
     }
 
+    /** Number of operations in this batch. */
+    public int size() {
+        return operations.size();
+    }
+
     // ---
 
+    List<ModelNode> operations() {
+        return Collections.unmodifiableList(operations);
+    }
+
     ModelNode toModelNode() {
+        return toModelNode(operations);
+    }
+
+    static ModelNode toModelNode(List<ModelNode> operations) {
         ModelNode composite = new ModelNode();
         composite.get(Constants.OP).set(Constants.COMPOSITE);
         composite.get(Constants.OP_ADDR).setEmptyList();
@@ -0,0 +1,298 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.jboss.dmr.ModelNode;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+
+import java.io.Closeable;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * <p>Executes a large {@link Batch} as a sequence of smaller {@code composite} operations (chunks), as opposed
+ * to {@link Operations#batch(Batch)}, which executes the entire batch as a single {@code composite} operation.
+ * A failure of one chunk only rolls back the operations in that chunk.</p>
+ *
+ * <p>The batch is split into chunks of at most {@link Builder#maxStepsPerChunk(int) maxStepsPerChunk} operations
+ * and optionally at most {@link Builder#maxChunkSizeInBytes(long) maxChunkSizeInBytes} bytes (as measured
+ * by the size of the operations in the binary DMR format). Chunks are executed one after another, as the results
+ * are being {@link Results#next() read}. With {@link Builder#maxChunksInFlight(int) maxChunksInFlight} higher than
+ * 1, the next chunks are executed asynchronously while the results of the previous chunk are being read.
+ * Chunks in flight are executed concurrently, so the server might execute them in any order; this is only safe
+ * when the chunks are independent of each other. Results are always returned in the order of the batch.
+ * Only the results of the chunks that are in flight are held in memory.</p>
+ *
+ * <pre>
+ * BatchExecutor executor = new BatchExecutor.Builder(client).maxStepsPerChunk(200).build();
+ * BatchExecutor.Results results = executor.execute(batch);
+ * try {
+ *     while (results.hasNext()) {
+ *         results.next().assertSuccess();
+ *     }
+ * } finally {
+ *     results.close();
+ * }
+ * </pre>
+ */
+public final class BatchExecutor {
+    private final OnlineManagementClient client;
+    private final int maxStepsPerChunk;
+    private final long maxChunkSizeInBytes;
+    private final int maxChunksInFlight;
+    private final boolean stopOnFailure;
+
+    private BatchExecutor(Builder builder) {
+        this.client = builder.client;
+        this.maxStepsPerChunk = builder.maxStepsPerChunk;
+        this.maxChunkSizeInBytes = builder.maxChunkSizeInBytes;
+        this.maxChunksInFlight = builder.maxChunksInFlight;
+        this.stopOnFailure = builder.stopOnFailure;
+    }
+
+    /**
+     * Starts executing the {@code batch}. The batch must not be modified until all the results are read
+     * or the {@code Results} are closed.
+     */
+    public Results execute(Batch batch) throws IOException {
+        Results results = new Results(chunks(batch.operations()), batch.size());
+        results.submitChunks();
+        return results;
+    }
+
+    List<List<ModelNode>> chunks(List<ModelNode> operations) {
+        List<List<ModelNode>> chunks = new ArrayList<List<ModelNode>>();
+        int chunkStart = 0;
+        long chunkSize = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            long operationSize = maxChunkSizeInBytes > 0 ? sizeOf(operations.get(i)) : 0;
+            boolean chunkFull = i - chunkStart >= maxStepsPerChunk
+                    || maxChunkSizeInBytes > 0 && chunkSize + operationSize > maxChunkSizeInBytes;
+            if (chunkFull && i > chunkStart) {
+                chunks.add(operations.subList(chunkStart, i));
+                chunkStart = i;
+                chunkSize = 0;
+            }
+            chunkSize += operationSize;
+        }
+        if (chunkStart < operations.size()) {
+            chunks.add(operations.subList(chunkStart, operations.size()));
+        }
+        return chunks;
+    }
+
+    /** Size of the operation in the binary DMR format, which is what the native management protocol uses. */
+    static long sizeOf(ModelNode operation) {
+        CountingOutputStream counter = new CountingOutputStream(ByteStreams.nullOutputStream());
+        try {
+            operation.writeExternal((DataOutput) new DataOutputStream(counter));
+        } catch (IOException e) {
+            throw new AssertionError("Writing to a null output stream can't fail");
+        }
+        return counter.getCount();
+    }
+
+    /**
+     * Results of individual operations of the batch, in the same order as the operations were added to the batch.
+     * If a chunk fails, results of all operations in the chunk are failed (typically, one of them contains
+     * the actual failure and the others are rolled back). Not thread safe.
+     */
+    public final class Results implements Closeable {
+        private final List<List<ModelNode>> chunks;
+        private final int totalSteps;
+        private final Deque<ListenableFuture<ModelNodeResult>> inFlight =
+                new ArrayDeque<ListenableFuture<ModelNodeResult>>();
+        private int submittedChunks;
+        private int currentChunk = -1;
+        private ModelNodeResult currentChunkResult;
+        private int nextStep; // 1-based, as in "step-1"
+        private int readSteps;
+        private boolean stopped;
+
+        private Results(List<List<ModelNode>> chunks, int totalSteps) {
+            this.chunks = chunks;
+            this.totalSteps = totalSteps;
+        }
+
+        public boolean hasNext() throws IOException {
+            while (currentChunkResult == null || nextStep > chunks.get(currentChunk).size()) {
+                if (stopped || currentChunk + 1 >= chunks.size()) {
+                    return false;
+                }
+                nextChunk();
+            }
+            return true;
+        }
+
+        /** Returns the result of the next operation, executing the next chunk if needed. */
+        public ModelNodeResult next() throws IOException {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            readSteps++;
+            return stepResult(currentChunkResult, nextStep++);
+        }
+
+        /**
+         * Number of operations whose results weren't returned and won't be returned by {@link #next()}; that is,
+         * operations in chunks that weren't executed because a chunk failed and
+         * {@link Builder#stopOnFailure() stopOnFailure} is enabled, or because the results were closed.
+         * Only meaningful after {@link #hasNext()} returned {@code false} or after {@link #close()}.
+         */
+        public int skippedSteps() {
+            return totalSteps - readSteps - (currentChunkResult != null
+                    ? chunks.get(currentChunk).size() - nextStep + 1 : 0);
+        }
+
+        /** Cancels the chunks that are in flight. Chunks that weren't executed yet won't be executed. */
+        @Override
+        public void close() {
+            stopped = true;
+            for (ListenableFuture<ModelNodeResult> future : inFlight) {
+                future.cancel(true);
+            }
+            inFlight.clear();
+        }
+
+        private void submitChunks() throws IOException {
+            if (maxChunksInFlight <= 1) {
+                return; // executed synchronously in nextChunk
+            }
+            while (!stopped && submittedChunks < chunks.size() && inFlight.size() < maxChunksInFlight) {
+                inFlight.add(client.executeAsync(Batch.toModelNode(chunks.get(submittedChunks))));
+                submittedChunks++;
+            }
+        }
+
+        private void nextChunk() throws IOException {
+            currentChunkResult = null; // the previous chunk can be garbage collected
+            currentChunk++;
+
+            if (maxChunksInFlight <= 1) {
+                currentChunkResult = client.execute(Batch.toModelNode(chunks.get(currentChunk)));
+                submittedChunks++;
+            } else {
+                currentChunkResult = await(inFlight.poll());
+            }
+            nextStep = 1;
+
+            if (stopOnFailure && currentChunkResult.isFailed()) {
+                close();
+            } else {
+                submitChunks();
+            }
+        }
+
+        private ModelNodeResult await(ListenableFuture<ModelNodeResult> future) throws IOException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new InterruptedIOException("Interrupted while waiting for batch chunk");
+            } catch (ExecutionException e) {
+                close();
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                } else if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+
+    private static ModelNodeResult stepResult(ModelNodeResult chunkResult, int step) {
+        String stepName = "step-" + step;
+        if (chunkResult.hasDefined(Constants.RESULT) && chunkResult.get(Constants.RESULT).hasDefined(stepName)) {
+            return new ModelNodeResult(chunkResult.get(Constants.RESULT).get(stepName));
+        }
+
+        // the composite operation failed before executing individual steps
+        ModelNode failed = new ModelNode();
+        failed.get(Constants.OUTCOME).set(Constants.FAILED);
+        if (chunkResult.hasDefined(Constants.FAILURE_DESCRIPTION)) {
+            failed.get(Constants.FAILURE_DESCRIPTION).set(chunkResult.get(Constants.FAILURE_DESCRIPTION));
+        }
+        return new ModelNodeResult(failed);
+    }
+
+    public static final class Builder {
+        private final OnlineManagementClient client;
+        private int maxStepsPerChunk = 500;
+        private long maxChunkSizeInBytes;
+        private int maxChunksInFlight = 1;
+        private boolean stopOnFailure;
+
+        public Builder(OnlineManagementClient client) {
+            if (client == null) {
+                throw new IllegalArgumentException("Client must be set");
+            }
+            this.client = client;
+        }
+
+        /** Maximum number of operations in a single chunk. Default: {@code 500}. */
+        public Builder maxStepsPerChunk(int maxStepsPerChunk) {
+            if (maxStepsPerChunk < 1) {
+                throw new IllegalArgumentException("Max steps per chunk must be positive, was " + maxStepsPerChunk);
+            }
+            this.maxStepsPerChunk = maxStepsPerChunk;
+            return this;
+        }
+
+        /**
+         * Maximum size of operations in a single chunk, in the binary DMR format. An operation that is bigger
+         * than this is executed in a chunk of its own. Default: no limit.
+         */
+        public Builder maxChunkSizeInBytes(long maxChunkSizeInBytes) {
+            if (maxChunkSizeInBytes < 1) {
+                throw new IllegalArgumentException("Max chunk size must be positive, was " + maxChunkSizeInBytes);
+            }
+            this.maxChunkSizeInBytes = maxChunkSizeInBytes;
+            return this;
+        }
+
+        /**
+         * Maximum number of chunks that are executed asynchronously ahead of the chunk whose results are being
+         * read. Default: {@code 1}, which means that chunks are executed synchronously, one after another.
+         *
+         * <p>With a higher value, chunks in flight are sent to the server concurrently and there's no guarantee
+         * about the order in which the server executes them. A chunk might even be executed before a previous
+         * chunk that it depends on (e.g. a chunk that adds a child resource before the chunk that adds its parent),
+         * so only use this when the chunks are independent of each other. The results are still returned
+         * in the order of operations in the batch.</p>
+         */
+        public Builder maxChunksInFlight(int maxChunksInFlight) {
+            if (maxChunksInFlight < 1) {
+                throw new IllegalArgumentException("Max chunks in flight must be positive, was " + maxChunksInFlight);
+            }
+            this.maxChunksInFlight = maxChunksInFlight;
+            return this;
+        }
+
+        /**
+         * Don't execute the remaining chunks after a chunk fails. Chunks that are already in flight are cancelled,
+         * but they might have been executed by the server already. By default, all chunks are executed regardless
+         * of failures.
+         */
+        public Builder stopOnFailure() {
+            this.stopOnFailure = true;
+            return this;
+        }
+
+        public BatchExecutor build() {
+            return new BatchExecutor(this);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+
+/**
+ * How {@link Operations#exists(Address, ExistenceCheck)} finds out whether a resource exists. Neither of them
+ * transfers the entire resource.
+ */
+public enum ExistenceCheck {
+    /**
+     * {@code read-resource} of the resource with {@code attributes-only} and without defaults. The amount of data
+     * transferred depends on the number of explicitly set attributes of the resource. This is the default.
+     */
+    READ_RESOURCE {
+        @Override
+        ModelNode operation(OperationsModelNodeBuilder builder, Address address) {
+            return builder.readResource(address, ReadResourceOption.ATTRIBUTES_ONLY,
+                    ReadResourceOption.NOT_INCLUDE_DEFAULTS);
+        }
+
+        @Override
+        boolean exists(ModelNodeResult result, Address address) {
+            return result.hasDefinedValue(); // should always be true
+        }
+    },
+    /**
+     * {@code read-children-names} of the parent resource. The amount of data transferred depends on the number
+     * of siblings of the resource, so this is useful for resources with many attributes or with large attribute
+     * values and not many siblings. Falls back to {@link #READ_RESOURCE} for the root address and for addresses
+     * that contain a wildcard.
+     */
+    READ_CHILDREN_NAMES {
+        @Override
+        ModelNode operation(OperationsModelNodeBuilder builder, Address address) {
+            if (address.isRoot() || address.containsWildcard()) {
+                return READ_RESOURCE.operation(builder, address);
+            }
+            return builder.readChildrenNames(address.parent(), address.getLastPairKey());
+        }
+
+        @Override
+        boolean exists(ModelNodeResult result, Address address) {
+            if (address.isRoot() || address.containsWildcard()) {
+                return READ_RESOURCE.exists(result, address);
+            }
+
+            ModelNode names = result.get(Constants.RESULT);
+            if (names.getType() != ModelType.LIST) {
+                return false;
+            }
+            String name = address.getLastPairValue();
+            for (int i = 0, size = names.asInt(); i < size; i++) { // "asInt" of a LIST is its size
+                if (name.equals(names.get(i).asString())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    };
+
+    /** The operation that is executed to find out whether the resource exists. */
+    abstract ModelNode operation(OperationsModelNodeBuilder builder, Address address);
+
+    /** Interprets a successful result of the {@link #operation(OperationsModelNodeBuilder, Address) operation}. */
+    abstract boolean exists(ModelNodeResult result, Address address);
+}
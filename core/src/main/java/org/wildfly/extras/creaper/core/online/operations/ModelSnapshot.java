@@ -0,0 +1,322 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.dmr.Property;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * <p>An immutable copy of parts of the management model, read using recursive {@code read-resource} operations.
+ * The parts are given as addresses that can contain wildcards; addresses that are covered by other addresses
+ * (e.g. {@code /subsystem=logging/logger=*} is covered by {@code /subsystem=logging}) are not read again.
+ * The reads are executed asynchronously, in parallel.</p>
+ *
+ * <pre>
+ * ModelSnapshot snapshot = new ModelSnapshot.Builder(client)
+ *         .address(Address.subsystem("datasources").and("data-source", "*"))
+ *         .address(Address.subsystem("logging"))
+ *         .take();
+ * ModelNode jndiName = snapshot.attribute(Address.subsystem("datasources").and("data-source", "ExampleDS"),
+ *         "jndi-name");
+ * </pre>
+ *
+ * <p>Resources are looked up by their address. The lookup walks the read result only the first time a resource
+ * is looked up, subsequent lookups of the same address are a hash map lookup. Returned {@code ModelNode}s
+ * are protected against modification. This class is thread safe.</p>
+ */
+public final class ModelSnapshot {
+    private static final ModelNode MISSING = new ModelNode(); // marker for resources that don't exist
+
+    private final List<Address> patterns;
+    private final Map<String, ModelNode> roots; // results of the reads, keyed by address
+    private final ConcurrentMap<String, ModelNode> resources = new ConcurrentHashMap<String, ModelNode>();
+    private final int reads;
+
+    private ModelSnapshot(List<Address> patterns, Map<String, ModelNode> roots, int reads) {
+        this.patterns = patterns;
+        this.roots = roots;
+        this.reads = reads;
+    }
+
+    /**
+     * @return the resource at given {@code address} (its attributes and children, as returned by a recursive
+     * {@code read-resource}), or {@code null} if the resource doesn't exist
+     * @throws IllegalArgumentException if the {@code address} contains a wildcard or isn't covered by the addresses
+     * this snapshot was taken for
+     */
+    public ModelNode get(Address address) {
+        if (address.containsWildcard()) {
+            throw new IllegalArgumentException("Address must not contain a wildcard: " + address);
+        }
+        if (!isCovered(address)) {
+            throw new IllegalArgumentException("Address " + address + " isn't part of the snapshot");
+        }
+
+        String key = key(address, address.length());
+        ModelNode resource = resources.get(key);
+        if (resource == null) {
+            resource = lookup(address);
+            resources.putIfAbsent(key, resource);
+        }
+        return resource == MISSING ? null : resource;
+    }
+
+    /** @see #get(Address) */
+    public boolean exists(Address address) {
+        return get(address) != null;
+    }
+
+    /**
+     * @return value of the attribute (which is undefined if the attribute isn't defined), or {@code null}
+     * if the resource doesn't exist
+     * @see #get(Address)
+     */
+    public ModelNode attribute(Address address, String attributeName) {
+        ModelNode resource = get(address);
+        if (resource == null) {
+            return null;
+        }
+        return resource.hasDefined(attributeName) ? resource.get(attributeName) : new ModelNode();
+    }
+
+    /**
+     * @return names of the children of given type, or an empty list if there are none or if the resource
+     * doesn't exist
+     * @see #get(Address)
+     */
+    public List<String> childrenNames(Address address, String childType) {
+        ModelNode resource = get(address);
+        if (resource == null || !resource.hasDefined(childType)) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(new ArrayList<String>(resource.get(childType).keys()));
+    }
+
+    /** Number of {@code read-resource} operations that were needed to take this snapshot. */
+    public int reads() {
+        return reads;
+    }
+
+    private boolean isCovered(Address address) {
+        for (Address pattern : patterns) {
+            if (covers(pattern, address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ModelNode lookup(Address address) {
+        for (int rootLength = address.length(); rootLength >= 0; rootLength--) {
+            ModelNode node = roots.get(key(address, rootLength));
+            if (node == null) {
+                continue;
+            }
+
+            for (int i = rootLength; i < address.length(); i++) {
+                String key = address.keyAt(i);
+                String value = address.valueAt(i);
+                if (!node.hasDefined(key) || !node.get(key).hasDefined(value)) {
+                    return MISSING;
+                }
+                node = node.get(key).get(value);
+            }
+            return node;
+        }
+        return MISSING;
+    }
+
+    /** Same format as {@link Address#toString()}, but only for the first {@code length} pairs. */
+    private static String key(Address address, int length) {
+        if (length == 0) {
+            return "/";
+        }
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            result.append('/').append(address.keyAt(i)).append('=').append(address.valueAt(i));
+        }
+        return result.toString();
+    }
+
+    /** Whether the recursive read of {@code pattern} includes everything under {@code address}. */
+    static boolean covers(Address pattern, Address address) {
+        if (pattern.length() > address.length()) {
+            return false;
+        }
+        for (int i = 0; i < pattern.length(); i++) {
+            if (!pattern.keyAt(i).equals(address.keyAt(i))) {
+                return false;
+            }
+            if (!"*".equals(pattern.valueAt(i)) && !pattern.valueAt(i).equals(address.valueAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Removes duplicates and addresses that are covered by other addresses. */
+    static List<Address> minimize(List<Address> addresses) {
+        List<Address> result = new ArrayList<Address>();
+        for (int i = 0; i < addresses.size(); i++) {
+            Address candidate = addresses.get(i);
+            boolean covered = false;
+            for (int j = 0; j < addresses.size() && !covered; j++) {
+                if (i == j || !covers(addresses.get(j), candidate)) {
+                    continue;
+                }
+                // of two addresses that cover each other (duplicates), the first one is kept
+                covered = !covers(candidate, addresses.get(j)) || j < i;
+            }
+            if (!covered) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
+    private static Address toAddress(ModelNode address) {
+        Address result = Address.root();
+        for (Property element : address.asPropertyList()) {
+            result = result.and(element.getName(), element.getValue().asString());
+        }
+        return result;
+    }
+
+    public static final class Builder {
+        private final OnlineManagementClient client;
+        private final List<Address> addresses = new ArrayList<Address>();
+        private boolean includeRuntime;
+        private int maxParallelReads = 4;
+
+        public Builder(OnlineManagementClient client) {
+            if (client == null) {
+                throw new IllegalArgumentException("Client must be set");
+            }
+            this.client = client;
+        }
+
+        /** Include the resource at given {@code address} and everything under it. Can contain wildcards. */
+        public Builder address(Address address) {
+            if (address == null) {
+                throw new IllegalArgumentException("Address must be set");
+            }
+            addresses.add(address);
+            return this;
+        }
+
+        /** Include runtime attributes. By default, only the configuration is read. */
+        public Builder includeRuntime() {
+            this.includeRuntime = true;
+            return this;
+        }
+
+        /** Maximum number of {@code read-resource} operations executed at the same time. Default: {@code 4}. */
+        public Builder maxParallelReads(int maxParallelReads) {
+            if (maxParallelReads < 1) {
+                throw new IllegalArgumentException("Max parallel reads must be positive, was " + maxParallelReads);
+            }
+            this.maxParallelReads = maxParallelReads;
+            return this;
+        }
+
+        /**
+         * Reads the management model.
+         *
+         * @throws OperationException if one of the {@code read-resource} operations fails with something else
+         * than "not found"
+         */
+        public ModelSnapshot take() throws IOException, OperationException {
+            if (addresses.isEmpty()) {
+                throw new IllegalStateException("At least one address must be set");
+            }
+
+            List<Address> patterns = minimize(addresses);
+            OperationsModelNodeBuilder builder = new OperationsModelNodeBuilder();
+            ReadResourceOption runtime = includeRuntime
+                    ? ReadResourceOption.INCLUDE_RUNTIME
+                    : ReadResourceOption.NOT_INCLUDE_RUNTIME;
+
+            Map<String, ModelNode> roots = new HashMap<String, ModelNode>();
+            Deque<ListenableFuture<ModelNodeResult>> inFlight = new ArrayDeque<ListenableFuture<ModelNodeResult>>();
+            int submitted = 0;
+            try {
+                for (Address pattern : patterns) {
+                    while (submitted < patterns.size() && inFlight.size() < maxParallelReads) {
+                        inFlight.add(client.executeAsync(builder.readResource(patterns.get(submitted),
+                                ReadResourceOption.RECURSIVE, runtime)));
+                        submitted++;
+                    }
+                    addRoots(roots, pattern, await(inFlight.poll()));
+                }
+            } finally {
+                for (ListenableFuture<ModelNodeResult> future : inFlight) {
+                    future.cancel(true);
+                }
+            }
+
+            return new ModelSnapshot(Collections.unmodifiableList(patterns), roots, patterns.size());
+        }
+
+        private static void addRoots(Map<String, ModelNode> roots, Address pattern, ModelNodeResult result)
+                throws OperationException {
+            if (result.isFailed()) {
+                if (Operations.isResultUnknownOrNotFound(result)) {
+                    return;
+                }
+                throw new OperationException("Reading " + pattern + " failed: " + result.asString());
+            }
+
+            ModelNode value = result.get(Constants.RESULT);
+            if (!pattern.containsWildcard()) {
+                value.protect();
+                roots.put(key(pattern, pattern.length()), value);
+                return;
+            }
+
+            // a read with a wildcard returns a list of results, each with a concrete address
+            if (value.getType() != ModelType.LIST) {
+                return;
+            }
+            for (ModelNode item : value.asList()) {
+                if (item.hasDefined(Constants.RESULT) && item.hasDefined(Constants.OP_ADDR)) {
+                    Address address = toAddress(item.get(Constants.OP_ADDR));
+                    ModelNode resource = item.get(Constants.RESULT);
+                    resource.protect();
+                    roots.put(key(address, address.length()), resource);
+                }
+            }
+        }
+
+        private static ModelNodeResult await(ListenableFuture<ModelNodeResult> future) throws IOException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading the management model");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                } else if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+}
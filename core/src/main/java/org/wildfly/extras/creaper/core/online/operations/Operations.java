@@ -8,6 +8,8 @@ import org.wildfly.extras.creaper.core.online.ModelNodeResult;
 import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -168,25 +170,117 @@ public final class Operations implements SharedCommonOperations<ModelNodeResult>
     }
 
     /**
+     * Same as {@link #exists(Address, ExistenceCheck) exists(address, ExistenceCheck.READ_RESOURCE)}.
+     *
      * @return {@code true} if the resource specified by {@code address} exists, {@code false} otherwise
      * @throws OperationException if the underlying {@code read-resource} operation fails
      */
     public boolean exists(Address address) throws IOException, OperationException {
+        return exists(address, ExistenceCheck.READ_RESOURCE);
+    }
+
+    /**
+     * @return {@code true} if the resource specified by {@code address} exists, {@code false} otherwise
+     * @throws OperationException if the underlying operation fails with something else than "not found"
+     */
+    public boolean exists(Address address, ExistenceCheck check) throws IOException, OperationException {
         FailuresAllowedBlock expectedFailures = client.allowFailures();
         try {
-            ModelNodeResult result = readResource(address);
-            if (result.isSuccess()) {
-                return result.hasDefinedValue(); // should always be true
-            }
+            return existsFailuresAllowed(address, check);
+        } finally {
+            expectedFailures.close();
+        }
+    }
 
-            if (isResultUnknownOrNotFound(result)) {
-                return false;
+    /**
+     * Same as {@link #existsAll(ExistenceCheck, Address...) existsAll(ExistenceCheck.READ_RESOURCE, addresses)}.
+     */
+    public List<Boolean> existsAll(Address... addresses) throws IOException, OperationException {
+        return existsAll(ExistenceCheck.READ_RESOURCE, addresses);
+    }
+
+    /**
+     * Finds out whether each of the resources specified by {@code addresses} exists using a single
+     * {@code composite} operation. If some of the parent resources don't exist, the {@code composite} operation
+     * fails and is repeated for those addresses for which the first attempt didn't give an answer, so it's
+     * best to order the {@code addresses} from those most likely to exist.
+     *
+     * @return a list of the same size as {@code addresses}; the {@code i}-th element is {@code true} if the resource
+     * specified by the {@code i}-th address exists, {@code false} otherwise
+     * @throws OperationException if one of the underlying operations fails with something else than "not found"
+     */
+    public List<Boolean> existsAll(ExistenceCheck check, Address... addresses) throws IOException, OperationException {
+        Boolean[] result = new Boolean[addresses.length];
+        List<Integer> pending = new ArrayList<Integer>(addresses.length);
+        for (int i = 0; i < addresses.length; i++) {
+            pending.add(i);
+        }
+
+        OperationsModelNodeBuilder stepBuilder = new OperationsModelNodeBuilder();
+        FailuresAllowedBlock expectedFailures = client.allowFailures();
+        try {
+            while (pending.size() > 1) {
+                List<ModelNode> steps = new ArrayList<ModelNode>(pending.size());
+                for (int i : pending) {
+                    steps.add(check.operation(stepBuilder, addresses[i]));
+                }
+                ModelNodeResult compositeResult = client.execute(builder.composite(steps));
+
+                // after a failed step, the rest of the composite isn't executed or is rolled back; those steps
+                // have no failure description of their own and are repeated in the next round
+                List<Integer> notAnswered = new ArrayList<Integer>();
+                for (int step = 0; step < pending.size(); step++) {
+                    int i = pending.get(step);
+                    ModelNodeResult stepResult = new ModelNodeResult(
+                            compositeResult.get(Constants.RESULT).get("step-" + (step + 1)));
+                    if (stepResult.isSuccess()) {
+                        result[i] = check.exists(stepResult, addresses[i]);
+                    } else if (stepResult.hasDefined(Constants.FAILURE_DESCRIPTION)) {
+                        result[i] = !isResultUnknownOrNotFound(stepResult)
+                                && existsFailuresAllowed(addresses[i], check);
+                    } else {
+                        notAnswered.add(i);
+                    }
+                }
+
+                if (notAnswered.size() == pending.size()) {
+                    break; // no progress, fall back to checking the addresses one by one
+                }
+                pending = notAnswered;
             }
 
-            throw new OperationException("exists failed: " + result.asString());
+            for (int i : pending) {
+                result[i] = existsFailuresAllowed(addresses[i], check);
+            }
         } finally {
             expectedFailures.close();
         }
+
+        return Arrays.asList(result);
+    }
+
+    private boolean existsFailuresAllowed(Address address, ExistenceCheck check) throws IOException,
+            OperationException {
+        ModelNodeResult result = client.execute(check.operation(builder, address));
+        if (result.isSuccess()) {
+            return check.exists(result, address);
+        }
+
+        if (isResultUnknownOrNotFound(result)) {
+            return false;
+        }
+
+        // e.g. attributes-only is not supported on AS 7.0, fall back to the full read-resource
+        result = readResource(address);
+        if (result.isSuccess()) {
+            return result.hasDefinedValue(); // should always be true
+        }
+
+        if (isResultUnknownOrNotFound(result)) {
+            return false;
+        }
+
+        throw new OperationException("exists failed: " + result.asString());
     }
 
     /**
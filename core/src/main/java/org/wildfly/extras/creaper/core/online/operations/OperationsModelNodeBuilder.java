@@ -3,6 +3,8 @@ package org.wildfly.extras.creaper.core.online.operations;
 import org.jboss.dmr.ModelNode;
 import org.wildfly.extras.creaper.core.online.Constants;
 
+import java.util.List;
+
 final class OperationsModelNodeBuilder implements SharedCommonOperations<ModelNode> {
     private final Values headers;
 
@@ -202,4 +204,18 @@ final class OperationsModelNodeBuilder implements SharedCommonOperations<ModelNo
         parameters.addToModelNode(op);
         return op;
     }
+
+    // ---
+
+    /** Headers are only added to the {@code composite} operation itself, not to the {@code steps}. */
+    ModelNode composite(List<ModelNode> steps) {
+        ModelNode op = newOp();
+        op.get(Constants.OP).set(Constants.COMPOSITE);
+        op.get(Constants.OP_ADDR).setEmptyList();
+        ModelNode stepsNode = op.get(Constants.STEPS).setEmptyList();
+        for (ModelNode step : steps) {
+            stepsNode.add(step);
+        }
+        return op;
+    }
 }
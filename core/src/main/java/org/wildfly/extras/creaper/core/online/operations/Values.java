@@ -7,8 +7,6 @@ import com.google.common.primitives.Longs;
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.Property;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -63,7 +61,7 @@ import java.util.Map;
 public final class Values {
     private static final Values EMPTY = new Values();
 
-    private final List<Property> namedValues;
+    private final AppendOnlyList<Property> namedValues; // appending is cheap, see AppendOnlyList
 
     public static Values empty() {
         return EMPTY;
@@ -127,55 +125,43 @@ public final class Values {
             return null;
         }
 
-        List<Property> properties = new ArrayList<Property>(map.size());
+        AppendOnlyList<Property> properties = AppendOnlyList.empty();
         for (Map.Entry<String, String> entry : map.entrySet()) {
-            properties.add(new Property(entry.getKey(), new ModelNode(entry.getValue())));
+            properties = properties.append(new Property(entry.getKey(), new ModelNode(entry.getValue())));
         }
         return new Values(properties);
     }
 
     private Values() {
-        this.namedValues = Collections.emptyList();
+        this.namedValues = AppendOnlyList.empty();
     }
 
-    private Values(List<Property> namedValues) {
-        this.namedValues = Collections.unmodifiableList(namedValues);
+    private Values(AppendOnlyList<Property> namedValues) {
+        this.namedValues = namedValues;
     }
 
     public Values and(String name, boolean value) {
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, new ModelNode(value)));
-        return new Values(newList);
+        return new Values(namedValues.append(new Property(name, new ModelNode(value))));
     }
 
     public Values and(String name, int value) {
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, new ModelNode(value)));
-        return new Values(newList);
+        return new Values(namedValues.append(new Property(name, new ModelNode(value))));
     }
 
     public Values and(String name, long value) {
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, new ModelNode(value)));
-        return new Values(newList);
+        return new Values(namedValues.append(new Property(name, new ModelNode(value))));
     }
 
     public Values and(String name, double value) {
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, new ModelNode(value)));
-        return new Values(newList);
+        return new Values(namedValues.append(new Property(name, new ModelNode(value))));
     }
 
     public Values and(String name, String value) {
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, new ModelNode(value)));
-        return new Values(newList);
+        return new Values(namedValues.append(new Property(name, new ModelNode(value))));
     }
 
     public Values and(String name, ModelNode value) {
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, value));
-        return new Values(newList);
+        return new Values(namedValues.append(new Property(name, value)));
     }
 
     public Values andOptional(String name, Boolean value) {
@@ -214,9 +200,7 @@ public final class Values {
             listValue.add(singleValue);
         }
 
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, listValue));
-        return new Values(newList);
+        return new Values(namedValues.append(new Property(name, listValue)));
     }
 
     public Values andList(String name, int... value) {
@@ -225,9 +209,7 @@ public final class Values {
             listValue.add(singleValue);
         }
 
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, listValue));
-        return new Values(newList);
+        return new Values(namedValues.append(new Property(name, listValue)));
     }
 
     public Values andList(String name, long... value) {
@@ -236,9 +218,7 @@ public final class Values {
             listValue.add(singleValue);
         }
 
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, listValue));
-        return new Values(newList);
+        return new Values(namedValues.append(new Property(name, listValue)));
     }
 
     public Values andList(String name, double... value) {
@@ -247,9 +227,7 @@ public final class Values {
             listValue.add(singleValue);
         }
 
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, listValue));
-        return new Values(newList);
+        return new Values(namedValues.append(new Property(name, listValue)));
     }
 
     public Values andList(String name, String... value) {
@@ -258,9 +236,7 @@ public final class Values {
             listValue.add(singleValue);
         }
 
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, listValue));
-        return new Values(newList);
+        return new Values(namedValues.append(new Property(name, listValue)));
     }
 
     public Values andList(String name, ModelNode... value) {
@@ -269,9 +245,7 @@ public final class Values {
             listValue.add(singleValue);
         }
 
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, listValue));
-        return new Values(newList);
+        return new Values(namedValues.append(new Property(name, listValue)));
     }
 
     /**
@@ -318,9 +292,7 @@ public final class Values {
             objectValue.get(property.getName()).set(property.getValue());
         }
 
-        List<Property> newList = new ArrayList<Property>(namedValues);
-        newList.add(new Property(name, objectValue));
-        return new Values(newList);
+        return new Values(namedValues.append(new Property(name, objectValue)));
     }
 
     public Values andObjectOptional(String name, Values value) {
@@ -18,7 +18,8 @@ import java.util.concurrent.TimeoutException;
  * <p>Some operations that can only be performed on a managed domain are available in the {@link DomainAdministration}
  * class, which is a subclass of this class.</p>
  *
- * <p>This class contains an {@link OnlineManagementClient}, but is otherwise stateless. Most importantly, this class
+ * <p>This class contains an {@link OnlineManagementClient} and remembers how long the last reload or restart took,
+ * but is otherwise stateless. Most importantly, this class
  * <b>doesn't</b> close the underlying {@code OnlineManagementClient}. This means that as long as that
  * {@code OnlineManagementClient} is valid, this class is usable.</p>
  */
@@ -33,12 +34,14 @@ public class Administration {
     }
 
     public Administration(OnlineManagementClient client, int timeoutInSeconds) {
+        this(client, client.options().isDomain
+                ? new DomainAdministrationOperations(client, timeoutInSeconds)
+                : new StandaloneAdministrationOperations(client, timeoutInSeconds));
+    }
+
+    Administration(OnlineManagementClient client, AdministrationOperations ops) {
         this.client = client;
-        if (client.options().isDomain) {
-            this.ops = new DomainAdministrationOperations(client, timeoutInSeconds);
-        } else {
-            this.ops = new StandaloneAdministrationOperations(client, timeoutInSeconds);
-        }
+        this.ops = ops;
     }
 
     // ---
@@ -135,6 +138,17 @@ public class Administration {
         }
     }
 
+    /**
+     * Returns how long the last reload or restart performed by this object took, from sending the operation
+     * to seeing the server running again. In domain, this includes waiting for the servers. Useful for tracking
+     * how much time is spent reloading servers.
+     *
+     * @return duration in milliseconds or {@code -1} if no reload or restart was performed yet
+     */
+    public final long lastReloadOrRestartDurationInMillis() {
+        return ops.lastRestartDuration();
+    }
+
     // ---
 
     // this remained after a piece of debugging code and it's only maintained because some of the methods above
@@ -25,4 +25,7 @@ interface AdministrationOperations {
     // ---
 
     void waitUntilRunning() throws InterruptedException, TimeoutException, IOException;
+
+    /** In milliseconds, {@code -1} if no reload or restart was performed yet. */
+    long lastRestartDuration();
 }
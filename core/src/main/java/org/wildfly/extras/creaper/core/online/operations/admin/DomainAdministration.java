@@ -1,5 +1,6 @@
 package org.wildfly.extras.creaper.core.online.operations.admin;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.wildfly.extras.creaper.core.ServerVersion;
 import org.wildfly.extras.creaper.core.online.Constants;
 import org.wildfly.extras.creaper.core.online.ModelNodeResult;
@@ -11,8 +12,16 @@ import org.wildfly.extras.creaper.core.online.operations.Operations;
 import org.wildfly.extras.creaper.core.online.operations.Values;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -23,11 +32,22 @@ import java.util.concurrent.TimeoutException;
  * The variant without a host is always equivalent to calling the variant with a host, where the host provided is
  * the default host from {@link OnlineManagementClient#options()}.</p>
  *
- * <p>This class contains an {@link OnlineManagementClient}, but is otherwise stateless. Most importantly, this class
+ * <p>Operations on multiple hosts (such as {@link #reloadAll(Collection)}) are performed concurrently, using up to
+ * {@link #DEFAULT_MAX_PARALLEL_HOSTS} threads unless specified otherwise. The host of the domain controller, if
+ * included, is always handled last, after all the other hosts are done, because the connection to the domain
+ * controller is lost when it's reloaded or restarted; it's skipped if any of the other hosts failed.
+ * The other hosts share the {@code OnlineManagementClient}, so they are never allowed to reconnect it, as that would
+ * break the requests of the other threads; only the domain controller host, which is handled on the calling thread,
+ * may reconnect the client.</p>
+ *
+ * <p>This class contains an {@link OnlineManagementClient} and remembers how long the last reload or restart took,
+ * but is otherwise stateless. Most importantly, this class
  * <b>doesn't</b> close the underlying {@code OnlineManagementClient}. This means that as long as that
  * {@code OnlineManagementClient} is valid, this class is usable.</p>
  */
 public final class DomainAdministration extends Administration {
+    public static final int DEFAULT_MAX_PARALLEL_HOSTS = 4;
+
     private final OnlineManagementClient client;
     private final Operations ops;
     private final DomainAdministrationOperations domainOps;
@@ -37,10 +57,14 @@ public final class DomainAdministration extends Administration {
     }
 
     public DomainAdministration(OnlineManagementClient client, int timeoutInSeconds) {
-        super(client);
+        this(client, new DomainAdministrationOperations(client, timeoutInSeconds));
+    }
+
+    private DomainAdministration(OnlineManagementClient client, DomainAdministrationOperations domainOps) {
+        super(client, domainOps);
         this.client = client;
         this.ops = new Operations(client);
-        this.domainOps = new DomainAdministrationOperations(client, timeoutInSeconds);
+        this.domainOps = domainOps;
     }
 
     // ---
@@ -69,6 +93,23 @@ public final class DomainAdministration extends Administration {
         return domainOps.allRunningServers(host);
     }
 
+    /**
+     * Retrieves all servers running on all hosts in the domain, keyed by host name. This is faster than calling
+     * {@link #allRunningServers(String)} for each host, because it only needs a single management operation.
+     */
+    public Map<String, List<String>> allRunningServersOnAllHosts() throws IOException {
+        return domainOps.allRunningServersOnAllHosts();
+    }
+
+    /**
+     * Retrieves status of all configured servers on all hosts in the domain, using a single management operation.
+     * The result is keyed by host name and then by server name; the values are the {@code status} attribute
+     * of the {@code server-config} resources (e.g. {@code STARTED}, {@code STOPPED} or {@code DISABLED}).
+     */
+    public Map<String, Map<String, String>> serverStatusesOnAllHosts() throws IOException {
+        return domainOps.serverStatusesOnAllHosts();
+    }
+
     /** @see #allServers(String) */
     public List<String> allServers() throws IOException {
         return allServers(client.options().defaultHost);
@@ -178,11 +219,21 @@ public final class DomainAdministration extends Administration {
     }
 
     void restartServers(String host, List<String> servers) throws IOException, InterruptedException, TimeoutException {
+        restartServers(host, servers, true);
+    }
+
+    /**
+     * @param reconnectAllowed whether the client may be reconnected if the restart operation fails; must be
+     * {@code false} when the client is used by other threads concurrently
+     */
+    private void restartServers(String host, List<String> servers, boolean reconnectAllowed) throws IOException,
+            InterruptedException, TimeoutException {
         Batch batch = new Batch();
         for (String server : servers) {
             batch.invoke(Constants.RESTART, Address.host(host).and(Constants.SERVER_CONFIG, server));
         }
 
+        long startTime = System.currentTimeMillis();
         boolean needsToReconnect = false;
         try {
             ops.batch(batch);
@@ -191,7 +242,157 @@ public final class DomainAdministration extends Administration {
             needsToReconnect = true;
         }
 
-        domainOps.waitUntilServersAreRunning(host, servers, needsToReconnect);
+        domainOps.waitAfterRestartOperation(host, servers, startTime, needsToReconnect, reconnectAllowed);
+    }
+
+    // ---
+
+    /** @see #reloadAll(Collection, int) */
+    public void reloadAll(Collection<String> hosts) throws IOException, InterruptedException, TimeoutException {
+        reloadAll(hosts, DEFAULT_MAX_PARALLEL_HOSTS);
+    }
+
+    /**
+     * Reloads all given {@code hosts} concurrently, using at most {@code maxParallelism} threads, and waits until
+     * all of them are running again. This is a multi-host variant of {@link #reload(String)}. If reloading some
+     * of the hosts fails, the other hosts are still waited for and then the first failure is thrown.
+     */
+    public void reloadAll(Collection<String> hosts, int maxParallelism) throws IOException, InterruptedException,
+            TimeoutException {
+        forAllHosts(hosts, maxParallelism, true, new HostTask() {
+            @Override
+            public void run(String host, boolean reconnectAllowed) throws IOException, InterruptedException,
+                    TimeoutException {
+                domainOps.performRestartOperation(host, CommonRestartOperation.RELOAD, reconnectAllowed);
+            }
+        });
+    }
+
+    /** @see #restartAll(Collection, int) */
+    public void restartAll(Collection<String> hosts) throws IOException, InterruptedException, TimeoutException {
+        restartAll(hosts, DEFAULT_MAX_PARALLEL_HOSTS);
+    }
+
+    /**
+     * Restarts all given {@code hosts} concurrently, using at most {@code maxParallelism} threads, and waits until
+     * all of them are running again. This is a multi-host variant of {@link #restart(String)}. If restarting some
+     * of the hosts fails, the other hosts are still waited for and then the first failure is thrown.
+     */
+    public void restartAll(Collection<String> hosts, int maxParallelism) throws IOException, InterruptedException,
+            TimeoutException {
+        forAllHosts(hosts, maxParallelism, true, new HostTask() {
+            @Override
+            public void run(String host, boolean reconnectAllowed) throws IOException, InterruptedException,
+                    TimeoutException {
+                domainOps.performRestartOperation(host, CommonRestartOperation.RESTART, reconnectAllowed);
+            }
+        });
+    }
+
+    /** @see #restartAllServersOnAllHosts(int) */
+    public void restartAllServersOnAllHosts() throws IOException, InterruptedException, TimeoutException {
+        restartAllServersOnAllHosts(DEFAULT_MAX_PARALLEL_HOSTS);
+    }
+
+    /**
+     * Restarts all the servers on all hosts in the domain, handling at most {@code maxParallelism} hosts
+     * concurrently, and waits until all the servers are running again. This is a multi-host variant
+     * of {@link #restartAllServers(String)}; the host controllers themselves are not restarted. If restarting
+     * servers on some of the hosts fails, the other hosts are still waited for and then the first failure is thrown.
+     */
+    public void restartAllServersOnAllHosts(int maxParallelism) throws IOException, InterruptedException,
+            TimeoutException {
+        forAllHosts(hosts(), maxParallelism, false, new HostTask() {
+            @Override
+            public void run(String host, boolean reconnectAllowed) throws IOException, InterruptedException,
+                    TimeoutException {
+                restartServers(host, allRunningServers(host), reconnectAllowed);
+            }
+        });
+    }
+
+    interface HostTask {
+        /**
+         * @param reconnectAllowed whether the task may reconnect the client; {@code false} when the task runs
+         * concurrently with other tasks
+         */
+        void run(String host, boolean reconnectAllowed) throws IOException, InterruptedException, TimeoutException;
+    }
+
+    /**
+     * Runs the {@code task} for all the {@code hosts} concurrently. If {@code domainControllerLast}, the task
+     * for the domain controller host is run only after all the others are finished.
+     *
+     * <p>The tasks share the client, so the concurrently running tasks must never reconnect it, because that would
+     * break the requests of the other tasks. Only the task for the domain controller host, which runs on the calling
+     * thread after all the others are finished, is allowed to reconnect.</p>
+     */
+    void forAllHosts(Collection<String> hosts, int maxParallelism, boolean domainControllerLast,
+                     final HostTask task) throws IOException, InterruptedException, TimeoutException {
+        if (maxParallelism < 1) {
+            throw new IllegalArgumentException("Max parallelism must be positive, was " + maxParallelism);
+        }
+        if (hosts.isEmpty()) {
+            return;
+        }
+
+        List<String> concurrentHosts = new ArrayList<String>(hosts);
+        String domainControllerHost = null;
+        if (domainControllerLast) {
+            ModelNodeResult localHostName = ops.readAttribute(Address.root(), Constants.LOCAL_HOST_NAME);
+            localHostName.assertDefinedValue();
+            if (concurrentHosts.remove(localHostName.stringValue())) {
+                domainControllerHost = localHostName.stringValue();
+            }
+        }
+
+        Throwable failure = null;
+        if (!concurrentHosts.isEmpty()) {
+            ExecutorService executor = Executors.newFixedThreadPool(
+                    Math.min(concurrentHosts.size(), maxParallelism),
+                    new ThreadFactoryBuilder().setNameFormat("creaper-domain-administration-%d").setDaemon(true).build()
+            );
+            try {
+                List<Future<Void>> running = new ArrayList<Future<Void>>();
+                for (final String host : concurrentHosts) {
+                    running.add(executor.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            task.run(host, false);
+                            return null;
+                        }
+                    }));
+                }
+
+                for (Future<Void> future : running) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException e) {
+                        if (failure == null) {
+                            failure = e.getCause();
+                        }
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        if (failure == null && domainControllerHost != null) {
+            task.run(domainControllerHost, true);
+        }
+
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof InterruptedException) {
+            throw (InterruptedException) failure;
+        } else if (failure instanceof TimeoutException) {
+            throw (TimeoutException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        }
     }
 
     // ---
@@ -316,6 +517,26 @@ public final class DomainAdministration extends Administration {
         domainOps.waitUntilServersAreRunning(host, servers, true);
     }
 
+    /**
+     * Waits until all the servers, keyed by host name, are started; that is, their status is {@code STARTED}.
+     * The status of all servers in the domain is read using a single management operation in each attempt.
+     * As opposed to {@link #waitUntilServersRunning(String, List)}, this never reconnects the client.
+     */
+    public void waitUntilServersStarted(Map<String, List<String>> serversOnHosts) throws InterruptedException,
+            TimeoutException, IOException {
+        domainOps.waitUntilServersAreStarted(serversOnHosts);
+    }
+
+    /**
+     * Waits until all the servers, keyed by host name, are stopped; that is, their status is neither
+     * {@code STARTED}, {@code STARTING} nor {@code STOPPING}. The status of all servers in the domain is read
+     * using a single management operation in each attempt. This never reconnects the client.
+     */
+    public void waitUntilServersStopped(Map<String, List<String>> serversOnHosts) throws InterruptedException,
+            TimeoutException, IOException {
+        domainOps.waitUntilServersAreStopped(serversOnHosts);
+    }
+
     // ---
 
     /** @see #stopServer(String, String) */
@@ -1,8 +1,11 @@
 package org.wildfly.extras.creaper.core.online.operations.admin;
 
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.Property;
 import org.wildfly.extras.creaper.core.online.Constants;
 import org.wildfly.extras.creaper.core.online.ModelNodeResult;
 import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.RetryPolicy;
 import org.wildfly.extras.creaper.core.online.operations.Address;
 import org.wildfly.extras.creaper.core.online.operations.Batch;
 import org.wildfly.extras.creaper.core.online.operations.Operations;
@@ -10,19 +13,28 @@ import org.wildfly.extras.creaper.core.online.operations.Values;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 final class DomainAdministrationOperations implements AdministrationOperations {
+    // values of the "status" attribute of server-config
+    private static final String STARTED = "STARTED";
+    private static final String STARTING = "STARTING";
+    private static final String STOPPING = "STOPPING";
+
     private final OnlineManagementClient client;
     private final Operations ops;
+    private final ReadinessWaiter readinessWaiter;
     private final int timeoutInSeconds;
 
     public DomainAdministrationOperations(OnlineManagementClient client, int timeoutInSeconds) {
         this.client = client;
         this.ops = new Operations(client);
         this.timeoutInSeconds = timeoutInSeconds;
+        this.readinessWaiter = new ReadinessWaiter(client, timeoutInSeconds);
     }
 
     // ---
@@ -96,12 +108,27 @@ final class DomainAdministrationOperations implements AdministrationOperations {
         waitUntilServersAreRunning(client.options().defaultHost, null, true);
     }
 
+    @Override
+    public long lastRestartDuration() {
+        return readinessWaiter.lastRestartDuration();
+    }
+
     // ---
 
     void performRestartOperation(String host, RestartOperation restartOperation) throws IOException, TimeoutException,
             InterruptedException {
+        performRestartOperation(host, restartOperation, true);
+    }
+
+    /**
+     * @param reconnectAllowed whether the client may be reconnected if the restart operation fails; must be
+     * {@code false} when the client is used by other threads concurrently
+     */
+    void performRestartOperation(String host, RestartOperation restartOperation, boolean reconnectAllowed)
+            throws IOException, TimeoutException, InterruptedException {
         List<String> allServers = allRunningServers(host);
 
+        long startTime = System.currentTimeMillis();
         boolean needsToReconnect = false;
         try {
             restartOperation.perform(ops, Address.host(host));
@@ -110,7 +137,7 @@ final class DomainAdministrationOperations implements AdministrationOperations {
             needsToReconnect = true;
         }
 
-        waitUntilServersAreRunning(host, allServers, needsToReconnect);
+        waitAfterRestartOperation(host, allServers, startTime, needsToReconnect, reconnectAllowed);
     }
 
     boolean isRestartOperationRequired(String host, CommonRestartOperation restartOperation) throws IOException {
@@ -135,21 +162,84 @@ final class DomainAdministrationOperations implements AdministrationOperations {
         return false;
     }
 
+    /** Reads all servers of the {@code host} that are running, in a single operation. */
     List<String> allRunningServers(String host) throws IOException {
-        ModelNodeResult result = ops.readChildrenNames(Address.host(host), Constants.SERVER);
+        ModelNodeResult result = ops.invoke(Constants.READ_CHILDREN_RESOURCES, Address.host(host),
+                Values.of(Constants.CHILD_TYPE, Constants.SERVER_CONFIG).and(Constants.INCLUDE_RUNTIME, true));
         result.assertDefinedValue();
-        List<String> servers = result.stringListValue();
+        return startedServers(result.value());
+    }
 
-        List<String> startedServers = new ArrayList<String>();
-        for (String server : servers) {
-            ModelNodeResult serverStatus = ops.readAttribute(Address.host(host).and(Constants.SERVER_CONFIG, server),
-                    Constants.STATUS);
-            serverStatus.assertDefinedValue();
-            if ("STARTED".equals(serverStatus.stringValue())) {
-                startedServers.add(server);
+    /**
+     * Reads status of all servers on all hosts in the domain, in a single operation. The result is keyed by host
+     * name and then by server name, and the values are the {@code status} of the {@code server-config}
+     * (e.g. {@code STARTED}, {@code STOPPED} or {@code DISABLED}). Hosts without servers aren't included.
+     */
+    Map<String, Map<String, String>> serverStatusesOnAllHosts() throws IOException {
+        ModelNodeResult result = ops.readAttribute(Address.host("*").and(Constants.SERVER_CONFIG, "*"),
+                Constants.STATUS);
+        result.assertDefinedValue();
+        return serverStatuses(result);
+    }
+
+    /**
+     * {@code result} is a result of {@code read-attribute(name=status)} on {@code /host=*&#47;server-config=*},
+     * that is, a list of results for individual servers, each with its {@code address}.
+     */
+    static Map<String, Map<String, String>> serverStatuses(ModelNodeResult result) {
+        Map<String, Map<String, String>> statuses = new LinkedHashMap<String, Map<String, String>>();
+        for (ModelNode serverResult : result.listValue()) {
+            new ModelNodeResult(serverResult).assertSuccess();
+
+            String host = null;
+            String server = null;
+            for (Property addressElement : serverResult.get(Constants.OP_ADDR).asPropertyList()) {
+                if (Constants.HOST.equals(addressElement.getName())) {
+                    host = addressElement.getValue().asString();
+                } else if (Constants.SERVER_CONFIG.equals(addressElement.getName())) {
+                    server = addressElement.getValue().asString();
+                }
+            }
+            if (host == null || server == null) {
+                throw new IllegalStateException("Unexpected address in result " + serverResult);
+            }
+
+            if (!statuses.containsKey(host)) {
+                statuses.put(host, new LinkedHashMap<String, String>());
             }
+            ModelNode status = serverResult.get(Constants.RESULT);
+            statuses.get(host).put(server, status.isDefined() ? status.asString() : null);
         }
+        return statuses;
+    }
 
+    /**
+     * Reads all servers that are running on all hosts in the domain, in a single operation.
+     * Hosts that have servers, but none of them is running, are included with an empty list.
+     */
+    Map<String, List<String>> allRunningServersOnAllHosts() throws IOException {
+        Map<String, List<String>> runningServers = new LinkedHashMap<String, List<String>>();
+        for (Map.Entry<String, Map<String, String>> hostStatuses : serverStatusesOnAllHosts().entrySet()) {
+            List<String> startedServers = new ArrayList<String>();
+            for (Map.Entry<String, String> serverStatus : hostStatuses.getValue().entrySet()) {
+                if (STARTED.equals(serverStatus.getValue())) {
+                    startedServers.add(serverStatus.getKey());
+                }
+            }
+            runningServers.put(hostStatuses.getKey(), startedServers);
+        }
+        return runningServers;
+    }
+
+    /** {@code serverConfigs} is a result of {@code read-children-resources} of {@code server-config}. */
+    static List<String> startedServers(ModelNode serverConfigs) {
+        List<String> startedServers = new ArrayList<String>();
+        for (Property serverConfig : serverConfigs.asPropertyList()) {
+            ModelNode status = serverConfig.getValue().get(Constants.STATUS);
+            if (status.isDefined() && STARTED.equals(status.asString())) {
+                startedServers.add(serverConfig.getName());
+            }
+        }
         return startedServers;
     }
 
@@ -159,35 +249,91 @@ final class DomainAdministrationOperations implements AdministrationOperations {
      */
     void waitUntilServersAreRunning(String host, List<String> servers, boolean reconnect) throws IOException,
             InterruptedException, TimeoutException {
+        readinessWaiter.waitUntilRunning(false, reconnect, serversRunning(host, servers),
+                "Waiting for host '" + host + "' / servers " + servers + " timed out");
+    }
 
-        Thread.sleep(500); // this value is taken from implementation of CLI "reload"
+    /**
+     * Waits until all the servers, keyed by host name, are started. Each attempt reads the status of all servers
+     * in the domain using a single operation. Never reconnects the client.
+     */
+    void waitUntilServersAreStarted(Map<String, List<String>> serversOnHosts) throws IOException,
+            InterruptedException, TimeoutException {
+        waitForServers(serversOnHosts, true);
+    }
 
-        if (reconnect) {
-            client.reconnect(timeoutInSeconds);
+    /**
+     * Waits until all the servers, keyed by host name, are stopped. Each attempt reads the status of all servers
+     * in the domain using a single operation. Servers of hosts that are no longer present are considered stopped.
+     * Never reconnects the client.
+     */
+    void waitUntilServersAreStopped(Map<String, List<String>> serversOnHosts) throws IOException,
+            InterruptedException, TimeoutException {
+        waitForServers(serversOnHosts, false);
+    }
+
+    private void waitForServers(Map<String, List<String>> serversOnHosts, boolean started) throws IOException,
+            InterruptedException, TimeoutException {
+        if (serversOnHosts.isEmpty()) {
+            return;
         }
 
-        long endTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeoutInSeconds);
-        while (System.currentTimeMillis() < endTime) {
+        RetryPolicy.Attempts attempts = client.options().retryPolicy.start(
+                TimeUnit.SECONDS.toMillis(timeoutInSeconds));
+        boolean done = false;
+        while (!done && attempts.next()) {
             try {
-                if (areServersRunning(host, servers)) {
-                    break;
-                }
-            } catch (Throwable ignored) {
-                // server is probably down, will retry
+                done = areServersInState(serverStatusesOnAllHosts(), serversOnHosts, started);
+            } catch (IOException ignored) {
+                // host controller might be temporarily unavailable, will retry
             }
-
-            Thread.sleep(200); // this value is completely arbitrary
         }
-
-        boolean running = false;
-        try {
-            running = areServersRunning(host, servers);
-        } catch (Throwable ignored) {
-            // server probably down
+        if (!done) {
+            throw attempts.timeout("Waiting for servers " + serversOnHosts + " to "
+                    + (started ? "start" : "stop") + " timed out");
         }
-        if (!running) {
-            throw new TimeoutException("Waiting for host '" + host + "' / servers " + servers + " timed out");
+    }
+
+    /** Whether all the servers are started (if {@code started}) or stopped (if {@code !started}). */
+    static boolean areServersInState(Map<String, Map<String, String>> statuses,
+                                     Map<String, List<String>> serversOnHosts, boolean started) {
+        for (Map.Entry<String, List<String>> hostServers : serversOnHosts.entrySet()) {
+            Map<String, String> hostStatuses = statuses.get(hostServers.getKey());
+            for (String server : hostServers.getValue()) {
+                String status = hostStatuses != null ? hostStatuses.get(server) : null;
+                if (started ? !STARTED.equals(status) : !isStopped(status)) {
+                    return false;
+                }
+            }
         }
+        return true;
+    }
+
+    /** Whether the {@code status} of a {@code server-config} means that the server is neither running nor changing. */
+    private static boolean isStopped(String status) {
+        return !STARTED.equals(status) && !STARTING.equals(status) && !STOPPING.equals(status);
+    }
+
+    /**
+     * Same as {@link #waitUntilServersAreRunning(String, List, boolean)}, but meant to be called after a restart
+     * operation (reload or restart) that was started at {@code startTime}, so that its duration is remembered.
+     * If the operation failed, the client is reconnected, unless {@code reconnectAllowed} is {@code false}.
+     */
+    void waitAfterRestartOperation(String host, List<String> servers, long startTime, boolean operationFailed,
+                                   boolean reconnectAllowed)
+            throws IOException, InterruptedException, TimeoutException {
+        readinessWaiter.waitAfterRestartOperation(startTime, operationFailed, operationFailed && reconnectAllowed,
+                serversRunning(host, servers),
+                "Waiting for host '" + host + "' / servers " + servers + " timed out");
+    }
+
+    private ReadinessWaiter.Probe serversRunning(final String host, final List<String> servers) {
+        return new ReadinessWaiter.Probe() {
+            @Override
+            public boolean isRunning() throws IOException {
+                return areServersRunning(host, servers);
+            }
+        };
     }
 
     private boolean areServersRunning(String host, List<String> servers) throws IOException {
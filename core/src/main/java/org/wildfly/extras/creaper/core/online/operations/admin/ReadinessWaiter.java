@@ -0,0 +1,118 @@
+package org.wildfly.extras.creaper.core.online.operations.admin;
+
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.RetryPolicy;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>Waits until a server (or a host controller and its servers) is running after a reload or restart. This happens
+ * in two phases:</p>
+ *
+ * <ol>
+ * <li>Waiting until the server goes down. The server is probed in short, increasing intervals until it is seen
+ * going down (the probe fails or the server isn't running), but no longer than {@link #MAX_GOING_DOWN_MILLIS}
+ * (that is the fixed delay that CLI {@code reload} waits). If the restart operation itself failed, the server
+ * is known to be going down already and this phase is skipped.</li>
+ * <li>Waiting until the server is running, which follows the {@link RetryPolicy} of the client.</li>
+ * </ol>
+ *
+ * <p>The management protocol doesn't provide any notification that a remote client could use to learn that
+ * the server is running again, so probing is the only option.</p>
+ */
+final class ReadinessWaiter {
+    static final long MAX_GOING_DOWN_MILLIS = 500; // this value is taken from implementation of CLI "reload"
+
+    private static final RetryPolicy GOING_DOWN_PROBING = new RetryPolicy.Builder()
+            .initialDelay(10)
+            .maxDelay(100)
+            .multiplier(2)
+            .jitter(0)
+            .build();
+
+    interface Probe {
+        /** Whether the server is running. Throwing an exception means that the server is not running. */
+        boolean isRunning() throws IOException;
+    }
+
+    private final OnlineManagementClient client;
+    private final int timeoutInSeconds;
+    private volatile long lastRestartDuration = -1;
+
+    ReadinessWaiter(OnlineManagementClient client, int timeoutInSeconds) {
+        this.client = client;
+        this.timeoutInSeconds = timeoutInSeconds;
+    }
+
+    /**
+     * Waits until the server is running after a restart operation (reload or restart) that was started
+     * at {@code startTime} and remembers how long it took.
+     *
+     * @param operationFailed whether the restart operation failed, which means that the server went down before
+     * sending a response
+     * @param reconnect whether the client should reconnect before waiting for the server; this is typically
+     * the same as {@code operationFailed}, but it must be {@code false} when the client is used by other threads
+     * concurrently, because reconnecting would break their requests
+     * @param timeoutMessage message of the {@code TimeoutException}
+     */
+    void waitAfterRestartOperation(long startTime, boolean operationFailed, boolean reconnect, Probe probe,
+                                   String timeoutMessage) throws IOException, InterruptedException, TimeoutException {
+        waitUntilRunning(operationFailed, reconnect, probe, timeoutMessage);
+        lastRestartDuration = System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * Waits until the server is running.
+     *
+     * @param wentDown whether the server is known to have gone down already
+     * @param reconnect whether the client should reconnect before waiting for the server
+     * @param timeoutMessage message of the {@code TimeoutException}
+     */
+    void waitUntilRunning(boolean wentDown, boolean reconnect, Probe probe, String timeoutMessage)
+            throws IOException, InterruptedException, TimeoutException {
+        if (!wentDown) {
+            waitUntilGoingDown(probe);
+        }
+
+        if (reconnect) {
+            client.reconnect(timeoutInSeconds);
+        }
+
+        RetryPolicy.Attempts attempts = client.options().retryPolicy.start(
+                TimeUnit.SECONDS.toMillis(timeoutInSeconds));
+        boolean running = false;
+        while (!running && attempts.next()) {
+            try {
+                running = probe.isRunning();
+            } catch (Throwable ignored) {
+                // server is probably down, will retry
+            }
+        }
+        if (!running) {
+            throw attempts.timeout(timeoutMessage);
+        }
+    }
+
+    private static void waitUntilGoingDown(Probe probe) throws InterruptedException {
+        RetryPolicy.Attempts attempts = GOING_DOWN_PROBING.start(MAX_GOING_DOWN_MILLIS);
+        while (attempts.next()) {
+            try {
+                if (!probe.isRunning()) {
+                    return;
+                }
+            } catch (Throwable e) {
+                return; // server is going down
+            }
+        }
+    }
+
+    /**
+     * How long did the last reload or restart take, from sending the operation to seeing the server running again.
+     * In milliseconds. Returns {@code -1} if no reload or restart was performed yet.
+     */
+    long lastRestartDuration() {
+        return lastRestartDuration;
+    }
+}
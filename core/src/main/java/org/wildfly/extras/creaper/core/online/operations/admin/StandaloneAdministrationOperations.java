@@ -8,18 +8,21 @@ import org.wildfly.extras.creaper.core.online.operations.Operations;
 import org.wildfly.extras.creaper.core.online.operations.Values;
 
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 final class StandaloneAdministrationOperations implements AdministrationOperations {
-    private final OnlineManagementClient client;
     private final Operations ops;
-    private final int timeoutInSeconds;
+    private final ReadinessWaiter readinessWaiter;
+    private final ReadinessWaiter.Probe serverRunning = new ReadinessWaiter.Probe() {
+        @Override
+        public boolean isRunning() throws IOException {
+            return isServerRunning();
+        }
+    };
 
     public StandaloneAdministrationOperations(OnlineManagementClient client, int timeoutInSeconds) {
-        this.client = client;
         this.ops = new Operations(client);
-        this.timeoutInSeconds = timeoutInSeconds;
+        this.readinessWaiter = new ReadinessWaiter(client, timeoutInSeconds);
     }
 
     // ---
@@ -75,13 +78,19 @@ final class StandaloneAdministrationOperations implements AdministrationOperatio
 
     @Override
     public void waitUntilRunning() throws InterruptedException, TimeoutException, IOException {
-        waitUntilServerIsRunning(true);
+        readinessWaiter.waitUntilRunning(false, true, serverRunning, "Waiting for server timed out");
+    }
+
+    @Override
+    public long lastRestartDuration() {
+        return readinessWaiter.lastRestartDuration();
     }
 
     // ---
 
     void performRestartOperation(RestartOperation restartOperation) throws IOException, InterruptedException,
             TimeoutException {
+        long startTime = System.currentTimeMillis();
         boolean needsToReconnect = false;
         try {
             restartOperation.perform(ops, Address.root());
@@ -90,46 +99,14 @@ final class StandaloneAdministrationOperations implements AdministrationOperatio
             needsToReconnect = true;
         }
 
-        waitUntilServerIsRunning(needsToReconnect);
+        readinessWaiter.waitAfterRestartOperation(startTime, needsToReconnect, needsToReconnect, serverRunning,
+                "Waiting for server timed out");
     }
 
     private boolean isRestartOperationRequired(CommonRestartOperation restartOperation) throws IOException {
         return restartOperation.isRequired(ops.readAttribute(Address.root(), Constants.SERVER_STATE), false);
     }
 
-    private void waitUntilServerIsRunning(boolean reconnect) throws IOException, InterruptedException,
-            TimeoutException {
-
-        Thread.sleep(500); // this value is taken from implementation of CLI "reload"
-
-        if (reconnect) {
-            client.reconnect(timeoutInSeconds);
-        }
-
-        long endTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeoutInSeconds);
-        while (System.currentTimeMillis() < endTime) {
-            try {
-                if (isServerRunning()) {
-                    break;
-                }
-            } catch (Throwable ignored) {
-                // server is probably down, will retry
-            }
-
-            Thread.sleep(200); // this value is completely arbitrary
-        }
-
-        boolean running = false;
-        try {
-            running = isServerRunning();
-        } catch (Throwable ignored) {
-            // server probably down
-        }
-        if (!running) {
-            throw new TimeoutException("Waiting for server timed out");
-        }
-    }
-
     private boolean isServerRunning() throws IOException {
         ModelNodeResult result = ops.readAttribute(Address.root(), Constants.SERVER_STATE);
         result.assertDefinedValue();
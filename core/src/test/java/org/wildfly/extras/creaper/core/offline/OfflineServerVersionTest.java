@@ -105,6 +105,26 @@ public class OfflineServerVersionTest {
         test(ServerVersion.VERSION_4_0_0, DOMAIN_XML, EAP7_ROOT, EAP7_LOGGING, EAP7_EE);
     }
 
+    @Test
+    public void cachedVersionIsForgottenWhenFileChanges() throws IOException {
+        File configurationFile = tmp.newFile("test.xml");
+        Files.write(HOST_XML.replace("%ROOT_VERSION%", EAP6_ROOT), configurationFile, Charsets.UTF_8);
+        assertEquals(ServerVersion.VERSION_1_7_0, OfflineServerVersion.discover(configurationFile));
+
+        long lastModified = configurationFile.lastModified();
+        Files.write(HOST_XML.replace("%ROOT_VERSION%", EAP7_ROOT), configurationFile, Charsets.UTF_8);
+        // same length, so make sure the modification time differs even on file systems with coarse granularity
+        configurationFile.setLastModified(lastModified + 2000);
+        assertEquals(ServerVersion.VERSION_4_0_0, OfflineServerVersion.discover(configurationFile));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingRootNamespace() throws IOException {
+        File configurationFile = tmp.newFile("test.xml");
+        Files.write("<server>\n</server>", configurationFile, Charsets.UTF_8);
+        OfflineServerVersion.discover(configurationFile);
+    }
+
     private void test(ServerVersion expected, String xmlPattern,
                       String rootVersion, String loggingVersion, String eeVersion) throws IOException {
         String xml = xmlPattern
@@ -0,0 +1,157 @@
+package org.wildfly.extras.creaper.core.offline;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.extras.creaper.core.ManagementClient;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class OfflineSessionTest {
+    private static final String ORIGINAL = "<server xmlns=\"urn:jboss:domain:1.7\"/>";
+    private static final String CHANGED = "<server xmlns=\"urn:jboss:domain:1.7\"><profile/></server>";
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private File configurationFile;
+    private OfflineManagementClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        configurationFile = tmp.newFile("standalone.xml");
+        Files.write(ORIGINAL, configurationFile, Charsets.UTF_8);
+        client = ManagementClient.offline(OfflineOptions.standalone().configurationFile(configurationFile).build());
+    }
+
+    private static OfflineCommand change(final String newConfiguration) {
+        return new OfflineCommand() {
+            @Override
+            public void apply(OfflineCommandContext ctx) throws IOException {
+                assertNotNull(ctx.session());
+                ctx.session().updateConfiguration(newConfiguration);
+            }
+        };
+    }
+
+    @Test
+    public void fileIsOnlyWrittenWhenSessionIsClosed() throws Exception {
+        OfflineSession session = client.session();
+        session.apply(change(CHANGED));
+
+        assertEquals(CHANGED, session.configuration());
+        assertEquals(ORIGINAL, Files.toString(configurationFile, Charsets.UTF_8));
+
+        session.close();
+        assertEquals(CHANGED, Files.toString(configurationFile, Charsets.UTF_8));
+    }
+
+    @Test
+    public void flush() throws Exception {
+        OfflineSession session = client.session();
+        try {
+            session.apply(change(CHANGED));
+            session.flush();
+            assertEquals(CHANGED, Files.toString(configurationFile, Charsets.UTF_8));
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    public void refreshDiscardsChangesAndRereadsFile() throws Exception {
+        OfflineSession session = client.session();
+        try {
+            session.apply(change(CHANGED));
+            session.refresh();
+            assertEquals(ORIGINAL, session.configuration());
+        } finally {
+            session.close();
+        }
+        assertEquals(ORIGINAL, Files.toString(configurationFile, Charsets.UTF_8));
+    }
+
+    @Test
+    public void nestedApplyStaysInSession() throws Exception {
+        final OfflineSession session = client.session();
+        try {
+            session.apply(new OfflineCommand() {
+                @Override
+                public void apply(OfflineCommandContext ctx) throws Exception {
+                    assertSame(session, ctx.client);
+                    ctx.client.apply(change(CHANGED));
+                }
+            });
+            assertEquals(CHANGED, session.configuration());
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    public void parsedConfigurationIsOnlySerializedWhenNeeded() throws Exception {
+        final FakeParsedConfiguration parsed = new FakeParsedConfiguration(CHANGED);
+        OfflineSession session = client.session();
+        try {
+            session.apply(new OfflineCommand() {
+                @Override
+                public void apply(OfflineCommandContext ctx) {
+                    assertNull(ctx.session().parsedConfiguration(FakeParsedConfiguration.class));
+                    ctx.session().updateConfiguration(parsed);
+                }
+            });
+            session.apply(new OfflineCommand() {
+                @Override
+                public void apply(OfflineCommandContext ctx) {
+                    assertSame(parsed, ctx.session().parsedConfiguration(FakeParsedConfiguration.class));
+                }
+            });
+            assertEquals(0, parsed.serializations);
+
+            session.flush();
+            assertEquals(1, parsed.serializations);
+            assertEquals(CHANGED, Files.toString(configurationFile, Charsets.UTF_8));
+
+            assertEquals(CHANGED, session.configuration());
+            assertEquals(2, parsed.serializations);
+            assertNull(session.parsedConfiguration(FakeParsedConfiguration.class));
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    public void noSessionByDefault() throws Exception {
+        client.apply(new OfflineCommand() {
+            @Override
+            public void apply(OfflineCommandContext ctx) {
+                assertNull(ctx.session());
+            }
+        });
+    }
+
+    private static final class FakeParsedConfiguration implements OfflineSession.ParsedConfiguration {
+        private final String content;
+        private int serializations;
+
+        FakeParsedConfiguration(String content) {
+            this.content = content;
+        }
+
+        @Override
+        public void writeTo(Writer writer) throws IOException {
+            serializations++;
+            writer.write(content);
+        }
+    }
+}
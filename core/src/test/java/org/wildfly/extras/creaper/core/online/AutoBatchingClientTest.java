@@ -0,0 +1,99 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AutoBatchingClientTest {
+    private OnlineManagementClient delegate;
+    private AutoBatchingClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        delegate = mock(OnlineManagementClient.class);
+        when(delegate.allowFailures()).thenReturn(NoopCloseFailuresAllowedBlock.INSTANCE);
+        client = new AutoBatchingClient(delegate);
+    }
+
+    private static ModelNode operation(String name, String subsystem) {
+        ModelNode operation = new ModelNode();
+        operation.get(Constants.OP).set(name);
+        operation.get(Constants.OP_ADDR).add(Constants.SUBSYSTEM, subsystem);
+        return operation;
+    }
+
+    @Test
+    public void writesAreBufferedAndFlushedAsComposite() throws IOException {
+        ModelNodeResult result = client.execute(operation(Constants.ADD, "foo"));
+        client.execute(operation(Constants.WRITE_ATTRIBUTE_OPERATION, "bar"));
+
+        assertTrue(result.isSuccess());
+        verify(delegate, never()).execute(any(ModelNode.class));
+
+        client.flush();
+
+        ArgumentCaptor<ModelNode> captor = ArgumentCaptor.forClass(ModelNode.class);
+        verify(delegate).execute(captor.capture());
+        ModelNode composite = captor.getValue();
+        assertEquals(Constants.COMPOSITE, composite.get(Constants.OP).asString());
+        assertEquals(2, composite.get(Constants.STEPS).asList().size());
+        assertEquals(Constants.ADD, composite.get(Constants.STEPS).get(0).get(Constants.OP).asString());
+    }
+
+    @Test
+    public void singleBufferedOperationIsExecutedDirectly() throws IOException {
+        ModelNode add = operation(Constants.ADD, "foo");
+        client.execute(add);
+        client.flush();
+
+        verify(delegate).execute(add);
+    }
+
+    @Test
+    public void readFlushesBufferFirst() throws IOException {
+        ModelNode add = operation(Constants.ADD, "foo");
+        ModelNode read = operation(Constants.READ_RESOURCE_OPERATION, "foo");
+        client.execute(add);
+        client.execute(read);
+
+        verify(delegate).execute(add);
+        verify(delegate).execute(read);
+
+        client.flush();
+        verify(delegate, times(2)).execute(any(ModelNode.class));
+    }
+
+    @Test
+    public void operationsAreNotBufferedWhenFailuresAreAllowed() throws IOException {
+        ModelNode remove = operation(Constants.REMOVE_OPERATION, "foo");
+        FailuresAllowedBlock block = client.allowFailures();
+        try {
+            client.execute(remove);
+        } finally {
+            block.close();
+        }
+
+        verify(delegate).execute(remove);
+    }
+
+    @Test
+    public void operationsWithHeadersAreNotBuffered() throws IOException {
+        ModelNode add = operation(Constants.ADD, "foo");
+        add.get(Constants.OPERATION_HEADERS).get(Constants.ALLOW_RESOURCE_SERVICE_RESTART).set(true);
+        client.execute(add);
+
+        verify(delegate).execute(add);
+    }
+}
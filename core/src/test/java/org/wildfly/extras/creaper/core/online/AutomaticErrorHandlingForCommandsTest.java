@@ -0,0 +1,118 @@
+package org.wildfly.extras.creaper.core.online;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.jboss.dmr.ModelNode;
+import org.junit.Test;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AutomaticErrorHandlingForCommandsTest {
+    private static ModelNodeResult result(String outcome) {
+        ModelNode result = new ModelNode();
+        result.get(Constants.OUTCOME).set(outcome);
+        if (Constants.FAILED.equals(outcome)) {
+            result.get(Constants.FAILURE_DESCRIPTION).set("WFLYCTL0216: Management resource not found");
+        } else {
+            result.get(Constants.RESULT).set("foo");
+        }
+        return new ModelNodeResult(result);
+    }
+
+    private static OnlineManagementClient delegateReturning(ListenableFuture<ModelNodeResult> future)
+            throws IOException {
+        OnlineManagementClient delegate = mock(OnlineManagementClient.class);
+        when(delegate.executeAsync(any(ModelNode.class))).thenReturn(future);
+        return delegate;
+    }
+
+    @Test
+    public void asyncSuccessIsPassedThrough() throws Exception {
+        ModelNodeResult success = result(Constants.SUCCESS);
+        OnlineManagementClient client = AutomaticErrorHandlingForCommands.wrap(
+                delegateReturning(Futures.immediateFuture(success)));
+
+        assertSame(success, client.executeAsync(new ModelNode()).get());
+    }
+
+    @Test
+    public void asyncOperationFailureFailsTheFuture() throws Exception {
+        OnlineManagementClient client = AutomaticErrorHandlingForCommands.wrap(
+                delegateReturning(Futures.immediateFuture(result(Constants.FAILED))));
+
+        try {
+            client.executeAsync(new ModelNode()).get();
+            fail("Future should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CommandFailedException);
+            assertTrue(e.getCause().getMessage().contains("WFLYCTL0216"));
+        }
+    }
+
+    @Test
+    public void asyncOperationFailureIsAllowedInFailuresAllowedBlock() throws Exception {
+        SettableFuture<ModelNodeResult> future = SettableFuture.create();
+        OnlineManagementClient client = AutomaticErrorHandlingForCommands.wrap(delegateReturning(future));
+
+        ListenableFuture<ModelNodeResult> result;
+        FailuresAllowedBlock block = client.allowFailures();
+        try {
+            result = client.executeAsync(new ModelNode());
+        } finally {
+            block.close();
+        }
+        // the operation was submitted inside the block, so it doesn't matter that it completes outside of it
+        future.set(result(Constants.FAILED));
+
+        assertTrue(result.get().isFailed());
+    }
+
+    @Test
+    public void asyncExecutionFailureIsPropagated() throws Exception {
+        IOException failure = new IOException("Connection refused");
+        OnlineManagementClient client = AutomaticErrorHandlingForCommands.wrap(
+                delegateReturning(Futures.<ModelNodeResult>immediateFailedFuture(failure)));
+
+        try {
+            client.executeAsync(new ModelNode()).get();
+            fail("Future should have failed");
+        } catch (ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+    }
+
+    @Test
+    public void asyncSubmissionFailureIsThrown() throws IOException {
+        OnlineManagementClient delegate = mock(OnlineManagementClient.class);
+        when(delegate.executeAsync(any(ModelNode.class))).thenThrow(new IOException("Connection refused"));
+        OnlineManagementClient client = AutomaticErrorHandlingForCommands.wrap(delegate);
+
+        try {
+            client.executeAsync(new ModelNode());
+            fail("Submission should have failed");
+        } catch (RuntimeCommandFailedException e) {
+            assertEquals("Connection refused", e.original.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void cancellingCancelsTheOperation() throws IOException {
+        SettableFuture<ModelNodeResult> future = SettableFuture.create();
+        OnlineManagementClient client = AutomaticErrorHandlingForCommands.wrap(delegateReturning(future));
+
+        assertTrue(client.executeAsync(new ModelNode()).cancel(true));
+
+        assertTrue(future.isCancelled());
+    }
+}
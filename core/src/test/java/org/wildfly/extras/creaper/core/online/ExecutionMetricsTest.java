@@ -0,0 +1,83 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExecutionMetricsTest {
+    private static ModelNode operation(String name, String... address) {
+        ModelNode op = new ModelNode();
+        op.get(Constants.OP).set(name);
+        op.get(Constants.OP_ADDR).setEmptyList();
+        for (int i = 0; i < address.length; i += 2) {
+            op.get(Constants.OP_ADDR).add(address[i], address[i + 1]);
+        }
+        return op;
+    }
+
+    private static ModelNodeResult result(String outcome) {
+        ModelNode result = new ModelNode();
+        result.get(Constants.OUTCOME).set(outcome);
+        return new ModelNodeResult(result);
+    }
+
+    @Test
+    public void operationKey() {
+        assertEquals("/:whoami", ExecutionMetrics.operationKey(operation(Constants.WHOAMI)));
+        assertEquals("/subsystem=datasources/data-source=*:add", ExecutionMetrics.operationKey(
+                operation(Constants.ADD, Constants.SUBSYSTEM, "datasources", "data-source", "ExampleDS")));
+        assertEquals("/host=*/server-config=*:start", ExecutionMetrics.operationKey(
+                operation(Constants.START, Constants.HOST, "master", Constants.SERVER_CONFIG, "server-one")));
+        assertEquals("<unknown>", ExecutionMetrics.operationKey(new ModelNode()));
+    }
+
+    @Test
+    public void countsAndErrors() {
+        ExecutionMetrics metrics = new ExecutionMetrics();
+        ModelNode op = operation(Constants.READ_RESOURCE_OPERATION, Constants.SUBSYSTEM, "logging");
+        metrics.operationExecuted(op, result(Constants.SUCCESS), 1000);
+        metrics.operationExecuted(op, result(Constants.FAILED), 1000);
+        metrics.operationExecuted(op, null, 1000);
+        metrics.commandApplied(OnlineCommand.NOOP, true, 5000);
+        metrics.commandApplied(OnlineCommand.NOOP, false, 5000);
+
+        ExecutionMetrics.Snapshot snapshot = metrics.snapshot();
+        ExecutionMetrics.Stats operationStats = snapshot.operations().get("/subsystem=logging:read-resource");
+        assertEquals(3, operationStats.count());
+        assertEquals(2, operationStats.errorCount());
+        assertEquals(3000, operationStats.totalNanos());
+        assertEquals(1000, operationStats.meanNanos());
+
+        ExecutionMetrics.Stats commandStats = snapshot.commands().get(OnlineCommand.NOOP.getClass().getName());
+        assertEquals(2, commandStats.count());
+        assertEquals(1, commandStats.errorCount());
+
+        metrics.reset();
+        assertTrue(metrics.snapshot().operations().isEmpty());
+        assertEquals(3, operationStats.count()); // snapshot isn't affected
+    }
+
+    @Test
+    public void percentiles() {
+        ExecutionMetrics metrics = new ExecutionMetrics();
+        ModelNode op = operation(Constants.WHOAMI);
+        for (int i = 1; i <= 100; i++) {
+            metrics.operationExecuted(op, result(Constants.SUCCESS), TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        ExecutionMetrics.Stats stats = metrics.snapshot().operations().get("/:whoami");
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), stats.maxNanos());
+        assertEquals(stats.maxNanos(), stats.percentileNanos(100));
+        assertWithin(TimeUnit.MILLISECONDS.toNanos(50), stats.percentileNanos(50));
+        assertWithin(TimeUnit.MILLISECONDS.toNanos(90), stats.percentileNanos(90));
+        assertWithin(TimeUnit.MILLISECONDS.toNanos(99), stats.percentileNanos(99));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("Expected " + expected + ", but was " + actual, actual >= expected && actual <= expected * 1.25);
+    }
+}
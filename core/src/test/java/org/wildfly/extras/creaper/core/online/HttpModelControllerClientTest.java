@@ -0,0 +1,394 @@
+package org.wildfly.extras.creaper.core.online;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.jboss.as.controller.client.Operation;
+import org.jboss.as.controller.client.OperationBuilder;
+import org.jboss.dmr.ModelNode;
+import org.jboss.threads.AsyncFuture;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HttpModelControllerClientTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private volatile Responder responder;
+    private HttpModelControllerClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    responder.respond(exchange, ByteStreams.toByteArray(exchange.getRequestBody()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+        // ports can be reused by the next test, but the realm doesn't have to be the same
+        HttpModelControllerClient.KNOWN_REALMS.clear();
+
+        client = new HttpModelControllerClient("127.0.0.1", server.getAddress().getPort(), null, null, 10000, null,
+                4, 1000);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    private static ModelNode operation(String name) {
+        ModelNode operation = new ModelNode();
+        operation.get(Constants.OP).set(name);
+        operation.get(Constants.OP_ADDR).setEmptyList();
+        return operation;
+    }
+
+    private static ModelNode success(String value) {
+        ModelNode result = new ModelNode();
+        result.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        result.get(Constants.RESULT).set(value);
+        return result;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        OutputStream output = exchange.getResponseBody();
+        output.write(bytes);
+        output.close();
+    }
+
+    @Test
+    public void requestIsStreamedAsJson() throws IOException {
+        final List<ModelNode> requests = new CopyOnWriteArrayList<ModelNode>();
+        final List<String> transferEncodings = new CopyOnWriteArrayList<String>();
+        final List<String> accepts = new CopyOnWriteArrayList<String>();
+        responder = new Responder() {
+            @Override
+            public void respond(HttpExchange exchange, byte[] request) throws IOException {
+                requests.add(ModelNode.fromJSONString(new String(request, UTF_8)));
+                transferEncodings.add(exchange.getRequestHeaders().getFirst("Transfer-Encoding"));
+                accepts.add(exchange.getRequestHeaders().getFirst("Accept"));
+                HttpModelControllerClientTest.respond(exchange, 200, "application/json",
+                        success("foo").toJSONString(true));
+            }
+        };
+
+        ModelNode operation = operation(Constants.READ_RESOURCE_OPERATION);
+        operation.get(Constants.RECURSIVE).set(true);
+        operation.get(Constants.OP_ADDR).add("subsystem", "logging");
+        client.execute(operation);
+
+        assertEquals(Collections.singletonList(operation), requests);
+        assertEquals(Collections.singletonList("chunked"), transferEncodings);
+        assertEquals(Collections.singletonList("application/dmr-encoded"), accepts);
+    }
+
+    @Test
+    public void dmrEncodedResponseIsDecoded() throws IOException {
+        responder = new Responder() {
+            @Override
+            public void respond(HttpExchange exchange, byte[] request) throws IOException {
+                ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+                success("foo").writeBase64(encoded);
+                HttpModelControllerClientTest.respond(exchange, 200, "application/dmr-encoded",
+                        new String(encoded.toByteArray(), UTF_8));
+            }
+        };
+
+        ModelNode result = client.execute(operation(Constants.WHOAMI));
+
+        assertEquals(success("foo"), result);
+    }
+
+    @Test
+    public void jsonResponseOfFailedOperationIsDecoded() throws IOException {
+        final ModelNode failed = new ModelNode();
+        failed.get(Constants.OUTCOME).set(Constants.FAILED);
+        failed.get(Constants.FAILURE_DESCRIPTION).set("WFLYCTL0216: Management resource not found");
+        responder = new Responder() {
+            @Override
+            public void respond(HttpExchange exchange, byte[] request) throws IOException {
+                HttpModelControllerClientTest.respond(exchange, 500, "application/json; charset=utf-8",
+                        failed.toJSONString(false));
+            }
+        };
+
+        ModelNode result = client.execute(operation(Constants.WHOAMI));
+
+        assertEquals(failed, result);
+    }
+
+    @Test
+    public void attachmentsAreUploadedAsMultipart() throws IOException {
+        final List<String> paths = new CopyOnWriteArrayList<String>();
+        final List<String> contentTypes = new CopyOnWriteArrayList<String>();
+        final List<String> bodies = new CopyOnWriteArrayList<String>();
+        responder = new Responder() {
+            @Override
+            public void respond(HttpExchange exchange, byte[] request) throws IOException {
+                paths.add(exchange.getRequestURI().getPath());
+                contentTypes.add(exchange.getRequestHeaders().getFirst("Content-Type"));
+                bodies.add(new String(request, UTF_8));
+                HttpModelControllerClientTest.respond(exchange, 200, "application/json",
+                        success("uploaded").toJSONString(true));
+            }
+        };
+
+        ModelNode addDeployment = operation(Constants.ADD);
+        addDeployment.get(Constants.OP_ADDR).add("deployment", "test.war");
+        addDeployment.get("content").add().get("input-stream-index").set(0);
+        Operation operation = OperationBuilder.create(addDeployment, true)
+                .addInputStream(new ByteArrayInputStream("first attachment".getBytes(UTF_8)))
+                .addInputStream(new ByteArrayInputStream("second attachment".getBytes(UTF_8)))
+                .build();
+        ModelNode result = client.execute(operation);
+
+        assertEquals(success("uploaded"), result);
+        assertEquals(Collections.singletonList("/management-upload"), paths);
+        String contentType = contentTypes.get(0);
+        assertTrue(contentType.startsWith("multipart/form-data; boundary="));
+        String boundary = "--" + contentType.substring(contentType.indexOf('=') + 1);
+
+        String[] parts = bodies.get(0).split(boundary);
+        // preamble, operation, 2 attachments, epilogue
+        assertEquals(5, parts.length);
+        assertTrue(parts[1].contains("name=\"operation\""));
+        String operationJson = parts[1].substring(parts[1].indexOf("\r\n\r\n") + 4).trim();
+        assertEquals(addDeployment, ModelNode.fromJSONString(operationJson));
+        assertTrue(parts[2].contains("name=\"file0\""));
+        assertTrue(parts[2].endsWith("\r\n\r\nfirst attachment\r\n"));
+        assertTrue(parts[3].contains("name=\"file1\""));
+        assertTrue(parts[3].endsWith("\r\n\r\nsecond attachment\r\n"));
+        assertEquals("--\r\n", parts[4]);
+    }
+
+    private HttpModelControllerClient authenticatingClient(String username) throws IOException {
+        return new HttpModelControllerClient("127.0.0.1", server.getAddress().getPort(), username, "password",
+                10000, null, 4, 1000);
+    }
+
+    @Test
+    public void managementRealmIsObtainedOnceForEachEndpoint() throws IOException {
+        DigestResponder digest = new DigestResponder("testuser", "ManagementRealm");
+        responder = digest;
+
+        HttpModelControllerClient first = authenticatingClient("testuser");
+        HttpModelControllerClient second = authenticatingClient("testuser");
+        try {
+            assertEquals(success(Constants.WHOAMI), first.execute(operation(Constants.WHOAMI)));
+            assertEquals(success(Constants.WHOAMI), second.execute(operation(Constants.WHOAMI)));
+            assertEquals(1, digest.realmLookups.get());
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test
+    public void staleKnownRealmIsUpdatedAfterUnauthorized() throws IOException {
+        DigestResponder digest = new DigestResponder("testuser", "FirstRealm");
+        responder = digest;
+        authenticatingClient("testuser").close();
+        assertEquals(1, digest.realmLookups.get());
+
+        digest.realm = "SecondRealm";
+        HttpModelControllerClient stale = authenticatingClient("testuser");
+        try {
+            assertEquals(1, digest.realmLookups.get());
+            assertEquals(success(Constants.WHOAMI), stale.execute(operation(Constants.WHOAMI)));
+            assertEquals(2, digest.realmLookups.get());
+        } finally {
+            stale.close();
+        }
+
+        HttpModelControllerClient updated = authenticatingClient("testuser");
+        try {
+            assertEquals(success(Constants.WHOAMI), updated.execute(operation(Constants.WHOAMI)));
+            assertEquals(2, digest.realmLookups.get());
+        } finally {
+            updated.close();
+        }
+    }
+
+    @Test
+    public void managementRealmIsObtainedAgainAfterUnauthorized() throws IOException {
+        DigestResponder digest = new DigestResponder("testuser", "FirstRealm");
+        responder = digest;
+
+        HttpModelControllerClient authenticating = authenticatingClient("testuser");
+        try {
+            assertEquals(success(Constants.WHOAMI), authenticating.execute(operation(Constants.WHOAMI)));
+
+            digest.realm = "SecondRealm";
+            assertEquals(success(Constants.WHOAMI), authenticating.execute(operation(Constants.WHOAMI)));
+            assertEquals(2, digest.realmLookups.get());
+
+            assertEquals(success(Constants.WHOAMI), authenticating.execute(operation(Constants.WHOAMI)));
+            assertEquals(2, digest.realmLookups.get());
+        } finally {
+            authenticating.close();
+        }
+    }
+
+    @Test
+    public void refusedCredentialsAreNotRetriedForTheSameRealm() throws IOException {
+        DigestResponder digest = new DigestResponder("testuser", "ManagementRealm");
+        responder = digest;
+
+        HttpModelControllerClient authenticating = authenticatingClient("unknown");
+        try {
+            authenticating.execute(operation(Constants.WHOAMI));
+            fail("Request should have been refused");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("401"));
+        } finally {
+            authenticating.close();
+        }
+        assertEquals(2, digest.realmLookups.get());
+    }
+
+    @Test
+    public void asyncResultIsReturned() throws Exception {
+        responder = new Responder() {
+            @Override
+            public void respond(HttpExchange exchange, byte[] request) throws IOException {
+                String operationName = ModelNode.fromJSONString(new String(request, UTF_8)).get(Constants.OP)
+                        .asString();
+                HttpModelControllerClientTest.respond(exchange, 200, "application/json",
+                        success(operationName).toJSONString(true));
+            }
+        };
+
+        AsyncFuture<ModelNode> future = client.executeAsync(operation(Constants.WHOAMI), null);
+
+        ModelNode result = future.get(10, TimeUnit.SECONDS);
+        assertEquals(Constants.SUCCESS, result.get(Constants.OUTCOME).asString());
+        assertEquals(Constants.WHOAMI, result.get(Constants.RESULT).asString());
+    }
+
+    @Test
+    public void asyncFailureIsPropagated() throws Exception {
+        responder = new Responder() {
+            @Override
+            public void respond(HttpExchange exchange, byte[] request) throws IOException {
+                HttpModelControllerClientTest.respond(exchange, 404, "text/plain", "Not Found");
+            }
+        };
+
+        AsyncFuture<ModelNode> future = client.executeAsync(operation(Constants.WHOAMI), null);
+
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("Future should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().getMessage().contains("404"));
+        }
+        assertEquals(AsyncFuture.Status.FAILED, future.getStatus());
+    }
+
+    @Test
+    public void asyncRequestCanBeCancelled() throws Exception {
+        final CountDownLatch requestReceived = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        responder = new Responder() {
+            @Override
+            public void respond(HttpExchange exchange, byte[] request) throws IOException, InterruptedException {
+                requestReceived.countDown();
+                release.await(10, TimeUnit.SECONDS);
+                HttpModelControllerClientTest.respond(exchange, 200, "application/json",
+                        success("too late").toJSONString(true));
+            }
+        };
+
+        try {
+            AsyncFuture<ModelNode> future = client.executeAsync(operation(Constants.WHOAMI), null);
+            assertTrue(requestReceived.await(10, TimeUnit.SECONDS));
+
+            future.asyncCancel(true);
+
+            assertEquals(AsyncFuture.Status.CANCELLED, future.await(10, TimeUnit.SECONDS));
+            assertTrue(future.isCancelled());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private interface Responder {
+        void respond(HttpExchange exchange, byte[] request) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Challenges requests that aren't authenticated for the current realm. The digest itself isn't verified,
+     * only the user name. Requests with an empty list of operations are counted as realm lookups.
+     */
+    private static final class DigestResponder implements Responder {
+        private final String username;
+        private volatile String realm;
+        private final AtomicInteger realmLookups = new AtomicInteger();
+
+        DigestResponder(String username, String realm) {
+            this.username = username;
+            this.realm = realm;
+        }
+
+        @Override
+        public void respond(HttpExchange exchange, byte[] request) throws IOException {
+            String currentRealm = realm;
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if ("[]".equals(new String(request, UTF_8)) && authorization == null) {
+                realmLookups.incrementAndGet();
+            }
+
+            if (authorization != null && authorization.contains("realm=\"" + currentRealm + "\"")
+                    && authorization.contains("username=\"" + username + "\"")) {
+                HttpModelControllerClientTest.respond(exchange, 200, "application/json",
+                        success(Constants.WHOAMI).toJSONString(true));
+            } else {
+                exchange.getResponseHeaders().set("WWW-Authenticate",
+                        "Digest realm=\"" + currentRealm + "\", nonce=\"" + UUID.randomUUID()
+                                + "\", qop=\"auth\", algorithm=MD5");
+                HttpModelControllerClientTest.respond(exchange, 401, "text/plain", "Unauthorized");
+            }
+        }
+    }
+}
@@ -38,4 +38,26 @@ public class ModelNodeOperationToCliStringTest {
         assertEquals("composite: /deployment=CLIWebservicesWsdlIT.war:add(content=[{bytes => <bytes>}]), /deployment=CLIWebservicesWsdlIT.war:deploy",
                 ModelNodeOperationToCliString.convert(op));
     }
+
+    @Test
+    public void nestedParameters() {
+        ModelNode op = new ModelNode();
+        op.get(Constants.OP).set(Constants.ADD);
+        op.get(Constants.OP_ADDR).setEmptyList().add("foo", "bar");
+        op.get("list").add("a").add("b");
+        op.get("object", "x").set(1);
+        op.get("object", "y").add(true);
+        assertEquals("/foo=bar:add(list=[a, b], object={x => 1, y => [true]})",
+                ModelNodeOperationToCliString.convert(op));
+    }
+
+    @Test
+    public void operationIsNotModified() {
+        ModelNode op = new ModelNode();
+        op.get(Constants.NAME).set("abc");
+        ModelNode original = op.clone();
+
+        assertEquals(original.asString(), ModelNodeOperationToCliString.convert(op));
+        assertEquals(original, op);
+    }
 }
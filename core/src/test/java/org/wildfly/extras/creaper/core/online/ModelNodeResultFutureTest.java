@@ -0,0 +1,97 @@
+package org.wildfly.extras.creaper.core.online;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.jboss.dmr.ModelNode;
+import org.jboss.threads.AsyncFutureTask;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ModelNodeResultFutureTest {
+    @Test
+    public void resultIsWrapped() throws Exception {
+        FakeAsyncFuture delegate = new FakeAsyncFuture();
+        ListenableFuture<ModelNodeResult> future = ModelNodeResultFuture.of(delegate);
+        assertFalse(future.isDone());
+
+        ModelNode result = new ModelNode();
+        result.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        result.get(Constants.RESULT).set("foo");
+        delegate.complete(result);
+
+        assertTrue(future.isDone());
+        assertTrue(future.get().isSuccess());
+        assertEquals("foo", future.get().stringValue());
+    }
+
+    @Test
+    public void failureIsPropagated() throws InterruptedException {
+        FakeAsyncFuture delegate = new FakeAsyncFuture();
+        ListenableFuture<ModelNodeResult> future = ModelNodeResultFuture.of(delegate);
+
+        IOException failure = new IOException("Connection refused");
+        delegate.fail(failure);
+
+        try {
+            future.get();
+            fail("Future should have failed");
+        } catch (ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+    }
+
+    @Test
+    public void cancellingCancelsTheOperation() {
+        FakeAsyncFuture delegate = new FakeAsyncFuture();
+        ListenableFuture<ModelNodeResult> future = ModelNodeResultFuture.of(delegate);
+
+        assertTrue(future.cancel(true));
+
+        assertTrue(future.isCancelled());
+        assertTrue(delegate.cancelRequested);
+        assertEquals(AsyncFutureTask.Status.CANCELLED, delegate.getStatus());
+    }
+
+    @Test
+    public void cancelledOperationCancelsTheFuture() {
+        FakeAsyncFuture delegate = new FakeAsyncFuture();
+        ListenableFuture<ModelNodeResult> future = ModelNodeResultFuture.of(delegate);
+
+        delegate.cancelled();
+
+        assertTrue(future.isCancelled());
+    }
+
+    private static final class FakeAsyncFuture extends AsyncFutureTask<ModelNode> {
+        private boolean cancelRequested;
+
+        FakeAsyncFuture() {
+            super(null);
+        }
+
+        void complete(ModelNode result) {
+            setResult(result);
+        }
+
+        void fail(Throwable cause) {
+            setFailed(cause);
+        }
+
+        void cancelled() {
+            setCancelled();
+        }
+
+        @Override
+        public void asyncCancel(boolean interruptionDesired) {
+            cancelRequested = true;
+            setCancelled();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.junit.Test;
+import org.wildfly.extras.creaper.core.ServerVersion;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class OnlineClientPoolTest {
+    private static OnlineOptions options(int port) {
+        return OnlineOptions.standalone().hostAndPort("localhost", port).build();
+    }
+
+    private static final class RecordingConnector implements OnlineClientPool.Connector {
+        final List<OnlineManagementClient> created = new ArrayList<OnlineManagementClient>();
+        final List<ServerVersion> knownVersions = new ArrayList<ServerVersion>();
+
+        @Override
+        public OnlineManagementClient connect(OnlineOptions options, ServerVersion knownVersion) throws IOException {
+            OnlineManagementClient client = mock(OnlineManagementClient.class);
+            when(client.version()).thenReturn(ServerVersion.VERSION_4_0_0);
+            created.add(client);
+            knownVersions.add(knownVersion);
+            return client;
+        }
+    }
+
+    @Test
+    public void returnedClientIsReused() throws Exception {
+        RecordingConnector connector = new RecordingConnector();
+        OnlineClientPool pool = OnlineClientPool.of(2, connector);
+        try {
+            OnlineManagementClient first = pool.lease(options(9990));
+            first.close();
+            assertEquals(1, pool.idleCount());
+
+            OnlineManagementClient second = pool.lease(options(9990));
+            second.execute(":whoami");
+            second.close();
+
+            assertEquals(1, connector.created.size());
+            verify(connector.created.get(0)).execute(":whoami");
+            verify(connector.created.get(0), never()).close();
+        } finally {
+            pool.close();
+        }
+        verify(connector.created.get(0)).close();
+    }
+
+    @Test
+    public void differentServersDontShareClients() throws IOException {
+        RecordingConnector connector = new RecordingConnector();
+        OnlineClientPool pool = OnlineClientPool.of(2, connector);
+        try {
+            pool.lease(options(9990)).close();
+            pool.lease(options(9991)).close();
+
+            assertEquals(2, connector.created.size());
+            assertEquals(2, pool.idleCount());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void equalRetryPoliciesShareClients() throws IOException {
+        RecordingConnector connector = new RecordingConnector();
+        OnlineClientPool pool = OnlineClientPool.of(2, connector);
+        try {
+            pool.lease(OnlineOptions.standalone().hostAndPort("localhost", 9990)
+                    .retryPolicy(RetryPolicy.fixedDelay(100)).build()).close();
+            pool.lease(OnlineOptions.standalone().hostAndPort("localhost", 9990)
+                    .retryPolicy(RetryPolicy.fixedDelay(100)).build()).close();
+            pool.lease(OnlineOptions.standalone().hostAndPort("localhost", 9990)
+                    .retryPolicy(RetryPolicy.fixedDelay(200)).build()).close();
+
+            assertEquals(2, connector.created.size());
+            assertEquals(2, pool.idleCount());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void knownVersionIsPassedToNewClients() throws IOException {
+        RecordingConnector connector = new RecordingConnector();
+        OnlineClientPool pool = OnlineClientPool.of(2, connector);
+        try {
+            OnlineManagementClient first = pool.lease(options(9990));
+            OnlineManagementClient second = pool.lease(options(9990));
+            first.close();
+            second.close();
+
+            assertEquals(2, connector.created.size());
+            assertNull(connector.knownVersions.get(0));
+            assertSame(ServerVersion.VERSION_4_0_0, connector.knownVersions.get(1));
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void excessIdleClientsAreClosed() throws IOException {
+        RecordingConnector connector = new RecordingConnector();
+        OnlineClientPool pool = OnlineClientPool.of(1, connector);
+        try {
+            OnlineManagementClient first = pool.lease(options(9990));
+            OnlineManagementClient second = pool.lease(options(9990));
+            first.close();
+            second.close();
+
+            assertEquals(1, pool.idleCount());
+            verify(connector.created.get(0), never()).close();
+            verify(connector.created.get(1)).close();
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void leasedClientCantBeUsedAfterClose() throws Exception {
+        OnlineClientPool pool = OnlineClientPool.of(1, new RecordingConnector());
+        try {
+            OnlineManagementClient client = pool.lease(options(9990));
+            client.close();
+            client.close(); // no effect
+            assertEquals(1, pool.idleCount());
+
+            try {
+                client.execute(":whoami");
+                fail("Closed client shouldn't be usable");
+            } catch (ClientAlreadyClosedException expected) {
+            }
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrappedClientsCantBePooled() throws IOException {
+        OnlineClientPool pool = OnlineClientPool.of(1, new RecordingConnector());
+        try {
+            pool.lease(OnlineOptions.standalone().wrap(mock(ModelControllerClient.class)));
+        } finally {
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.junit.Test;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class OnlineFleetTest {
+    private static final OnlineCommand NOOP = new OnlineCommand() {
+        @Override
+        public void apply(OnlineCommandContext ctx) {
+        }
+    };
+
+    private static OnlineOptions options(int port) {
+        return OnlineOptions.standalone().hostAndPort("localhost", port).build();
+    }
+
+    @Test
+    public void failureOnOneServerDoesntAffectOthers() throws Exception {
+        OnlineManagementClient ok1 = mock(OnlineManagementClient.class);
+        OnlineManagementClient failing = mock(OnlineManagementClient.class);
+        OnlineManagementClient ok2 = mock(OnlineManagementClient.class);
+        CommandFailedException failure = new CommandFailedException("expected");
+        doThrow(failure).when(failing).apply(anyListOf(OnlineCommand.class));
+
+        List<OnlineOptions> options = Arrays.asList(options(9990), options(9991), options(9992));
+        OnlineFleet fleet = OnlineFleet.of(options, Arrays.asList(ok1, failing, ok2), 2);
+        try {
+            FleetReport report = fleet.apply(NOOP);
+
+            assertFalse(report.isSuccess());
+            assertEquals(3, report.results().size());
+            assertTrue(report.results().get(0).isSuccess());
+            assertSame(failure, report.results().get(1).failure());
+            assertTrue(report.results().get(2).isSuccess());
+            assertEquals(1, report.failures().size());
+            assertSame(options.get(1), report.failures().get(0).options());
+
+            verify(ok1).apply(Arrays.asList(NOOP));
+            verify(ok2).apply(Arrays.asList(NOOP));
+        } finally {
+            fleet.close();
+        }
+    }
+
+    @Test
+    public void assertSuccess() throws IOException, CommandFailedException {
+        OnlineManagementClient ok = mock(OnlineManagementClient.class);
+        OnlineFleet fleet = OnlineFleet.of(Arrays.asList(options(9990)), Arrays.asList(ok), 1);
+        try {
+            fleet.apply(NOOP).assertSuccess();
+        } finally {
+            fleet.close();
+        }
+        verify(ok).close();
+    }
+
+    @Test
+    public void assertSuccessReportsFailedServers() throws IOException, CommandFailedException {
+        OnlineManagementClient failing = mock(OnlineManagementClient.class);
+        doThrow(new CommandFailedException("expected")).when(failing).apply(anyListOf(OnlineCommand.class));
+        OnlineFleet fleet = OnlineFleet.of(Arrays.asList(options(9990)), Arrays.asList(failing), 1);
+        try {
+            fleet.apply(NOOP).assertSuccess();
+            fail("CommandFailedException expected");
+        } catch (CommandFailedException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("localhost:9990: expected"));
+        } finally {
+            fleet.close();
+        }
+    }
+}
@@ -4,13 +4,19 @@ import org.jboss.as.controller.client.ModelControllerClient;
 import org.jboss.dmr.ModelNode;
 import org.wildfly.extras.creaper.core.ManagementVersionPart;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.wildfly.extras.creaper.core.ServerVersion;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class OnlineServerVersionTest {
@@ -107,4 +113,53 @@ public class OnlineServerVersionTest {
 
         OnlineServerVersion.discover(mock);
     }
+
+    @Test
+    public void discoverUsingCompositeReadAttribute() throws IOException {
+        ModelNode result = new ModelNode();
+        result.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        int[] values = {4, 1, 0};
+        for (int i = 0; i < values.length; i++) {
+            ModelNode step = result.get(Constants.RESULT, "step-" + (i + 1));
+            step.get(Constants.OUTCOME).set(Constants.SUCCESS);
+            step.get(Constants.RESULT).set(values[i]);
+        }
+
+        ModelControllerClient client = mock(ModelControllerClient.class);
+        when(client.execute(any(ModelNode.class))).thenReturn(result);
+
+        assertEquals(ServerVersion.VERSION_4_1_0, OnlineServerVersion.discover(client));
+        verify(client, times(1)).execute(any(ModelNode.class));
+    }
+
+    @Test
+    public void workingStrategyIsRememberedPerEndpoint() throws IOException {
+        final List<ModelNode> executed = new ArrayList<ModelNode>();
+        ModelControllerClient client = mock(ModelControllerClient.class);
+        when(client.execute(any(ModelNode.class))).thenAnswer(new Answer<ModelNode>() {
+            @Override
+            public ModelNode answer(InvocationOnMock invocation) {
+                ModelNode op = (ModelNode) invocation.getArguments()[0];
+                executed.add(op);
+
+                ModelNode result = new ModelNode();
+                if (Constants.READ_RESOURCE_OPERATION.equals(op.get(Constants.OP).asString())
+                        && !op.hasDefined(Constants.ATTRIBUTES_ONLY)) {
+                    // AS 7.0 only supports the full read-resource
+                    result.get(Constants.OUTCOME).set(Constants.SUCCESS);
+                    result.get(Constants.RESULT).setEmptyObject();
+                } else {
+                    result.get(Constants.OUTCOME).set(Constants.FAILED);
+                }
+                return result;
+            }
+        });
+
+        assertEquals(ServerVersion.VERSION_0_0_0, OnlineServerVersion.discover(client, "as70:9999"));
+        assertEquals(3, executed.size());
+
+        executed.clear();
+        assertEquals(ServerVersion.VERSION_0_0_0, OnlineServerVersion.discover(client, "as70:9999"));
+        assertEquals(1, executed.size());
+    }
 }
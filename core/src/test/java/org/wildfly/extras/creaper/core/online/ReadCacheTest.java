@@ -0,0 +1,233 @@
+package org.wildfly.extras.creaper.core.online;
+
+import com.google.common.base.Ticker;
+import org.jboss.dmr.ModelNode;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ReadCacheTest {
+    private static final long TTL = TimeUnit.SECONDS.toNanos(10);
+
+    private FakeTicker ticker;
+    private ReadCache cache;
+
+    @Before
+    public void setUp() {
+        ticker = new FakeTicker();
+        cache = new ReadCache(3, TTL, ticker);
+    }
+
+    private static ModelNode operation(String name, String... address) {
+        ModelNode op = new ModelNode();
+        op.get(Constants.OP).set(name);
+        op.get(Constants.OP_ADDR).setEmptyList();
+        for (int i = 0; i < address.length; i += 2) {
+            op.get(Constants.OP_ADDR).add(address[i], address[i + 1]);
+        }
+        return op;
+    }
+
+    private static ModelNode readAttribute(String attribute, String... address) {
+        ModelNode op = operation(Constants.READ_ATTRIBUTE_OPERATION, address);
+        op.get(Constants.NAME).set(attribute);
+        return op;
+    }
+
+    private static ModelNodeResult success(String value) {
+        ModelNode result = new ModelNode();
+        result.get(Constants.OUTCOME).set(Constants.SUCCESS);
+        result.get(Constants.RESULT).set(value);
+        return new ModelNodeResult(result);
+    }
+
+    @Test
+    public void cachesSuccessfulReads() {
+        ModelNode op = readAttribute("foo", "subsystem", "test");
+        assertNull(cache.get(op));
+
+        cache.executed(op, success("bar"), cache.generation());
+        ModelNodeResult cached = cache.get(op);
+        assertNotNull(cached);
+        assertEquals("bar", cached.stringValue());
+
+        cached.get(Constants.RESULT).set("modified");
+        assertEquals("bar", cache.get(op).stringValue()); // a copy is returned
+        assertNull(cache.get(readAttribute("baz", "subsystem", "test")));
+    }
+
+    @Test
+    public void doesntCacheFailuresAndRuntimeReads() {
+        ModelNode failed = new ModelNode();
+        failed.get(Constants.OUTCOME).set(Constants.FAILED);
+        ModelNode op = readAttribute("foo", "subsystem", "test");
+        cache.executed(op, new ModelNodeResult(failed), cache.generation());
+        cache.executed(op, null, cache.generation());
+        assertNull(cache.get(op));
+
+        ModelNode serverState = readAttribute(Constants.SERVER_STATE);
+        cache.executed(serverState, success("running"), cache.generation());
+        assertNull(cache.get(serverState));
+
+        ModelNode runtime = operation(Constants.READ_RESOURCE_OPERATION, "subsystem", "test");
+        runtime.get(Constants.INCLUDE_RUNTIME).set(true);
+        cache.executed(runtime, success("bar"), cache.generation());
+        assertNull(cache.get(runtime));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void writesInvalidateOverlappingAddresses() {
+        ModelNode parent = operation(Constants.READ_CHILDREN_NAMES_OPERATION, "subsystem", "test");
+        ModelNode child = readAttribute("foo", "subsystem", "test", "child", "a");
+        ModelNode sibling = readAttribute("foo", "subsystem", "test", "child", "b");
+        cache.executed(parent, success("x"), cache.generation());
+        cache.executed(child, success("x"), cache.generation());
+        cache.executed(sibling, success("x"), cache.generation());
+
+        cache.executed(operation(Constants.ADD, "subsystem", "test", "child", "a", "grandchild", "c"), success("x"),
+                cache.generation());
+
+        assertNull(cache.get(parent));
+        assertNull(cache.get(child));
+        assertNotNull(cache.get(sibling));
+
+        cache.executed(operation(Constants.REMOVE_OPERATION, "subsystem", "test"), success("x"), cache.generation());
+        assertNull(cache.get(sibling));
+    }
+
+    @Test
+    public void readOnlyOperationsDontInvalidate() {
+        ModelNode op = readAttribute("foo", "subsystem", "test");
+        cache.executed(op, success("bar"), cache.generation());
+
+        cache.executed(operation(Constants.READ_CHILDREN_TYPES, "subsystem", "test"), success("x"), cache.generation());
+        cache.executed(operation(Constants.WHOAMI), success("x"), cache.generation());
+
+        assertNotNull(cache.get(op));
+    }
+
+    @Test
+    public void compositeInvalidatesEachStep() {
+        ModelNode first = readAttribute("foo", "subsystem", "first");
+        ModelNode second = readAttribute("foo", "subsystem", "second");
+        ModelNode third = readAttribute("foo", "subsystem", "third");
+        cache.executed(first, success("x"), cache.generation());
+        cache.executed(second, success("x"), cache.generation());
+        cache.executed(third, success("x"), cache.generation());
+
+        ModelNode composite = operation(Constants.COMPOSITE);
+        composite.get(Constants.STEPS).add(readAttribute("foo", "subsystem", "first"));
+        composite.get(Constants.STEPS).add(operation(Constants.UNDEFINE_ATTRIBUTE_OPERATION, "subsystem", "second"));
+        cache.executed(composite, success("x"), cache.generation());
+
+        assertNotNull(cache.get(first));
+        assertNull(cache.get(second));
+        assertNotNull(cache.get(third));
+    }
+
+    @Test
+    public void writeToRootInvalidatesEverything() {
+        ModelNode op = readAttribute("foo", "subsystem", "test");
+        cache.executed(op, success("bar"), cache.generation());
+
+        cache.executed(operation(Constants.RELOAD), success("x"), cache.generation());
+
+        assertNull(cache.get(op));
+    }
+
+    @Test
+    public void expiration() {
+        ModelNode op = readAttribute("foo", "subsystem", "test");
+        cache.executed(op, success("bar"), cache.generation());
+
+        ticker.advance(TTL - 1);
+        assertNotNull(cache.get(op));
+
+        ticker.advance(1);
+        assertNull(cache.get(op));
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() {
+        ModelNode first = readAttribute("foo", "subsystem", "first");
+        ModelNode second = readAttribute("foo", "subsystem", "second");
+        ModelNode third = readAttribute("foo", "subsystem", "third");
+        ModelNode fourth = readAttribute("foo", "subsystem", "fourth");
+        cache.executed(first, success("x"), cache.generation());
+        cache.executed(second, success("x"), cache.generation());
+        cache.executed(third, success("x"), cache.generation());
+        cache.get(first);
+
+        cache.executed(fourth, success("x"), cache.generation());
+
+        assertEquals(3, cache.size());
+        assertNotNull(cache.get(first));
+        assertNull(cache.get(second));
+    }
+
+    @Test
+    public void readStartedBeforeConcurrentWriteIsNotCached() {
+        ModelNode read = readAttribute("foo", "subsystem", "test");
+        long readGeneration = cache.generation();
+
+        cache.executed(operation(Constants.WRITE_ATTRIBUTE_OPERATION, "subsystem", "test"), success("x"),
+                cache.generation());
+        cache.executed(read, success("stale"), readGeneration);
+
+        assertNull(cache.get(read));
+    }
+
+    @Test
+    public void readStartedBeforeUnrelatedReadIsCached() {
+        ModelNode read = readAttribute("foo", "subsystem", "test");
+        long readGeneration = cache.generation();
+
+        cache.executed(readAttribute("foo", "subsystem", "other"), success("x"), cache.generation());
+        cache.executed(read, success("bar"), readGeneration);
+
+        assertNotNull(cache.get(read));
+    }
+
+    @Test
+    public void readStartedBeforeInvalidateAllIsNotCached() {
+        ModelNode read = readAttribute("foo", "subsystem", "test");
+        long readGeneration = cache.generation();
+
+        cache.invalidateAll();
+        cache.executed(read, success("stale"), readGeneration);
+
+        assertNull(cache.get(read));
+    }
+
+    @Test
+    public void overlap() {
+        assertTrue(ReadCache.overlap(Arrays.<String>asList(), Arrays.asList("a", "b")));
+        assertTrue(ReadCache.overlap(Arrays.asList("a", "b"), Arrays.asList("a", "b", "c", "d")));
+        assertTrue(ReadCache.overlap(Arrays.asList("a", "*", "c", "d"), Arrays.asList("a", "b", "c", "d")));
+        assertFalse(ReadCache.overlap(Arrays.asList("a", "b", "c", "d"), Arrays.asList("a", "b", "c", "e")));
+        assertFalse(ReadCache.overlap(Arrays.asList("a", "b"), Arrays.asList("x", "b")));
+    }
+
+    private static final class FakeTicker extends Ticker {
+        private long nanos;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        void advance(long nanos) {
+            this.nanos += nanos;
+        }
+    }
+}
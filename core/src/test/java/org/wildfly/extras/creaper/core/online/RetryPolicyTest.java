@@ -0,0 +1,85 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryPolicyTest {
+    @Test
+    public void equalSettingsAreEqual() {
+        assertEquals(RetryPolicy.fixedDelay(100), RetryPolicy.fixedDelay(100));
+        assertEquals(RetryPolicy.fixedDelay(100).hashCode(), RetryPolicy.fixedDelay(100).hashCode());
+        assertEquals(RetryPolicy.DEFAULT, new RetryPolicy.Builder().build());
+
+        assertFalse(RetryPolicy.fixedDelay(100).equals(RetryPolicy.fixedDelay(200)));
+        assertFalse(RetryPolicy.DEFAULT.equals(new RetryPolicy.Builder().jitter(0.2).build()));
+        assertFalse(RetryPolicy.DEFAULT.equals(new RetryPolicy.Builder().multiplier(3).build()));
+        assertFalse(RetryPolicy.DEFAULT.equals(new RetryPolicy.Builder().maxAttempts(5).build()));
+    }
+
+    @Test
+    public void exponentialBackoffIsCappedByMaxDelay() {
+        RetryPolicy policy = new RetryPolicy.Builder().initialDelay(100).maxDelay(500).multiplier(2).jitter(0).build();
+
+        assertEquals(0, policy.baseDelayBefore(1));
+        assertEquals(100, policy.baseDelayBefore(2));
+        assertEquals(200, policy.baseDelayBefore(3));
+        assertEquals(400, policy.baseDelayBefore(4));
+        assertEquals(500, policy.baseDelayBefore(5));
+        assertEquals(500, policy.baseDelayBefore(50));
+    }
+
+    @Test
+    public void fixedDelay() {
+        RetryPolicy policy = RetryPolicy.fixedDelay(200);
+
+        assertEquals(200, policy.delayBefore(2));
+        assertEquals(200, policy.delayBefore(10));
+    }
+
+    @Test
+    public void jitterStaysWithinBounds() {
+        RetryPolicy policy = new RetryPolicy.Builder().initialDelay(1000).maxDelay(1000).jitter(0.5).build();
+
+        for (int i = 0; i < 100; i++) {
+            long delay = policy.delayBefore(2);
+            assertTrue("Delay out of bounds: " + delay, delay >= 500 && delay <= 1500);
+        }
+    }
+
+    @Test
+    public void maxAttempts() throws InterruptedException {
+        RetryPolicy policy = new RetryPolicy.Builder().initialDelay(0).maxDelay(0).maxAttempts(3).build();
+
+        RetryPolicy.Attempts attempts = policy.start(60000);
+        assertTrue(attempts.next());
+        assertTrue(attempts.next());
+        assertTrue(attempts.next());
+        assertFalse(attempts.next());
+        assertEquals(3, attempts.count());
+    }
+
+    @Test
+    public void zeroTimeoutMeansSingleAttempt() throws InterruptedException {
+        RetryPolicy.Attempts attempts = RetryPolicy.DEFAULT.start(0);
+        assertTrue(attempts.next());
+        assertFalse(attempts.next());
+    }
+
+    @Test
+    public void timeoutReportsAttempts() throws InterruptedException {
+        RetryPolicy.Attempts attempts = RetryPolicy.fixedDelay(1).start(10);
+        while (attempts.next()) {
+            // keep trying
+        }
+
+        TimeoutException exception = attempts.timeout("Waiting timed out");
+        assertTrue(exception.getMessage(), exception.getMessage().startsWith("Waiting timed out ("
+                + attempts.count() + " attempts in "));
+        assertTrue(attempts.count() > 1);
+    }
+}
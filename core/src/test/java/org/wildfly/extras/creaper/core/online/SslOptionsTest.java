@@ -0,0 +1,58 @@
+package org.wildfly.extras.creaper.core.online;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class SslOptionsTest {
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private static SslOptions options(File trustStore, String password) {
+        return new SslOptions.Builder()
+                .trustStore(trustStore)
+                .trustStorePassword(password)
+                .build();
+    }
+
+    @Test
+    public void equalSettingsAreEqual() throws IOException {
+        File trustStore = tmp.newFile("truststore.jks");
+
+        SslOptions first = options(trustStore, "secret");
+        SslOptions second = options(new File(trustStore.getPath()), "secret");
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertEquals(new SslOptions.Builder().build(), new SslOptions.Builder().build());
+    }
+
+    @Test
+    public void differentSettingsAreDifferent() throws IOException {
+        File trustStore = tmp.newFile("truststore.jks");
+        File otherTrustStore = tmp.newFile("other.jks");
+
+        assertFalse(options(trustStore, "secret").equals(options(otherTrustStore, "secret")));
+        assertFalse(options(trustStore, "secret").equals(options(trustStore, "other")));
+        assertFalse(new SslOptions.Builder().build().equals(
+                new SslOptions.Builder().turnOffHostnameVerification().build()));
+    }
+
+    @Test
+    public void equalOptionsShareClientPool() throws IOException {
+        File trustStore = tmp.newFile("truststore.jks");
+
+        OnlineOptions first = OnlineOptions.standalone().hostAndPort("localhost", 9993)
+                .ssl(options(trustStore, "secret")).build();
+        OnlineOptions second = OnlineOptions.standalone().hostAndPort("localhost", 9993)
+                .ssl(options(trustStore, "secret")).build();
+
+        assertEquals(first.poolKey(), second.poolKey());
+    }
+}
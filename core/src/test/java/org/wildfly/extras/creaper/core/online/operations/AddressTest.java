@@ -190,4 +190,21 @@ public class AddressTest {
         assertEquals("/deployment=simple.war", singleElementAddress.toString());
         assertEquals("simple.war", singleElementAddress.getLastPairValue());
     }
+
+    @Test
+    public void parentAndLastPairKey() {
+        Address address = Address.subsystem("foo").and("bar", "baz");
+
+        assertEquals("bar", address.getLastPairKey());
+        assertEquals("/subsystem=foo", address.parent().toString());
+        assertTrue(address.parent().parent().isRoot());
+        assertFalse(address.isRoot());
+    }
+
+    @Test
+    public void wildcard() {
+        assertFalse(Address.subsystem("foo").and("bar", "baz").containsWildcard());
+        assertTrue(Address.subsystem("foo").and("bar", "*").containsWildcard());
+        assertTrue(Address.host("*").and("server", "foo").containsWildcard());
+    }
 }
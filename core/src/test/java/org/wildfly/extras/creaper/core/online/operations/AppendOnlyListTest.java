@@ -0,0 +1,55 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AppendOnlyListTest {
+    @Test
+    public void appendingDoesntChangeOriginalList() {
+        AppendOnlyList<String> empty = AppendOnlyList.empty();
+        AppendOnlyList<String> one = empty.append("a");
+        AppendOnlyList<String> two = one.append("b");
+
+        assertTrue(empty.isEmpty());
+        assertEquals(ImmutableList.of("a"), ImmutableList.copyOf(one));
+        assertEquals(ImmutableList.of("a", "b"), ImmutableList.copyOf(two));
+    }
+
+    @Test
+    public void branching() {
+        AppendOnlyList<String> prefix = AppendOnlyList.<String>empty().append("a").append("b");
+        AppendOnlyList<String> first = prefix.append("c");
+        AppendOnlyList<String> second = prefix.append("d");
+        AppendOnlyList<String> firstLonger = first.append("e");
+        AppendOnlyList<String> secondLonger = second.append("f");
+
+        assertEquals(ImmutableList.of("a", "b"), ImmutableList.copyOf(prefix));
+        assertEquals(ImmutableList.of("a", "b", "c"), ImmutableList.copyOf(first));
+        assertEquals(ImmutableList.of("a", "b", "d"), ImmutableList.copyOf(second));
+        assertEquals(ImmutableList.of("a", "b", "c", "e"), ImmutableList.copyOf(firstLonger));
+        assertEquals(ImmutableList.of("a", "b", "d", "f"), ImmutableList.copyOf(secondLonger));
+    }
+
+    @Test
+    public void manyElements() {
+        AppendOnlyList<Integer> list = AppendOnlyList.empty();
+        for (int i = 0; i < 1000; i++) {
+            list = list.append(i);
+        }
+
+        assertEquals(1000, list.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, list.get(i).intValue());
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void elementsAppendedToOtherListsAreNotVisible() {
+        AppendOnlyList<String> one = AppendOnlyList.<String>empty().append("a");
+        one.append("b");
+        one.get(1);
+    }
+}
@@ -0,0 +1,226 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+import org.jboss.dmr.ModelNode;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BatchExecutorTest {
+    private static final Address ADDRESS = Address.subsystem("test");
+
+    private static Batch batch(int size) {
+        Batch batch = new Batch();
+        for (int i = 0; i < size; i++) {
+            batch.writeAttribute(ADDRESS, "attr-" + i, i);
+        }
+        return batch;
+    }
+
+    /** Steps writing attribute with a name ending with {@code failingSuffix} fail, and so does the entire chunk. */
+    private static ModelNodeResult compositeResult(ModelNode composite, String failingSuffix) {
+        ModelNode result = new ModelNode();
+        boolean failed = false;
+        List<ModelNode> steps = composite.get(Constants.STEPS).asList();
+        for (int i = 0; i < steps.size(); i++) {
+            ModelNode step = result.get(Constants.RESULT, "step-" + (i + 1));
+            step.get(Constants.RESULT).set(steps.get(i).get("name"));
+            if (failingSuffix != null && steps.get(i).get("name").asString().endsWith(failingSuffix)) {
+                step.get(Constants.OUTCOME).set(Constants.FAILED);
+                step.get(Constants.FAILURE_DESCRIPTION).set("failed");
+                failed = true;
+            } else {
+                step.get(Constants.OUTCOME).set(Constants.SUCCESS);
+            }
+        }
+        result.get(Constants.OUTCOME).set(failed ? Constants.FAILED : Constants.SUCCESS);
+        return new ModelNodeResult(result);
+    }
+
+    private static OnlineManagementClient mockClient(final String failingSuffix) throws IOException {
+        OnlineManagementClient client = mock(OnlineManagementClient.class);
+        when(client.execute(any(ModelNode.class))).thenAnswer(new Answer<ModelNodeResult>() {
+            @Override
+            public ModelNodeResult answer(InvocationOnMock invocation) {
+                return compositeResult((ModelNode) invocation.getArguments()[0], failingSuffix);
+            }
+        });
+        when(client.executeAsync(any(ModelNode.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return Futures.immediateFuture(compositeResult((ModelNode) invocation.getArguments()[0],
+                        failingSuffix));
+            }
+        });
+        return client;
+    }
+
+    @Test
+    public void chunksByStepCount() throws IOException {
+        BatchExecutor executor = new BatchExecutor.Builder(mockClient(null)).maxStepsPerChunk(3).build();
+        List<List<ModelNode>> chunks = executor.chunks(batch(7).operations());
+
+        assertEquals(3, chunks.size());
+        assertEquals(3, chunks.get(0).size());
+        assertEquals(3, chunks.get(1).size());
+        assertEquals(1, chunks.get(2).size());
+    }
+
+    @Test
+    public void chunksBySize() throws IOException {
+        Batch batch = batch(10);
+        long operationSize = BatchExecutor.sizeOf(batch.operations().get(0));
+
+        BatchExecutor executor = new BatchExecutor.Builder(mockClient(null))
+                .maxChunkSizeInBytes(operationSize * 4 + 2)
+                .build();
+        List<List<ModelNode>> chunks = executor.chunks(batch.operations());
+
+        assertEquals(3, chunks.size());
+        assertEquals(4, chunks.get(0).size());
+        assertEquals(4, chunks.get(1).size());
+        assertEquals(2, chunks.get(2).size());
+    }
+
+    @Test
+    public void operationBiggerThanMaxSizeHasItsOwnChunk() throws IOException {
+        BatchExecutor executor = new BatchExecutor.Builder(mockClient(null)).maxChunkSizeInBytes(1).build();
+        assertEquals(3, executor.chunks(batch(3).operations()).size());
+    }
+
+    @Test
+    public void sequentialExecution() throws IOException {
+        OnlineManagementClient client = mockClient(null);
+        BatchExecutor executor = new BatchExecutor.Builder(client).maxStepsPerChunk(4).build();
+
+        BatchExecutor.Results results = executor.execute(batch(10));
+        int count = 0;
+        while (results.hasNext()) {
+            results.next().assertSuccess();
+            count++;
+        }
+        results.close();
+
+        assertEquals(10, count);
+        assertEquals(0, results.skippedSteps());
+        verify(client, times(3)).execute(any(ModelNode.class));
+    }
+
+    @Test
+    public void pipelinedExecution() throws IOException {
+        OnlineManagementClient client = mockClient(null);
+        BatchExecutor executor = new BatchExecutor.Builder(client).maxStepsPerChunk(4).maxChunksInFlight(2).build();
+
+        BatchExecutor.Results results = executor.execute(batch(10));
+        int count = 0;
+        while (results.hasNext()) {
+            results.next().assertSuccess();
+            count++;
+        }
+        results.close();
+
+        assertEquals(10, count);
+        verify(client, times(3)).executeAsync(any(ModelNode.class));
+    }
+
+    @Test
+    public void pipelinedResultsAreInBatchOrderWhenChunksFinishOutOfOrder() throws IOException {
+        final List<ModelNode> chunks = new ArrayList<ModelNode>();
+        final List<SettableFuture<ModelNodeResult>> futures = new ArrayList<SettableFuture<ModelNodeResult>>();
+        OnlineManagementClient client = mock(OnlineManagementClient.class);
+        when(client.executeAsync(any(ModelNode.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                SettableFuture<ModelNodeResult> future = SettableFuture.create();
+                chunks.add((ModelNode) invocation.getArguments()[0]);
+                futures.add(future);
+                return future;
+            }
+        });
+        BatchExecutor executor = new BatchExecutor.Builder(client).maxStepsPerChunk(4).maxChunksInFlight(3).build();
+
+        BatchExecutor.Results results = executor.execute(batch(10));
+        assertEquals(3, futures.size());
+        for (int i = futures.size() - 1; i >= 0; i--) {
+            futures.get(i).set(compositeResult(chunks.get(i), null));
+        }
+
+        int count = 0;
+        while (results.hasNext()) {
+            assertEquals("attr-" + count, results.next().stringValue());
+            count++;
+        }
+        results.close();
+
+        assertEquals(10, count);
+    }
+
+    @Test
+    public void continueOnFailure() throws IOException {
+        BatchExecutor executor = new BatchExecutor.Builder(mockClient("-5")).maxStepsPerChunk(4).build();
+
+        BatchExecutor.Results results = executor.execute(batch(10));
+        int failed = 0;
+        int count = 0;
+        while (results.hasNext()) {
+            if (results.next().isFailed()) {
+                failed++;
+            }
+            count++;
+        }
+
+        assertEquals(10, count);
+        assertEquals(1, failed);
+    }
+
+    @Test
+    public void stopOnFailure() throws IOException {
+        OnlineManagementClient client = mockClient("-5");
+        BatchExecutor executor = new BatchExecutor.Builder(client).maxStepsPerChunk(4).stopOnFailure().build();
+
+        BatchExecutor.Results results = executor.execute(batch(10));
+        int count = 0;
+        while (results.hasNext()) {
+            results.next();
+            count++;
+        }
+
+        assertEquals(8, count);
+        assertEquals(2, results.skippedSteps());
+        verify(client, times(2)).execute(any(ModelNode.class));
+    }
+
+    @Test
+    public void compositeFailureWithoutStepResults() throws IOException {
+        OnlineManagementClient client = mock(OnlineManagementClient.class);
+        ModelNode failure = new ModelNode();
+        failure.get(Constants.OUTCOME).set(Constants.FAILED);
+        failure.get(Constants.FAILURE_DESCRIPTION).set("composite failed");
+        when(client.execute(any(ModelNode.class))).thenReturn(new ModelNodeResult(failure));
+
+        BatchExecutor.Results results = new BatchExecutor.Builder(client).build().execute(batch(2));
+        assertTrue(results.hasNext());
+        ModelNodeResult first = results.next();
+        assertTrue(first.isFailed());
+        assertEquals("composite failed", first.get(Constants.FAILURE_DESCRIPTION).asString());
+        assertTrue(results.next().isFailed());
+        assertFalse(results.hasNext());
+    }
+}
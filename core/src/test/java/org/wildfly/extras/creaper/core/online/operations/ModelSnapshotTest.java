@@ -0,0 +1,109 @@
+package org.wildfly.extras.creaper.core.online.operations;
+
+import com.google.common.util.concurrent.Futures;
+import org.jboss.dmr.ModelNode;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ModelSnapshotTest {
+    private static final Address LOGGING = Address.subsystem("logging");
+    private static final Address DATASOURCES = Address.subsystem("datasources");
+
+    /** Answers recursive reads of the logging subsystem and of all data sources; everything else is not found. */
+    private static OnlineManagementClient mockClient() throws IOException {
+        OnlineManagementClient client = mock(OnlineManagementClient.class);
+        when(client.executeAsync(any(ModelNode.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                ModelNode operation = (ModelNode) invocation.getArguments()[0];
+                String address = operation.get(Constants.OP_ADDR).asString();
+                ModelNode result = new ModelNode();
+                if (address.equals(LOGGING.toModelNode().asString())) {
+                    result.get(Constants.OUTCOME).set(Constants.SUCCESS);
+                    result.get(Constants.RESULT, "add-logging-api-dependencies").set(true);
+                    result.get(Constants.RESULT, "logger", "com.example", "level").set("DEBUG");
+                    result.get(Constants.RESULT, "logger", "org.example", "level").set("INFO");
+                } else if (address.equals(DATASOURCES.and("data-source", "*").toModelNode().asString())) {
+                    result.get(Constants.OUTCOME).set(Constants.SUCCESS);
+                    ModelNode item = new ModelNode();
+                    item.get(Constants.OP_ADDR).set(DATASOURCES.and("data-source", "ExampleDS").toModelNode());
+                    item.get(Constants.OUTCOME).set(Constants.SUCCESS);
+                    item.get(Constants.RESULT, "jndi-name").set("java:jboss/datasources/ExampleDS");
+                    result.get(Constants.RESULT).add(item);
+                } else {
+                    result.get(Constants.OUTCOME).set(Constants.FAILED);
+                    result.get(Constants.FAILURE_DESCRIPTION).set("WFLYCTL0216: Management resource not found");
+                }
+                return Futures.immediateFuture(new ModelNodeResult(result));
+            }
+        });
+        return client;
+    }
+
+    @Test
+    public void minimize() {
+        List<Address> minimized = ModelSnapshot.minimize(Arrays.asList(
+                LOGGING.and("logger", "*"),
+                LOGGING,
+                DATASOURCES.and("data-source", "*"),
+                DATASOURCES.and("data-source", "ExampleDS"),
+                LOGGING
+        ));
+
+        assertEquals(2, minimized.size());
+        assertEquals(LOGGING.toString(), minimized.get(0).toString());
+        assertEquals(DATASOURCES.and("data-source", "*").toString(), minimized.get(1).toString());
+    }
+
+    @Test
+    public void lookup() throws IOException, OperationException {
+        ModelSnapshot snapshot = new ModelSnapshot.Builder(mockClient())
+                .address(LOGGING)
+                .address(LOGGING.and("logger", "*"))
+                .address(DATASOURCES.and("data-source", "*"))
+                .address(Address.subsystem("nonexisting"))
+                .take();
+
+        assertEquals(3, snapshot.reads());
+
+        assertTrue(snapshot.attribute(LOGGING, "add-logging-api-dependencies").asBoolean());
+        assertEquals(Arrays.asList("com.example", "org.example"), snapshot.childrenNames(LOGGING, "logger"));
+        assertEquals("DEBUG", snapshot.attribute(LOGGING.and("logger", "com.example"), "level").asString());
+        assertFalse(snapshot.exists(LOGGING.and("logger", "net.example")));
+        assertFalse(snapshot.attribute(LOGGING.and("logger", "org.example"), "filter-spec").isDefined());
+
+        Address exampleDs = DATASOURCES.and("data-source", "ExampleDS");
+        assertEquals("java:jboss/datasources/ExampleDS", snapshot.attribute(exampleDs, "jndi-name").asString());
+        assertNull(snapshot.get(DATASOURCES.and("data-source", "OtherDS")));
+
+        assertFalse(snapshot.exists(Address.subsystem("nonexisting")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addressNotInSnapshot() throws IOException, OperationException {
+        ModelSnapshot snapshot = new ModelSnapshot.Builder(mockClient()).address(LOGGING).take();
+        snapshot.get(DATASOURCES);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void resourcesAreProtected() throws IOException, OperationException {
+        ModelSnapshot snapshot = new ModelSnapshot.Builder(mockClient()).address(LOGGING).take();
+        snapshot.get(LOGGING).get("add-logging-api-dependencies").set(false);
+    }
+}
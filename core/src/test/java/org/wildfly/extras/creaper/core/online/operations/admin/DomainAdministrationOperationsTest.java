@@ -0,0 +1,178 @@
+package org.wildfly.extras.creaper.core.online.operations.admin;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.wildfly.extras.creaper.core.online.Constants;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
+import org.wildfly.extras.creaper.core.online.RetryPolicy;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DomainAdministrationOperationsTest {
+    private OnlineManagementClient client;
+
+    @Before
+    public void setUp() {
+        client = mock(OnlineManagementClient.class);
+        when(client.options()).thenReturn(OnlineOptions.standalone()
+                .hostAndPort("localhost", 9990)
+                .retryPolicy(RetryPolicy.fixedDelay(1))
+                .build());
+    }
+
+    /** Result of {@code /host=*&#47;server-config=*:read-attribute(name=status)}, as returned by the server. */
+    private static ModelNodeResult wildcardStatuses(String serverTwoStatus) {
+        return new ModelNodeResult(ModelNode.fromString("{"
+                + "\"outcome\" => \"success\","
+                + "\"result\" => ["
+                + "    {"
+                + "        \"address\" => [(\"host\" => \"master\"), (\"server-config\" => \"server-one\")],"
+                + "        \"outcome\" => \"success\","
+                + "        \"result\" => \"STARTED\""
+                + "    },"
+                + "    {"
+                + "        \"address\" => [(\"host\" => \"master\"), (\"server-config\" => \"server-two\")],"
+                + "        \"outcome\" => \"success\","
+                + "        \"result\" => \"" + serverTwoStatus + "\""
+                + "    },"
+                + "    {"
+                + "        \"address\" => [(\"host\" => \"slave\"), (\"server-config\" => \"server-three\")],"
+                + "        \"outcome\" => \"success\","
+                + "        \"result\" => \"STOPPED\""
+                + "    }"
+                + "]"
+                + "}"));
+    }
+
+    private static Map<String, List<String>> servers(String host, String... servers) {
+        return Collections.singletonMap(host, Arrays.asList(servers));
+    }
+
+    @Test
+    public void serverStatusesAreReadByWildcardReadAttribute() throws Exception {
+        when(client.execute(any(ModelNode.class))).thenReturn(wildcardStatuses("STOPPING"));
+
+        Map<String, Map<String, String>> statuses = new DomainAdministrationOperations(client, 10)
+                .serverStatusesOnAllHosts();
+
+        Map<String, String> master = new LinkedHashMap<String, String>();
+        master.put("server-one", "STARTED");
+        master.put("server-two", "STOPPING");
+        Map<String, Map<String, String>> expected = new LinkedHashMap<String, Map<String, String>>();
+        expected.put("master", master);
+        expected.put("slave", Collections.singletonMap("server-three", "STOPPED"));
+        assertEquals(expected, statuses);
+
+        ArgumentCaptor<ModelNode> operation = ArgumentCaptor.forClass(ModelNode.class);
+        verify(client).execute(operation.capture());
+        assertEquals(Constants.READ_ATTRIBUTE_OPERATION, operation.getValue().get(Constants.OP).asString());
+        assertEquals(Constants.STATUS, operation.getValue().get(Constants.NAME).asString());
+        ModelNode address = operation.getValue().get(Constants.OP_ADDR);
+        assertEquals("*", address.get(0).get(Constants.HOST).asString());
+        assertEquals("*", address.get(1).get(Constants.SERVER_CONFIG).asString());
+    }
+
+    @Test(expected = AssertionError.class)
+    public void failedServerInWildcardResultIsReported() {
+        ModelNodeResult result = wildcardStatuses("STARTED");
+        ModelNode failed = result.get(Constants.RESULT).get(1);
+        failed.get(Constants.OUTCOME).set(Constants.FAILED);
+        failed.get(Constants.FAILURE_DESCRIPTION).set("failed");
+        failed.remove(Constants.RESULT);
+
+        DomainAdministrationOperations.serverStatuses(result);
+    }
+
+    @Test
+    public void runningServersOnAllHosts() throws Exception {
+        when(client.execute(any(ModelNode.class))).thenReturn(wildcardStatuses("STARTING"));
+
+        Map<String, List<String>> expected = new LinkedHashMap<String, List<String>>();
+        expected.put("master", Collections.singletonList("server-one"));
+        expected.put("slave", Collections.<String>emptyList());
+        assertEquals(expected, new DomainAdministrationOperations(client, 10).allRunningServersOnAllHosts());
+        verify(client, times(1)).execute(any(ModelNode.class));
+    }
+
+    @Test
+    public void startedServers() {
+        // result of /host=master:read-children-resources(child-type=server-config, include-runtime=true)
+        ModelNode serverConfigs = ModelNode.fromString("{"
+                + "\"server-one\" => {\"auto-start\" => true, \"group\" => \"main\", \"status\" => \"STARTED\"},"
+                + "\"server-two\" => {\"auto-start\" => true, \"group\" => \"main\", \"status\" => \"STARTING\"},"
+                + "\"server-three\" => {\"auto-start\" => false, \"group\" => \"other\", \"status\" => \"STARTED\"},"
+                + "\"server-four\" => {\"auto-start\" => false, \"group\" => \"other\", \"status\" => \"DISABLED\"},"
+                + "\"server-five\" => {\"auto-start\" => false, \"group\" => \"other\", \"status\" => undefined}"
+                + "}");
+
+        assertEquals(Arrays.asList("server-one", "server-three"),
+                DomainAdministrationOperations.startedServers(serverConfigs));
+        assertEquals(Collections.<String>emptyList(),
+                DomainAdministrationOperations.startedServers(new ModelNode().setEmptyObject()));
+    }
+
+    @Test
+    public void serverStates() {
+        Map<String, Map<String, String>> statuses = DomainAdministrationOperations.serverStatuses(
+                wildcardStatuses("STARTING"));
+
+        assertTrue(DomainAdministrationOperations.areServersInState(statuses, servers("master", "server-one"), true));
+        assertFalse(DomainAdministrationOperations.areServersInState(statuses,
+                servers("master", "server-one", "server-two"), true));
+        assertFalse(DomainAdministrationOperations.areServersInState(statuses,
+                servers("master", "server-two"), false));
+        assertTrue(DomainAdministrationOperations.areServersInState(statuses, servers("slave", "server-three"), false));
+        // servers of hosts that are gone are considered stopped
+        assertTrue(DomainAdministrationOperations.areServersInState(statuses, servers("gone", "server-four"), false));
+    }
+
+    @Test
+    public void waitsForAllServersUsingSingleOperationPerAttempt() throws Exception {
+        when(client.execute(any(ModelNode.class)))
+                .thenReturn(wildcardStatuses("STARTING"))
+                .thenReturn(wildcardStatuses("STARTING"))
+                .thenReturn(wildcardStatuses("STARTED"));
+
+        Map<String, List<String>> serversOnHosts = new LinkedHashMap<String, List<String>>();
+        serversOnHosts.put("master", Arrays.asList("server-one", "server-two"));
+        new DomainAdministrationOperations(client, 10).waitUntilServersAreStarted(serversOnHosts);
+
+        verify(client, times(3)).execute(any(ModelNode.class));
+        verify(client, never()).reconnect(anyInt());
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void waitingForServersToStopTimesOut() throws Exception {
+        when(client.execute(any(ModelNode.class))).thenReturn(wildcardStatuses("STOPPING"));
+
+        new DomainAdministrationOperations(client, 0).waitUntilServersAreStopped(servers("master", "server-two"));
+    }
+
+    @Test
+    public void waitingForNoServersDoesNothing() throws Exception {
+        new DomainAdministrationOperations(client, 10)
+                .waitUntilServersAreStopped(Collections.<String, List<String>>emptyMap());
+
+        verify(client, never()).execute(any(ModelNode.class));
+    }
+}
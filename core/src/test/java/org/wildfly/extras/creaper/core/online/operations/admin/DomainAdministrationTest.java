@@ -0,0 +1,185 @@
+package org.wildfly.extras.creaper.core.online.operations.admin;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.extras.creaper.core.online.ModelNodeResult;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
+import org.wildfly.extras.creaper.core.online.RetryPolicy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DomainAdministrationTest {
+    private static final List<String> HOSTS = Arrays.asList("slave1", "master", "slave2", "slave3");
+
+    private OnlineManagementClient client;
+    private DomainAdministration administration;
+
+    @Before
+    public void setUp() throws IOException {
+        client = mock(OnlineManagementClient.class);
+        when(client.options()).thenReturn(OnlineOptions.domain()
+                .build()
+                .hostAndPort("localhost", 9990)
+                .retryPolicy(RetryPolicy.fixedDelay(1))
+                .build());
+        // the only operation executed by forAllHosts itself is reading local-host-name
+        when(client.execute(any(ModelNode.class))).thenReturn(
+                new ModelNodeResult(ModelNode.fromString("{\"outcome\" => \"success\", \"result\" => \"master\"}")));
+        administration = new DomainAdministration(client);
+    }
+
+    /** Records the order in which hosts are handled, the thread and whether reconnecting was allowed. */
+    private static class RecordingTask implements DomainAdministration.HostTask {
+        final List<String> hosts = Collections.synchronizedList(new ArrayList<String>());
+        final Map<String, Thread> threads = new ConcurrentHashMap<String, Thread>();
+        final Map<String, Boolean> reconnectAllowed = new ConcurrentHashMap<String, Boolean>();
+
+        @Override
+        public void run(String host, boolean reconnectAllowed) throws IOException, InterruptedException,
+                TimeoutException {
+            hosts.add(host);
+            threads.put(host, Thread.currentThread());
+            this.reconnectAllowed.put(host, reconnectAllowed);
+        }
+    }
+
+    @Test
+    public void domainControllerRunsLastOnCallingThread() throws Exception {
+        RecordingTask task = new RecordingTask();
+        administration.forAllHosts(HOSTS, 2, true, task);
+
+        assertEquals(new HashSet<String>(HOSTS), new HashSet<String>(task.hosts));
+        assertEquals(HOSTS.size(), task.hosts.size());
+        assertEquals("master", task.hosts.get(HOSTS.size() - 1));
+        assertSame(Thread.currentThread(), task.threads.get("master"));
+        assertTrue(task.reconnectAllowed.get("master"));
+
+        for (String host : Arrays.asList("slave1", "slave2", "slave3")) {
+            assertNotSame(Thread.currentThread(), task.threads.get(host));
+            assertFalse(task.reconnectAllowed.get(host));
+        }
+    }
+
+    @Test
+    public void domainControllerIsNotTreatedSpeciallyIfNotRequested() throws Exception {
+        RecordingTask task = new RecordingTask();
+        administration.forAllHosts(HOSTS, 2, false, task);
+
+        assertEquals(new HashSet<String>(HOSTS), new HashSet<String>(task.hosts));
+        for (String host : HOSTS) {
+            assertNotSame(Thread.currentThread(), task.threads.get(host));
+            assertFalse(task.reconnectAllowed.get(host));
+        }
+        verify(client, never()).execute(any(ModelNode.class));
+    }
+
+    @Test
+    public void domainControllerIsSkippedWhenOtherHostFails() throws Exception {
+        final IOException failure = new IOException("slave2 failed");
+        RecordingTask task = new RecordingTask() {
+            @Override
+            public void run(String host, boolean reconnectAllowed) throws IOException, InterruptedException,
+                    TimeoutException {
+                super.run(host, reconnectAllowed);
+                if ("slave2".equals(host)) {
+                    throw failure;
+                }
+            }
+        };
+
+        try {
+            administration.forAllHosts(HOSTS, 2, true, task);
+            fail("Failure of host slave2 should have been thrown");
+        } catch (IOException e) {
+            assertSame(failure, e);
+        }
+
+        // the other hosts are still handled
+        assertEquals(new HashSet<String>(Arrays.asList("slave1", "slave2", "slave3")), new HashSet<String>(task.hosts));
+        assertFalse(task.hosts.contains("master"));
+    }
+
+    @Test
+    public void firstFailureIsRethrownWithOriginalType() throws Exception {
+        final TimeoutException timeout = new TimeoutException("slave1 timed out");
+        DomainAdministration.HostTask task = new DomainAdministration.HostTask() {
+            @Override
+            public void run(String host, boolean reconnectAllowed) throws IOException, InterruptedException,
+                    TimeoutException {
+                if ("slave1".equals(host)) {
+                    throw timeout;
+                } else if ("slave3".equals(host)) {
+                    throw new IllegalStateException("slave3 failed");
+                }
+            }
+        };
+
+        try {
+            administration.forAllHosts(HOSTS, 1, true, task);
+            fail("Failure of host slave1 should have been thrown");
+        } catch (TimeoutException e) {
+            assertSame(timeout, e);
+        }
+    }
+
+    @Test
+    public void runtimeFailureIsRethrownWithOriginalType() throws Exception {
+        final IllegalStateException failure = new IllegalStateException("slave3 failed");
+        DomainAdministration.HostTask task = new DomainAdministration.HostTask() {
+            @Override
+            public void run(String host, boolean reconnectAllowed) {
+                if ("slave3".equals(host)) {
+                    throw failure;
+                }
+            }
+        };
+
+        try {
+            administration.forAllHosts(HOSTS, 4, true, task);
+            fail("Failure of host slave3 should have been thrown");
+        } catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroParallelismIsRejected() throws Exception {
+        administration.reloadAll(HOSTS, 0);
+    }
+
+    @Test
+    public void negativeParallelismIsRejected() throws Exception {
+        RecordingTask task = new RecordingTask();
+        try {
+            administration.forAllHosts(HOSTS, -1, true, task);
+            fail("Negative parallelism should have been rejected");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+
+        assertTrue(task.hosts.isEmpty());
+        verify(client, never()).execute(any(ModelNode.class));
+    }
+}
@@ -0,0 +1,122 @@
+package org.wildfly.extras.creaper.core.online.operations.admin;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
+import org.wildfly.extras.creaper.core.online.RetryPolicy;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReadinessWaiterTest {
+    private OnlineManagementClient client;
+
+    @Before
+    public void setUp() {
+        client = mock(OnlineManagementClient.class);
+        when(client.options()).thenReturn(OnlineOptions.standalone()
+                .hostAndPort("localhost", 9990)
+                .retryPolicy(RetryPolicy.fixedDelay(1))
+                .build());
+    }
+
+    /** Running, running, down, down, running. */
+    private static final class ReloadingServer implements ReadinessWaiter.Probe {
+        int probes;
+
+        @Override
+        public boolean isRunning() throws IOException {
+            probes++;
+            if (probes == 3) {
+                throw new IOException("Connection closed");
+            }
+            return probes != 4;
+        }
+    }
+
+    @Test
+    public void waitsUntilServerGoesDownAndComesBack() throws Exception {
+        ReadinessWaiter waiter = new ReadinessWaiter(client, 10);
+        ReloadingServer server = new ReloadingServer();
+
+        long start = System.currentTimeMillis();
+        waiter.waitUntilRunning(false, false, server, "timeout");
+
+        assertEquals(5, server.probes);
+        assertTrue(System.currentTimeMillis() - start < ReadinessWaiter.MAX_GOING_DOWN_MILLIS);
+        verify(client, never()).reconnect(10);
+    }
+
+    @Test
+    public void serverThatDoesntGoDownIsWaitedForAtMostTheGracePeriod() throws Exception {
+        ReadinessWaiter waiter = new ReadinessWaiter(client, 10);
+
+        long start = System.currentTimeMillis();
+        waiter.waitUntilRunning(false, false, new ReadinessWaiter.Probe() {
+            @Override
+            public boolean isRunning() {
+                return true;
+            }
+        }, "timeout");
+
+        assertTrue(System.currentTimeMillis() - start >= ReadinessWaiter.MAX_GOING_DOWN_MILLIS);
+    }
+
+    @Test
+    public void failedOperationSkipsWaitingForServerToGoDownAndRemembersDuration() throws Exception {
+        ReadinessWaiter waiter = new ReadinessWaiter(client, 10);
+        assertEquals(-1, waiter.lastRestartDuration());
+
+        final int[] probes = {0};
+        waiter.waitAfterRestartOperation(System.currentTimeMillis() - 1000, true, true, new ReadinessWaiter.Probe() {
+            @Override
+            public boolean isRunning() {
+                probes[0]++;
+                return true;
+            }
+        }, "timeout");
+
+        assertEquals(1, probes[0]);
+        assertTrue(waiter.lastRestartDuration() >= 1000);
+        verify(client).reconnect(10);
+    }
+
+    @Test
+    public void failedOperationDoesntReconnectWhenNotAllowed() throws Exception {
+        ReadinessWaiter waiter = new ReadinessWaiter(client, 10);
+
+        final int[] probes = {0};
+        waiter.waitAfterRestartOperation(System.currentTimeMillis(), true, false, new ReadinessWaiter.Probe() {
+            @Override
+            public boolean isRunning() throws IOException {
+                probes[0]++;
+                if (probes[0] == 1) {
+                    throw new IOException("Connection closed");
+                }
+                return true;
+            }
+        }, "timeout");
+
+        assertEquals(2, probes[0]);
+        verify(client, never()).reconnect(10);
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void timeout() throws Exception {
+        ReadinessWaiter waiter = new ReadinessWaiter(client, 0);
+        waiter.waitUntilRunning(true, false, new ReadinessWaiter.Probe() {
+            @Override
+            public boolean isRunning() throws IOException {
+                throw new IOException("Connection refused");
+            }
+        }, "timeout");
+    }
+}
@@ -0,0 +1,118 @@
+package org.wildfly.extras.creaper.commands.deployments;
+
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.wildfly.extras.creaper.commands.auth.PropertiesFileAuth;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.ServerVersion;
+import org.wildfly.extras.creaper.core.offline.OfflineManagementClient;
+import org.wildfly.extras.creaper.core.offline.OfflineOptions;
+import org.wildfly.extras.creaper.core.online.ManagementProtocol;
+import org.wildfly.extras.creaper.core.online.OnlineManagementClient;
+import org.wildfly.extras.creaper.core.online.OnlineOptions;
+import org.wildfly.extras.creaper.core.online.operations.Address;
+import org.wildfly.extras.creaper.core.online.operations.OperationException;
+import org.wildfly.extras.creaper.core.online.operations.Operations;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Deploys over the HTTP management interface, where the deployment is uploaded as a multipart request
+ * to the {@code /management-upload} endpoint.
+ */
+@RunWith(Arquillian.class)
+public class DeployUndeployOverHttpCmdTest {
+    private static final String USERNAME = "testuser";
+    private static final String PASSWORD = "testpass";
+
+    private static final String DEPLOYMENT_NAME = "test-http-deployment.war";
+    private static final Address TEST_DEPLOYMENT_ADDRESS = Address.deployment(DEPLOYMENT_NAME);
+    private static final WebArchive TEST_DEPLOYMENT = ShrinkWrap.create(WebArchive.class, DEPLOYMENT_NAME)
+            .add(new StringAsset("Hello Creaper over HTTP"), "index.html");
+
+    private static OfflineManagementClient offlineClient;
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private OnlineManagementClient client;
+    private Operations ops;
+
+    @BeforeClass
+    public static void addUser() throws IOException, CommandFailedException {
+        offlineClient = ManagementClient.offline(OfflineOptions.standalone()
+                .rootDirectory(new File("target/jboss-as"))
+                .configurationFile("standalone.xml")
+                .build()
+        );
+
+        offlineClient.apply(PropertiesFileAuth.mgmtUsers().defineUser(USERNAME, PASSWORD));
+    }
+
+    @AfterClass
+    public static void removeUser() throws CommandFailedException {
+        offlineClient.apply(PropertiesFileAuth.mgmtUsers().undefineUser(USERNAME));
+    }
+
+    @Before
+    public void connect() throws IOException, OperationException {
+        client = ManagementClient.online(OnlineOptions.standalone()
+                .localDefault()
+                .protocol(ManagementProtocol.HTTP)
+                .auth(USERNAME, PASSWORD)
+                .connectionTimeout(5000)
+                .build()
+        );
+        ops = new Operations(client);
+        // the /management-upload endpoint is only available since WildFly 9
+        assumeTrue(client.version().greaterThanOrEqualTo(ServerVersion.VERSION_3_0_0));
+        ops.removeIfExists(TEST_DEPLOYMENT_ADDRESS);
+    }
+
+    @After
+    public void close() throws IOException, OperationException {
+        try {
+            ops.removeIfExists(TEST_DEPLOYMENT_ADDRESS);
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void deployInputStream() throws Exception {
+        InputStream inputStream = TEST_DEPLOYMENT.as(ZipExporter.class).exportAsInputStream();
+        client.apply(new Deploy.Builder(inputStream, DEPLOYMENT_NAME, true).build());
+        Assert.assertTrue(ops.exists(TEST_DEPLOYMENT_ADDRESS));
+
+        client.apply(new Undeploy.Builder(DEPLOYMENT_NAME).build());
+        Assert.assertFalse(ops.exists(TEST_DEPLOYMENT_ADDRESS));
+    }
+
+    @Test
+    public void deployFile() throws Exception {
+        File deploymentFile = new File(tmp.getRoot(), DEPLOYMENT_NAME);
+        TEST_DEPLOYMENT.as(ZipExporter.class).exportTo(deploymentFile, true);
+        client.apply(new Deploy.Builder(deploymentFile).build());
+        Assert.assertTrue(ops.exists(TEST_DEPLOYMENT_ADDRESS));
+
+        client.apply(new Undeploy.Builder(DEPLOYMENT_NAME).build());
+        Assert.assertFalse(ops.exists(TEST_DEPLOYMENT_ADDRESS));
+    }
+}
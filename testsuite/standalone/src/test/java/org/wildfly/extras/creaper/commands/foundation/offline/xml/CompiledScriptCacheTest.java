@@ -0,0 +1,56 @@
+package org.wildfly.extras.creaper.commands.foundation.offline.xml;
+
+import groovy.lang.Script;
+import org.junit.Test;
+import org.wildfly.extras.creaper.core.CommandFailedException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CompiledScriptCacheTest {
+    private static final String PACKAGE = "/org/wildfly/extras/creaper/commands/foundation/offline/xml/";
+
+    @Test
+    public void scriptIsOnlyCompiledOnce() throws CommandFailedException {
+        Class compiled = CompiledScriptCache.get(
+                new TransformationScript(ExampleSimpleTransformation.class, "ExampleSimpleTransformation.groovy"));
+        assertTrue(Script.class.isAssignableFrom(compiled));
+
+        assertSame(compiled, CompiledScriptCache.get(
+                new TransformationScript(ExampleSimpleTransformation.class, "ExampleSimpleTransformation.groovy")));
+        // relative and absolute paths to the same script
+        assertSame(compiled, CompiledScriptCache.get(
+                new TransformationScript(GroovyXmlTransform.class, PACKAGE + "ExampleSimpleTransformation.groovy")));
+    }
+
+    @Test
+    public void differentScriptsAreCompiledSeparately() throws CommandFailedException {
+        Class simple = CompiledScriptCache.get(
+                new TransformationScript(ExampleSimpleTransformation.class, "ExampleSimpleTransformation.groovy"));
+        Class parameterized = CompiledScriptCache.get(new TransformationScript(
+                ExampleParameterizedTransformation.class, "ExampleParameterizedTransformation.groovy"));
+
+        assertNotSame(simple, parameterized);
+    }
+
+    @Test(expected = CommandFailedException.class)
+    public void missingScript() throws CommandFailedException {
+        CompiledScriptCache.get(new TransformationScript(ExampleSimpleTransformation.class, "Nonexisting.groovy"));
+    }
+
+    @Test
+    public void precompiledScriptsAreCached() throws CommandFailedException {
+        int count = GroovyXmlTransform.precompileScripts();
+        assertTrue(count > 0);
+
+        TransformationScript shipped = new TransformationScript(GroovyXmlTransform.class,
+                "/org/wildfly/extras/creaper/commands/orb/ChangeOrb.groovy");
+        Class compiled = CompiledScriptCache.get(shipped);
+        assertTrue(Script.class.isAssignableFrom(compiled));
+
+        assertEquals(count, GroovyXmlTransform.precompileScripts());
+        assertSame(compiled, CompiledScriptCache.get(shipped));
+    }
+}
@@ -1,45 +1,36 @@
 package org.wildfly.extras.creaper.commands.foundation.offline.xml;
 
+import groovy.util.XmlSlurper;
+import groovy.util.slurpersupport.GPathResult;
+import groovy.util.slurpersupport.Node;
+import groovy.xml.XmlUtil;
 import org.custommonkey.xmlunit.XMLUnit;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.xml.sax.SAXException;
 
 import java.io.IOException;
+import javax.xml.parsers.ParserConfigurationException;
 
 import static org.wildfly.extras.creaper.XmlAssert.assertXmlIdentical;
 
 public class FirstLevelXmlElementOrderTest {
-    private static final String DOMAIN_XML = ""
-            + "<?xml version=\"1.0\" ?>\n"
-            + "<domain xmlns=\"urn:jboss:domain:4.1\">\n"
-            + "    <extensions/>\n"
-            + "    <system-properties/>\n"
-            + "    <management/>\n"
-            + "    <profiles/>\n"
-            + "    <interfaces/>\n"
-            + "    <socket-binding-groups/>\n"
-            + "    <server-groups/>\n"
-            + "    <host-excludes/>\n"
-            + "</domain>";
-
-    private static final String HOST_XML = ""
-            + "<?xml version=\"1.0\" ?>\n"
-            + "<host xmlns=\"urn:jboss:domain:4.1\" name=\"master\">\n"
+    private static final String SERVER_XML_MISSING_ELEMENTS = ""
+            + "<?xml version=\"1.0\"?>\n"
+            + "<server xmlns=\"urn:jboss:domain:4.1\">\n"
             + "    <extensions/>\n"
             + "    <management/>\n"
-            + "    <domain-controller/>\n"
+            + "    <foobar/>\n"
             + "    <interfaces/>\n"
-            + "    <jvms/>\n"
-            + "    <servers/>\n"
-            + "    <profile/>\n"
-            + "</host>";
+            + "</server>";
 
-    private static final String SERVER_XML = ""
+    private static final String SERVER_XML_INSERTED_ELEMENTS = ""
             + "<?xml version=\"1.0\"?>\n"
             + "<server xmlns=\"urn:jboss:domain:4.1\">\n"
             + "    <extensions/>\n"
+            + "    <paths/>\n"
             + "    <management/>\n"
+            + "    <foobar/>\n"
             + "    <profile/>\n"
             + "    <interfaces/>\n"
             + "    <socket-binding-group/>\n"
@@ -53,22 +44,17 @@ public class FirstLevelXmlElementOrderTest {
     }
 
     @Test
-    public void domain() throws IOException, SAXException {
-        assertXmlIdentical(DOMAIN_XML, FirstLevelXmlElementOrder.fix(DOMAIN_XML));
-    }
-
-    @Test
-    public void host() throws IOException, SAXException {
-        assertXmlIdentical(HOST_XML, FirstLevelXmlElementOrder.fix(HOST_XML));
-    }
-
-    @Test
-    public void server() throws IOException, SAXException {
-        assertXmlIdentical(SERVER_XML, FirstLevelXmlElementOrder.fix(SERVER_XML));
+    public void insert() throws IOException, SAXException, ParserConfigurationException {
+        GPathResult root = new XmlSlurper(false, false).parseText(SERVER_XML_MISSING_ELEMENTS);
+        FirstLevelXmlElementOrder.insert((Node) root.getAt(0), "socket-binding-group");
+        FirstLevelXmlElementOrder.insert((Node) root.getAt(0), "profile");
+        FirstLevelXmlElementOrder.insert((Node) root.getAt(0), "paths");
+        assertXmlIdentical(SERVER_XML_INSERTED_ELEMENTS, XmlUtil.serialize(root));
     }
 
     @Test(expected = IllegalArgumentException.class)
-    public void unknown() {
-        FirstLevelXmlElementOrder.fix(UNKNOWN_XML);
+    public void unknown() throws IOException, SAXException, ParserConfigurationException {
+        GPathResult root = new XmlSlurper(false, false).parseText(UNKNOWN_XML);
+        FirstLevelXmlElementOrder.insert((Node) root.getAt(0), "profile");
     }
 }
@@ -7,6 +7,7 @@ import org.wildfly.extras.creaper.core.CommandFailedException;
 import org.wildfly.extras.creaper.core.ManagementClient;
 import org.wildfly.extras.creaper.core.offline.OfflineManagementClient;
 import org.wildfly.extras.creaper.core.offline.OfflineOptions;
+import org.wildfly.extras.creaper.core.offline.OfflineSession;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Rule;
@@ -77,4 +78,17 @@ public class GroovyXmlTransformTest {
         client.apply(new ExampleSubtreeParameterizedTransformation("foobar"));
         assertXmlIdentical(EXPECTED_PARAMETERIZED, Files.toString(cfg, Charsets.UTF_8));
     }
+
+    @Test
+    public void transformsInSession() throws IOException, SAXException, CommandFailedException {
+        OfflineSession session = client.session();
+        try {
+            // the second transformation must see the result of the first one, so there's no "foo" to replace
+            session.apply(new ExampleSimpleTransformation(), new ExampleParameterizedTransformation("foobar"));
+            assertXmlIdentical(ORIGINAL, Files.toString(cfg, Charsets.UTF_8));
+        } finally {
+            session.close();
+        }
+        assertXmlIdentical(EXPECTED, Files.toString(cfg, Charsets.UTF_8));
+    }
 }
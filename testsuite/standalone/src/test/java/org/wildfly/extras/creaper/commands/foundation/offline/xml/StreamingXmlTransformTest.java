@@ -0,0 +1,128 @@
+package org.wildfly.extras.creaper.commands.foundation.offline.xml;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.custommonkey.xmlunit.XMLUnit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.extras.creaper.commands.logging.LogLevel;
+import org.wildfly.extras.creaper.commands.logging.Logging;
+import org.wildfly.extras.creaper.core.ManagementClient;
+import org.wildfly.extras.creaper.core.offline.OfflineManagementClient;
+import org.wildfly.extras.creaper.core.offline.OfflineOptions;
+
+import java.io.File;
+
+import static org.junit.Assert.assertTrue;
+import static org.wildfly.extras.creaper.XmlAssert.assertXmlIdentical;
+
+public class StreamingXmlTransformTest {
+    private static final String DOMAIN_ORIGINAL = ""
+            + "<domain xmlns=\"urn:jboss:domain:4.0\">\n"
+            + "    <!-- this comment is preserved by the streaming engine -->\n"
+            + "    <profiles>\n"
+            + "        <profile name=\"default\">\n"
+            + "            <subsystem xmlns=\"urn:jboss:domain:logging:3.0\"/>\n"
+            + "        </profile>\n"
+            + "        <profile name=\"ha\">\n"
+            + "            <subsystem xmlns=\"urn:jboss:domain:logging:3.0\"/>\n"
+            + "        </profile>\n"
+            + "    </profiles>\n"
+            + "</domain>";
+
+    private static final String DOMAIN_EXPECTED = ""
+            + "<domain xmlns=\"urn:jboss:domain:4.0\">\n"
+            + "    <!-- this comment is preserved by the streaming engine -->\n"
+            + "    <profiles>\n"
+            + "        <profile name=\"default\">\n"
+            + "            <subsystem xmlns=\"urn:jboss:domain:logging:3.0\"/>\n"
+            + "        </profile>\n"
+            + "        <profile name=\"ha\">\n"
+            + "            <subsystem xmlns=\"urn:jboss:domain:logging:3.0\">\n"
+            + "                <logger category=\"creaper.category\">\n"
+            + "                    <level name=\"OFF\"/>\n"
+            + "                </logger>\n"
+            + "            </subsystem>\n"
+            + "        </profile>\n"
+            + "    </profiles>\n"
+            + "</domain>";
+
+    private static final String STANDALONE_ORIGINAL = ""
+            + "<server xmlns=\"urn:jboss:domain:4.0\">\n"
+            + "    <profile>\n"
+            + "        <subsystem xmlns=\"urn:jboss:domain:logging:3.0\"/>\n"
+            + "    </profile>\n"
+            + "</server>";
+
+    private static final String STANDALONE_EXPECTED = ""
+            + "<server xmlns=\"urn:jboss:domain:4.0\">\n"
+            + "    <profile>\n"
+            + "        <subsystem xmlns=\"urn:jboss:domain:logging:3.0\">\n"
+            + "            <logger category=\"creaper.category\">\n"
+            + "                <level name=\"OFF\"/>\n"
+            + "            </logger>\n"
+            + "        </subsystem>\n"
+            + "    </profile>\n"
+            + "</server>";
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        XMLUnit.setNormalizeWhitespace(true);
+    }
+
+    @Test
+    public void onlyTargetedSubsystemIsTransformed() throws Exception {
+        File cfg = tmp.newFile("domain.xml");
+        Files.write(DOMAIN_ORIGINAL, cfg, Charsets.UTF_8);
+
+        OfflineManagementClient client = ManagementClient.offline(OfflineOptions.domain().forProfile("ha").build()
+                .configurationFile(cfg)
+                .streaming()
+                .build());
+
+        client.apply(Logging.logger().add("creaper.category").level(LogLevel.OFF).build());
+
+        String result = Files.toString(cfg, Charsets.UTF_8);
+        assertXmlIdentical(DOMAIN_EXPECTED, result);
+        assertTrue(result.contains("<!-- this comment is preserved by the streaming engine -->"));
+    }
+
+    @Test
+    public void standalone() throws Exception {
+        File cfg = tmp.newFile("standalone.xml");
+        Files.write(STANDALONE_ORIGINAL, cfg, Charsets.UTF_8);
+
+        OfflineManagementClient client = ManagementClient.offline(OfflineOptions.standalone()
+                .configurationFile(cfg)
+                .streaming()
+                .build());
+
+        client.apply(Logging.logger().add("creaper.category").level(LogLevel.OFF).build());
+
+        assertXmlIdentical(STANDALONE_EXPECTED, Files.toString(cfg, Charsets.UTF_8));
+    }
+
+    @Test
+    public void transformedSubtreeIsIndented() throws Exception {
+        File cfg = tmp.newFile("standalone.xml");
+        Files.write(STANDALONE_ORIGINAL, cfg, Charsets.UTF_8);
+
+        OfflineManagementClient client = ManagementClient.offline(OfflineOptions.standalone()
+                .configurationFile(cfg)
+                .streaming()
+                .build());
+
+        client.apply(Logging.logger().add("creaper.category").level(LogLevel.OFF).build());
+
+        // the subtree is indented as a whole, nested elements are indented further
+        String result = Files.toString(cfg, Charsets.UTF_8).replace("\r\n", "\n");
+        assertTrue(result, result.contains("\n        <subsystem xmlns=\"urn:jboss:domain:logging:3.0\">\n"));
+        assertTrue(result, result.matches("(?s).*\n {9,}<logger category=\"creaper.category\">\n.*"));
+        assertTrue(result, result.contains("\n        </subsystem>\n    </profile>\n"));
+    }
+}
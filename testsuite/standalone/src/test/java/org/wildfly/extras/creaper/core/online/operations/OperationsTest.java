@@ -19,6 +19,7 @@ import org.wildfly.extras.creaper.core.online.OnlineOptions;
 import org.wildfly.extras.creaper.core.online.operations.admin.Administration;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
@@ -422,6 +423,21 @@ public class OperationsTest {
         assertTrue(ops.exists(Address.subsystem("infinispan").and("cache-container", "web")));
         assertFalse(ops.exists(Address.subsystem("infinispan").and("cache-container", "nonexisting-cache-container")));
         assertFalse(ops.exists(Address.of("foo", "bar")));
+
+        for (ExistenceCheck check : ExistenceCheck.values()) {
+            assertTrue(ops.exists(Address.root(), check));
+            assertTrue(ops.exists(Address.subsystem("infinispan").and("cache-container", "web"), check));
+            assertFalse(ops.exists(Address.subsystem("infinispan").and("cache-container", "nonexisting"), check));
+            assertFalse(ops.exists(Address.of("foo", "bar").and("baz", "quux"), check));
+
+            assertEquals(Arrays.asList(true, false, true, false, false), ops.existsAll(check,
+                    Address.subsystem("infinispan"),
+                    Address.subsystem("infinispan").and("cache-container", "nonexisting"),
+                    Address.subsystem("infinispan").and("cache-container", "web"),
+                    Address.of("foo", "bar").and("baz", "quux"),
+                    Address.of("foo", "bar")
+            ));
+        }
     }
 
     @Test